@@ -22,11 +22,13 @@ import java.net.InetAddress;
 public class AuthServerPacketStats
 {
     // the IP address where the packet comes from.
-    private String server_address;
+    //  InetAddress.equals() compares IPv4 addresses as int, no string needed.
+    private InetAddress server_address;
     // domain name in the query the client previously sent.
-    private String queryName;
-    // answers (e.g. IP addresses) of that domain name
-    private String[] ip_addresses;
+    //  Compared in wire format, upper/lower case ignored, see DNSName.
+    private DNSName queryName;
+    // answers (IPv4 addresses, packed int, see DNSRdataTypeA) of that domain name
+    private int[] ip_addresses;
     // count how many times, the matched responses fall in window time.
     //  Matched response: DNS response come from same server, contain same
     //  query name in DNS question section.
@@ -47,10 +49,9 @@ public class AuthServerPacketStats
                                  AuthServerStats serverStats,
                                  int rtt)
     {
-        this.server_address = source_addr.getHostAddress();
-        this.queryName = responseMsg.getQueryName();
-        RecordType qType = RecordType.getByCode(responseMsg.getQType() & 0xFFFF);
-        this.ip_addresses = responseMsg.retrieveDNSAnswers(this.queryName, qType);
+        this.server_address = source_addr;
+        this.queryName = responseMsg.getQueryDomainName();
+        this.ip_addresses = responseMsg.retrieveIPv4Answers(this.queryName);
         this.id_from_header = responseMsg.getQueryId();
 
         if (!serverStats.isEarlyPacket(rtt))
@@ -65,19 +66,18 @@ public class AuthServerPacketStats
      *  received from an "authoritative server".
      * @param packet the datagram packet we received..
      * @param severStats Authoritative server statistics.
-     * @param rtt round trip time of that DNS message. */
+     * @param rtt round trip time of that DNS message.
+     * @throws DNSDecodeException if the packet is not a valid message,
+     *          check it with DNSMessageValidator.validate() first. */
     public AuthServerPacketStats(DatagramPacket packet,
                                  AuthServerStats severStats,
                                  int rtt)
     {
         DNSMessage responseMsg = DNSMessage.getMessageFromPacket(packet);
-        RecordType queryType = RecordType.getByCode(
-                responseMsg.getQType() & 0xFFFF);
 
-        this.server_address = packet.getAddress().getHostAddress();
-        this.queryName = responseMsg.getQueryName();
-        this.ip_addresses = responseMsg.retrieveDNSAnswers(this.queryName,
-                queryType);
+        this.server_address = packet.getAddress();
+        this.queryName = responseMsg.getQueryDomainName();
+        this.ip_addresses = responseMsg.retrieveIPv4Answers(this.queryName);
         if (!severStats.isEarlyPacket(rtt))
         {
             // The packet does not arrive before window start time.
@@ -90,17 +90,18 @@ public class AuthServerPacketStats
      *      in String format. */
     public String getServer_address()
     {
-        return this.server_address;
+        return this.server_address.getHostAddress();
     }
 
     /** Helper method to get query name. */
     public String getQueryName()
     {
-        return this.queryName;
+        return this.queryName.getName();
     }
 
-    /** Helper method to get all ip_addresses of the query name. */
-    public String[] getIp_addresses()
+    /** Helper method to get all ip_addresses of the query name,
+     *      as packed int (see DNSRdataTypeA.formatIPv4()). */
+    public int[] getIp_addresses()
     {
         return this.ip_addresses;
     }
@@ -150,18 +151,24 @@ public class AuthServerPacketStats
      *         false otherwise. */
     public boolean isPacketBelongsToStats(DatagramPacket packet)
     {
-        DNSMessage message = DNSMessage.getMessageFromPacket(packet);
-        String source_IP = packet.getAddress().getHostAddress();
-        String qName = message.getQueryName();
-        if (!qName.equals(this.queryName))
+        // compare the source first, it costs no decoding.
+        if (!packet.getAddress().equals(this.server_address))
         {
             return false;
         }
-        if (!source_IP.equals(this.server_address))
+        // compare the name in the question with the bytes received,
+        //  nothing is decoded. A broken packet does not match.
+        byte[] data = packet.getData();
+        int offset = packet.getOffset();
+        int length = packet.getLength();
+        if (length < DNSHeader.HEADER_LENGTH
+                || DNSHeader.getField(data, offset,
+                        DNSHeader.QUESTION_COUNT_OFFSET) == 0)
         {
             return false;
         }
-        return true;
+        return this.queryName.wireEquals(data, offset + DNSHeader.HEADER_LENGTH,
+                length - DNSHeader.HEADER_LENGTH);
     }
 
 
@@ -170,6 +177,18 @@ public class AuthServerPacketStats
      * @param qName domain name is client's sent DNS question.
      * @return true of id and query domain name matches. */
     public boolean isStatsHasValidIdAndName(int queryId, String qName)
+    {
+
+        return this.isStatsHasValidIdAndName(queryId, new DNSLabels(qName));
+    }
+
+
+    /** Same as above, for the DNSName the client encoded in its query.
+     * The names are compared in wire format, upper/lower case ignored.
+     * @param queryId id used in client's sent DNS header.
+     * @param qName domain name is client's sent DNS question.
+     * @return true of id and query domain name matches. */
+    public boolean isStatsHasValidIdAndName(int queryId, DNSName qName)
     {
         if (this.id_from_header != queryId)
         {
@@ -1,4 +1,5 @@
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
  * This class represent a decoder which will be used during
@@ -6,14 +7,35 @@ import java.util.HashMap;
  * The object will pass as argument to each DNSMessage components'
  * constructors. In order to help us to decode and then construct
  * a DNSMessage object.
+ *
+ * One decoder can be reused for many messages: reset(buffer, offset, length)
+ * points it to the next message, and keeps its name table (cleared).
+ * See CodecPool for one decoder kept per thread.
+ *
+ * The decoder never reads past the length of the message, even if the
+ * array is larger (e.g. a reused receive buffer with bytes of an earlier
+ * packet after the message). Reading past the end, or following a bad name
+ * pointer, throws DNSDecodeException, which tells the reason.
  */
 public class BigEndianDecoder
 {
     // the received bytes buffer of a DNS message
+    // null if the message is in a direct ByteBuffer.
     private byte[] receivedBuffer;
 
+    // the direct ByteBuffer that holds the message, if it has no array.
+    private ByteBuffer directBuffer;
+
+    // index in receivedBuffer (or directBuffer) where the DNS message starts.
+    // 0, unless the message is in the middle of a larger array.
+    private int start;
+
+    // number of bytes of the DNS message in receivedBuffer.
+    private int length;
+
     // the cursor of where the current byte should be decoded
     // the Instance of the class in charge of updating this cursor
+    // It counts from the start of the message, same as a name pointer.
     //
     // i.e. the first byte that we haven't decoded
     // (although we may have a look the value of this byte
@@ -21,8 +43,19 @@ public class BigEndianDecoder
     private int offset;
 
 
-    // a HashMap to maintain parsed Domain Name
-    // key: int (offset)
+    // a name pointer has 14 bits of offset, no pointer can point
+    // to a name at or after this offset.
+    private static final int MAX_POINTER_OFFSET = 0x4000;
+
+    // a domain name is at most 255 bytes in wire format (RFC1035 2.3.4).
+    public static final int MAX_NAME_LENGTH = 255;
+
+    // a name of at most 255 bytes has at most 127 labels, so no valid name
+    // needs to follow more name pointers than this.
+    public static final int MAX_POINTER_DEPTH = 127;
+
+    // a table to maintain parsed Domain Name
+    // index: offset
     // value: the dnsName object contains the domain name starting at this position
     //
     // e.g.
@@ -30,11 +63,27 @@ public class BigEndianDecoder
     // the offset at 0x33 should be cs.ubc.ca
     // the offset at 0x35 should be ubc.ca
     // the offset at 0x38 should be ca
-    // all four names' correspond dnsName objects will be stored in the hashMap
+    // all four names' correspond dnsName objects will be stored in the table
     //
-    // One DNSMessage should have one BigEndianDecoder
-    // and thus one parsedName HashMap.
-    private HashMap<Integer, DNSName> nameTable;
+    // Offsets are bounded by the length of the message, so the table is a
+    // plain array indexed by offset: no hashing, and no boxed Integer keys.
+    // It is as long as the longest message decoded so far (at most
+    // MAX_POINTER_OFFSET), and kept when the decoder is reset.
+    private DNSName[] nameTable;
+
+    // offsets that have a name in nameTable, so reset() only clears those.
+    private int[] usedOffsets;
+    private int usedCount;
+
+    // name pointers must point before this offset, see getPointedName().
+    private int pointerLimit;
+
+    // number of name pointers being followed, see getPointedName().
+    private int pointerDepth;
+
+    // true if rdata with domain names should be skipped, and only decoded
+    // when asked for, see setLazyRdata().
+    private boolean lazyRdata;
 
     /**
      * constructor:
@@ -43,9 +92,145 @@ public class BigEndianDecoder
      */
     public BigEndianDecoder(byte[] receivedBufferV)
     {
+        this(receivedBufferV, 0, receivedBufferV.length);
+    }
+
+
+    /**
+     * constructor:
+     * construct a new dns Decoder for a message inside a larger array,
+     *  e.g. the data of a DatagramPacket.
+     * @param receivedBufferV: the array that holds the message.
+     * @param offsetV: index in receivedBufferV where the message starts.
+     * @param lengthV: number of bytes of the message.
+     */
+    public BigEndianDecoder(byte[] receivedBufferV, int offsetV, int lengthV)
+    {
+        this.nameTable = new DNSName[0];
+        this.usedOffsets = new int[16];
+        this.reset(receivedBufferV, offsetV, lengthV);
+    }
+
+
+    /**
+     * constructor:
+     * construct a new dns Decoder for the message between the position
+     *  and the limit of a ByteBuffer. The bytes are not copied, and the
+     *  position of the ByteBuffer is not changed.
+     * @param messageBuffer: the ByteBuffer that holds the message.
+     */
+    public BigEndianDecoder(ByteBuffer messageBuffer)
+    {
+        this.nameTable = new DNSName[0];
+        this.usedOffsets = new int[16];
+        this.reset(messageBuffer);
+    }
+
+
+    /**
+     * Helper method:
+     * let the decoder decode another message, the one between the
+     *  position and the limit of a ByteBuffer.
+     * @param messageBuffer: the ByteBuffer that holds the message.
+     */
+    public void reset(ByteBuffer messageBuffer)
+    {
+        if (messageBuffer.hasArray())
+        {
+            this.reset(messageBuffer.array(),
+                    messageBuffer.arrayOffset() + messageBuffer.position(),
+                    messageBuffer.remaining());
+            return;
+        }
+        this.receivedBuffer = null;
+        this.directBuffer = messageBuffer;
+        this.start = messageBuffer.position();
+        this.length = messageBuffer.remaining();
+        this.reset();
+    }
+
+
+    /**
+     * Helper method:
+     * let the decoder decode another message, from its first byte.
+     * The name table of the previous message is cleared, not recreated.
+     * @param receivedBufferV: the array that holds the message.
+     * @param offsetV: index in receivedBufferV where the message starts.
+     * @param lengthV: number of bytes of the message.
+     */
+    public void reset(byte[] receivedBufferV, int offsetV, int lengthV)
+    {
+        if (offsetV < 0 || lengthV < 0 || offsetV + lengthV > receivedBufferV.length)
+        {
+            throw new IndexOutOfBoundsException("BigEndianDecoder: offset " + offsetV
+                    + " length " + lengthV + " buffer length " + receivedBufferV.length);
+        }
         this.receivedBuffer = receivedBufferV;
+        this.directBuffer = null;
+        this.start = offsetV;
+        this.length = lengthV;
+        this.reset();
+    }
+
+
+    /**
+     * Helper method:
+     * decode the same message again, from its first byte.
+     */
+    public void reset()
+    {
         this.offset = 0;
-        this.nameTable = new HashMap<>();
+        this.pointerLimit = Integer.MAX_VALUE;
+        this.pointerDepth = 0;
+        // clear the names of the previous message.
+        for (int i = 0; i < this.usedCount; i++)
+        {
+            this.nameTable[this.usedOffsets[i]] = null;
+        }
+        this.usedCount = 0;
+        // make sure every offset a pointer can reach has a slot.
+        int tableLength = Math.min(this.length, MAX_POINTER_OFFSET);
+        if (this.nameTable.length < tableLength)
+        {
+            this.nameTable = new DNSName[tableLength];
+        }
+    }
+
+
+    /**
+     * Helper method:
+     * turn lazy rdata mode on or off. It stays the same when the decoder
+     * is reset.
+     * In lazy mode, the rdata of NS, CNAME, MX, SOA, etc. (the types with
+     * domain names) is skipped, and only decoded the first time it is asked
+     * for, see DNSRdataLazy. Only use it on a decoder that is not reset to
+     * another message while the decoded records are still used, e.g. NOT
+     * the decoder of CodecPool.
+     * @param lazy: true to skip rdata with domain names.
+     */
+    public void setLazyRdata(boolean lazy)
+    {
+        this.lazyRdata = lazy;
+    }
+
+
+    /**
+     * Helper method:
+     * @return true if the decoder is in lazy rdata mode.
+     */
+    public boolean isLazyRdata()
+    {
+        return this.lazyRdata;
+    }
+
+
+    /**
+     * Helper method:
+     * @return number of bytes of the message being decoded.
+     */
+    public int getLength()
+    {
+        return this.length;
     }
 
 
@@ -63,6 +248,37 @@ public class BigEndianDecoder
     }
 
 
+    /**
+     * Helper method:
+     * make sure the message has numOfBytes more bytes after the offset.
+     * @param numOfBytes: the number of bytes we are going to decode.
+     * @throws DNSDecodeException if the message is too short.
+     */
+    private void require(int numOfBytes)
+    {
+        if (numOfBytes < 0 || numOfBytes > this.length - this.offset)
+        {
+            throw new DNSDecodeException(DNSDecodeException.Reason.TRUNCATED,
+                    this.offset);
+        }
+    }
+
+
+    /**
+     * Helper method:
+     * @param index: offset from the start of the message, already checked.
+     * @return the byte at this offset.
+     */
+    private byte byteAt(int index)
+    {
+        if (this.receivedBuffer != null)
+        {
+            return this.receivedBuffer[this.start + index];
+        }
+        return this.directBuffer.get(this.start + index);
+    }
+
+
     /**
      * Helper method:
      * when some data are not necessary, e.g. SOA's rdata, there are 20 bytes
@@ -72,7 +288,7 @@ public class BigEndianDecoder
      */
     public void skip(int numOfBytes)
     {
-
+        this.require(numOfBytes);
         this.offset += numOfBytes;
     }
 
@@ -85,7 +301,8 @@ public class BigEndianDecoder
     public byte peekByte()
     {
         // do not increment offset
-        return this.receivedBuffer[this.offset];
+        this.require(1);
+        return this.byteAt(this.offset);
     }
 
 
@@ -97,7 +314,8 @@ public class BigEndianDecoder
     public byte decodeByte()
     {
         // First get the current byte
-        byte b = this.receivedBuffer[this.offset];
+        this.require(1);
+        byte b = this.byteAt(this.offset);
         // then increment the offset
         // to point to the next byte that should be decoded.
         this.offset += 1;
@@ -108,20 +326,19 @@ public class BigEndianDecoder
      * Basic decoding method:
      * decode a 16-bit short value that is represented at
      * receivedBuffer[offset], receivedBuffer[offset + 1].
-     *
-     * This method does not need to manage the offset updates,
-     * since it calls decodeByte() to get those two bytes' values.
      * @return the decoded short value
      */
     public short decodeShort()
     {
         // e.g. the short we want is 0x0123
         // In receviedBuffer, this should be [..., 0x01, 0x23, ...]
+        this.require(2);
         // first get the higher byte
         // so its value would be 0x01
-        byte higherByte = this.decodeByte();
+        byte higherByte = this.byteAt(this.offset);
         // get the lower byte, which should be 0x23
-        byte lowerByte = this.decodeByte();
+        byte lowerByte = this.byteAt(this.offset + 1);
+        this.offset += 2;
 
         int higherBToInt = (higherByte & 0xFF) << 8;
         int lowerBToInt = lowerByte & 0xFF;
@@ -144,6 +361,7 @@ public class BigEndianDecoder
 
         // e.g. the 32-bit int we want is 0x12345678
         // In receivedBuffer, this should be [..., 0x12, 0x34, 0x56, 0x78, ...]
+        this.require(4);
 
         // First get the higher two-bytes short,
         // so higherShort should be 0x1234.
@@ -164,20 +382,19 @@ public class BigEndianDecoder
     /**
      * Convenient method:
      * Decode a sequence of bytes and put into a byte array.
-     *
-     * This method itself does not need to manage offset update,
-     * since it calls decodeByte() to get bytes it need.
      * @param amountV: amount of bytes we wish to decode
      * @return a byte array containing these bytes.
      */
     public byte[] decodeBytes(int amountV)
     {
+        this.require(amountV);
         byte[] bytes = new byte[amountV];
 
         for (int i = 0; i < amountV; i++)
         {
-            bytes[i] = this.decodeByte();
+            bytes[i] = this.byteAt(this.offset + i);
         }
+        this.offset += amountV;
         return bytes;
     }
 
@@ -193,10 +410,17 @@ public class BigEndianDecoder
      */
     public String decodeString(int length)
     {
+        if (this.receivedBuffer == null)
+        {
+            // the bytes are in a direct ByteBuffer, copy them first.
+            return new String(this.decodeBytes(length));
+        }
+
         // This will return the string in ASCII format.
         // e.g. receivedBuffer[0x32] to receivedBuffer[0x34] all have value 0x77,
         // the parsed string will be "www" at offset 0x32
-        String str = new String(this.receivedBuffer, this.offset, length);
+        this.require(length);
+        String str = new String(this.receivedBuffer, this.start + this.offset, length);
         // update the offset
         this.offset += length;
         return str;
@@ -209,26 +433,13 @@ public class BigEndianDecoder
      * decode an IPv4 address that represented by 4 bytes in receivedBuffer.
      *
      * This method itself does not manage the offset,
-     * since it calls decodeBytes() to get the 4 bytes.
+     * since it calls decodeInt() to get the 4 bytes.
+     * If the string is not needed, use decodeInt() to get the packed address.
      * @return a parsed string e.g. "145.123.2.32"
      */
     public String decodeIpv4()
     {
-        StringBuilder builder = new StringBuilder();
-        // The 4 bytes represents Ipv4 address
-        byte[] theFourBytes = this.decodeBytes(4);
-
-        for (int i = 0; i < 3; i++)
-        {
-            // Use & operation with integer to remove sign of byte.
-            builder.append(theFourBytes[i] & 0xFF);
-            builder.append('.');
-        }
-        // append the last byte
-        builder.append(theFourBytes[3] & 0xFF);
-
-
-        return builder.toString();
+        return DNSRdataTypeA.formatIPv4(this.decodeInt());
     }
 
     /**
@@ -236,65 +447,170 @@ public class BigEndianDecoder
      * decode an IPv6 address that represented by 16 bytes in the buffer.
      *
      *  This method itself does not need to manage offset,
-     *  since it calls decodeIpv6Helper() to get each 4 hex value in a string.
-     * @return a string like "1abc:0:3214:6789:8907:b212:bcd1:2eac"
+     *  since DNSRdataTypeAAAA decodes the 16 bytes.
+     * @return a string like "2001:db8::1", see DNSRdataTypeAAAA.formatIPv6().
      */
     public String decodeIpv6()
     {
-        StringBuilder builder = new StringBuilder();
-        // get the 8 segments and append to the StringBuilder
-        for (int i = 0; i < 8; i++)
+        return new DNSRdataTypeAAAA(this).getInfo();
+    }
+
+
+    /**
+     * Helper method:
+     * get a byte of the message, without moving the offset.
+     * @param index: offset from the start of the message.
+     * @return the byte at this offset.
+     */
+    public byte getByte(int index)
+    {
+        if (index < 0 || index >= this.length)
         {
-            String oneSegment = this.decodeIpv6Helper();
-            builder.append(oneSegment);
-            // now append the ':' character
-            builder.append(':');
+            throw new DNSDecodeException(DNSDecodeException.Reason.TRUNCATED, index);
         }
+        return this.byteAt(index);
+    }
 
-        // delete the last ':' character
-        builder.deleteCharAt(builder.toString().length() - 1);
 
-        return builder.toString();
+    /**
+     * Helper method:
+     * @return the array the message is decoded from, not a copy;
+     *          null if the message is in a direct ByteBuffer.
+     */
+    public byte[] getReceivedBuffer()
+    {
+        return this.receivedBuffer;
     }
 
+
     /**
      * Helper method:
-     * decode one of the eight Ipv6 sub-address which takes 2 bytes
-     * e.g. {..., 3b, 24, ...}
-     * @return a parsed string like "3b24"
+     * @param index: offset from the start of the message.
+     * @return index in getReceivedBuffer() of the byte at this offset.
      */
-    private String decodeIpv6Helper()
+    public int getArrayIndex(int index)
     {
-        StringBuilder builder = new StringBuilder();
+        return this.start + index;
+    }
 
-        // decode 2 bytes for this segement
-        byte[] twoBytes = this.decodeBytes(2);
 
-        // append
-        for (int i = 0; i < 2; i++)
+    /**
+     * Helper method:
+     * check the domain name at the offset, before it is decoded, without
+     *  moving the offset: every label length byte is valid, and the labels
+     *  before the root label or the name pointer fit in MAX_NAME_LENGTH
+     *  bytes. DNSLabels decodes one label per recursive call, so this also
+     *  bounds how deep the recursion goes.
+     * @return offset right after the name, if it ends with the root label;
+     *          -1 if it ends with a name pointer.
+     * @throws DNSDecodeException if the name is not valid.
+     */
+    public int checkName()
+    {
+        int index = this.offset;
+        while (true)
         {
-            builder.append(String.format("%02x", twoBytes[i]));
+            if (index >= this.length)
+            {
+                throw new DNSDecodeException(DNSDecodeException.Reason.TRUNCATED,
+                        index);
+            }
+            int lengthByte = this.byteAt(index) & 0xFF;
+            if ((lengthByte & 0xC0) == 0xC0)
+            {
+                // a pointer ends the name, getPointedName() checks the rest.
+                if (index + 2 > this.length)
+                {
+                    throw new DNSDecodeException(DNSDecodeException.Reason.TRUNCATED,
+                            index);
+                }
+                return -1;
+            }
+            if ((lengthByte & 0xC0) != 0)
+            {
+                throw new DNSDecodeException(DNSDecodeException.Reason.BAD_LABEL,
+                        index);
+            }
+            index += 1 + lengthByte;
+            if (index - this.offset > MAX_NAME_LENGTH)
+            {
+                throw new DNSDecodeException(DNSDecodeException.Reason.NAME_TOO_LONG,
+                        this.offset);
+            }
+            if (lengthByte == 0)
+            {
+                // the root label ends the name.
+                return index;
+            }
         }
+    }
+
 
-        // This string could be something like "0023"
-        // need to take the higher 00 off.
-        String rawString = builder.toString();
-        String returnedString;
-        int cursor = 0;
-        while (rawString.charAt(cursor) == '0')
+    /**
+     * Helper method:
+     * move the cursor to another offset of the message, e.g. to decode
+     * one section without decoding the sections before it.
+     * @param offsetV: offset from the start of the message.
+     */
+    public void seek(int offsetV)
+    {
+        if (offsetV < 0 || offsetV > this.length)
         {
-            cursor += 1;
-            if (cursor == rawString.length())
-            {
-                // the raw string is "0000"
-                return "0";
-            }
+            throw new DNSDecodeException(DNSDecodeException.Reason.TRUNCATED, offsetV);
         }
+        this.offset = offsetV;
+    }
 
-        returnedString = rawString.substring(cursor);
 
+    /**
+     * Dynamic programing method:
+     * find the name a name pointer points to. If no name has been decoded
+     * at that offset yet (e.g. the section it is in was not decoded),
+     * decode it now, and come back to where we were.
+     *
+     * A pointer must point to a prior occurrence of a name (RFC1035 4.1.4).
+     * While the pointed name is decoded, pointers in it must point even
+     * further back, so every pointer chain ends, even in a forged message,
+     * and at most MAX_POINTER_DEPTH pointers are followed, so it ends soon.
+     * @param target: the offset which decoded from a NamePointer.
+     * @param pointerOffset: the offset of the NamePointer itself.
+     * @return the DNSName object at target.
+     * @throws DNSDecodeException if the pointer does not point back,
+     *          or too many pointers are followed.
+     */
+    public DNSName getPointedName(int target, int pointerOffset)
+    {
+        if (target >= pointerOffset || target >= this.pointerLimit)
+        {
+            throw new DNSDecodeException(DNSDecodeException.Reason.BAD_POINTER,
+                    pointerOffset);
+        }
+        DNSName pointedName = this.getEntry(target);
+        if (pointedName != null)
+        {
+            return pointedName;
+        }
+
+        if (this.pointerDepth >= MAX_POINTER_DEPTH)
+        {
+            throw new DNSDecodeException(DNSDecodeException.Reason.NAME_TOO_LONG,
+                    pointerOffset);
+        }
 
-        return returnedString;
+        int savedOffset = this.offset;
+        int savedLimit = this.pointerLimit;
+        this.offset = target;
+        this.pointerLimit = target;
+        this.pointerDepth += 1;
+        try
+        {
+            return DNSName.decode(this);
+        }finally
+        {
+            this.offset = savedOffset;
+            this.pointerLimit = savedLimit;
+            this.pointerDepth -= 1;
+        }
     }
 
 
@@ -307,8 +623,21 @@ public class BigEndianDecoder
      */
     public void addEntry(int offset, DNSName dnsName)
     {
-
-        this.nameTable.put(offset, dnsName);
+        if (offset < 0 || offset >= this.nameTable.length)
+        {
+            // no name pointer can point here.
+            return;
+        }
+        if (this.nameTable[offset] == null)
+        {
+            if (this.usedCount == this.usedOffsets.length)
+            {
+                this.usedOffsets = Arrays.copyOf(this.usedOffsets, this.usedCount * 2);
+            }
+            this.usedOffsets[this.usedCount] = offset;
+            this.usedCount += 1;
+        }
+        this.nameTable[offset] = dnsName;
     }
 
 
@@ -322,8 +651,11 @@ public class BigEndianDecoder
      */
     public DNSName getEntry(int offset)
     {
-
-        return this.nameTable.get(offset);
+        if (offset < 0 || offset >= this.nameTable.length)
+        {
+            return null;
+        }
+        return this.nameTable[offset];
     }
 
 
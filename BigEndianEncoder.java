@@ -1,77 +1,324 @@
-import java.io.UnsupportedEncodingException;
-import java.util.ArrayList;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 /**
- * This class handles the encoding of a DNS query. It contains a list of bytes
+ * This class handles the encoding of a DNS query. It contains a growable array of bytes
  * that stores the encoded bytes. And provides methods to get the encoded bytes buffer
- * from the list.
+ * from the array.
  *
- * The encoding is in Big Endian. That is the higher bytes get encoded first to list;
+ * The encoding is in Big Endian. That is the higher bytes get encoded first to buffer;
  * and in the bytes buffer, the higher bytes should appear first than lower bytes.
  *
  * Although when encoding a query, we do not need to worry about encoding Resource Records,
  * but the methods provided by this class can also be used to encode Resource Records
  * if needed.
+ *
+ * One encoder can be reused for many messages: call reset() before encoding
+ * the next message, the bytes array will be kept and overwritten.
+ * See CodecPool for one encoder kept per thread.
+ *
+ * An encoder can also write straight into an array supplied by the caller
+ * (e.g. the buffer of a DatagramPacket). Such an encoder never grows,
+ * it throws BufferOverflowException if the message does not fit.
+ *
+ * Domain names are compressed as described in RFC1035 section 4.1.4:
+ * if a name, or the tail of a name (e.g. "uwo.ca" of "www.uwo.ca"), has been
+ * encoded before in the same message, a 2-byte pointer to it is encoded instead.
  */
 public class BigEndianEncoder
 {
-    // the list is going to store
-    // all bytes that encoded
-    private ArrayList<Byte> bytesList;
+    // a DNS message sent over UDP is at most 512 bytes (RFC1035 4.2.1),
+    // so most messages will never need to grow the buffer.
+    private static final int DEFAULT_CAPACITY = 512;
+
+    // the array stores all bytes that encoded,
+    // only buffer[start] ... buffer[position - 1] are valid.
+    private byte[] buffer;
+
+    // index in buffer where the encoded message starts.
+    // 0, unless we encode into an array supplied by the caller.
+    private int start;
+
+    // the cursor of where the next byte should be encoded.
+    private int position;
+
+    // index in buffer where we must stop encoding.
+    private int limit;
+
+    // true if the encoder owns the buffer, and may replace it
+    // with a larger one; false if the caller supplied the buffer.
+    private boolean growable;
+
+    // the array the encoder owns, kept while it writes into the
+    // caller's array, see unwrap(). null until it needs one.
+    private byte[] ownBuffer;
+
+    // true if domain names should be compressed, on by default.
+    private boolean compression = true;
+
+    // the compression table: for each name suffix encoded so far in this message,
+    // its offset from the start of the message, and its hash (see encodeName()).
+    // e.g. after "www.uwo.ca" is encoded at 0x0c, the table has
+    // 0x0c (www.uwo.ca), 0x10 (uwo.ca) and 0x14 (ca).
+    private int[] suffixOffsets = new int[16];
+    private int[] suffixHashes = new int[16];
+    private int suffixCount = 0;
+
+    // scratch arrays for encodeName(): where each label of the name
+    // starts, and the hash of the suffix that begins with that label.
+    private int[] labelStarts = new int[16];
+    private int[] labelHashes = new int[16];
 
     /**
      * Construct a new BigEndianEncoder object
      */
     public BigEndianEncoder()
     {
-        this.bytesList = new ArrayList<>();
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    /**
+     * Construct a new BigEndianEncoder object
+     * @param initialCapacity: the number of bytes the encoder can hold
+     *                       before it needs to grow its buffer.
+     */
+    public BigEndianEncoder(int initialCapacity)
+    {
+        this.buffer = new byte[Math.max(initialCapacity, 16)];
+        this.ownBuffer = this.buffer;
+        this.start = 0;
+        this.position = 0;
+        this.limit = this.buffer.length;
+        this.growable = true;
+    }
+
+
+    /**
+     * Construct a BigEndianEncoder that writes into the caller's array.
+     * @param bufferV: the array the message will be encoded into.
+     * @param offset: index in bufferV of the first byte of the message.
+     * @param limitV: index in bufferV where encoding must stop,
+     *              usually bufferV.length.
+     */
+    public BigEndianEncoder(byte[] bufferV, int offset, int limitV)
+    {
+        this.wrap(bufferV, offset, limitV);
+    }
+
+
+    /**
+     * Helper method:
+     * let the encoder write into the caller's array from now on.
+     * Anything encoded before is discarded.
+     * @param bufferV: the array the message will be encoded into.
+     * @param offset: index in bufferV of the first byte of the message.
+     * @param limitV: index in bufferV where encoding must stop.
+     */
+    public void wrap(byte[] bufferV, int offset, int limitV)
+    {
+        if (offset < 0 || offset > limitV || limitV > bufferV.length)
+        {
+            throw new IndexOutOfBoundsException("BigEndianEncoder: offset " + offset
+                    + " limit " + limitV + " buffer length " + bufferV.length);
+        }
+        this.buffer = bufferV;
+        this.start = offset;
+        this.position = offset;
+        this.limit = limitV;
+        this.growable = false;
+        this.suffixCount = 0;
+    }
+
+
+    /**
+     * Helper method:
+     * after wrap(), go back to encoding into the encoder's own array,
+     * which grows as needed. Anything encoded before is discarded.
+     */
+    public void unwrap()
+    {
+        if (this.ownBuffer == null)
+        {
+            this.ownBuffer = new byte[DEFAULT_CAPACITY];
+        }
+        this.buffer = this.ownBuffer;
+        this.start = 0;
+        this.position = 0;
+        this.limit = this.ownBuffer.length;
+        this.growable = true;
+        this.suffixCount = 0;
+    }
+
+
+    /**
+     * Helper method:
+     * @return the number of bytes encoded so far, which is also
+     *          the offset (from the start of the message) where
+     *          the next byte will be encoded.
+     */
+    public int position()
+    {
+        return this.position - this.start;
+    }
+
+
+    /**
+     * Helper method:
+     * discard all encoded bytes so that the encoder can be reused
+     * for another message. The buffer itself is kept.
+     */
+    public void reset()
+    {
+        this.position = this.start;
+        this.suffixCount = 0;
+    }
+
+
+    /**
+     * Helper method:
+     * discard all encoded bytes, and encode the next message into
+     * the caller's array, same as wrap().
+     * @param bufferV: the array the message will be encoded into.
+     * @param offset: index in bufferV of the first byte of the message.
+     * @param length: the most bytes the message may take in bufferV.
+     */
+    public void reset(byte[] bufferV, int offset, int length)
+    {
+        this.wrap(bufferV, offset, offset + length);
+    }
+
+
+    /**
+     * Helper method:
+     * turn name compression on or off for the names encoded from now on.
+     * @param compressionV: true to compress domain names.
+     */
+    public void setCompression(boolean compressionV)
+    {
+        this.compression = compressionV;
+    }
+
+
+    /**
+     * Helper method:
+     * @return true if domain names are compressed.
+     */
+    public boolean isCompression()
+    {
+        return this.compression;
+    }
+
+
+    /**
+     * Helper method:
+     * make sure there is room for extra bytes in the buffer,
+     * if not, grow the buffer (at least doubles its size).
+     * @param extra: number of bytes we are going to encode.
+     */
+    private void ensureCapacity(int extra)
+    {
+        int required = this.position + extra;
+        if (required > this.limit)
+        {
+            if (!this.growable)
+            {
+                // the caller's array is full, we can't replace it.
+                throw new BufferOverflowException();
+            }
+            int newLength = Math.max(required, this.buffer.length * 2);
+            this.buffer = Arrays.copyOf(this.buffer, newLength);
+            this.ownBuffer = this.buffer;
+            this.limit = newLength;
+        }
     }
 
 
     /**
      * Basic encoding method:
-     * Encode one byte value that adds to the byteList.
+     * Encode one byte value that adds to the buffer.
      * @param b: the byte that is going to be encoded
      */
     public void encodeByte(byte b)
     {
-        // just add one byte to the list
-        this.bytesList.add(b);
+        this.ensureCapacity(1);
+        this.buffer[this.position] = b;
+        this.position += 1;
     }
 
 
     /**
      * Convenient method:
-     * Encode an array of bytes that will be added to the byteList;
+     * Encode an array of bytes that will be added to the buffer;
      * The bytes[0] will be the higher byte so encoding should be ascending order.
      * @param bytes: an array of bytes to be encoded
      */
     public void encodeBytes(byte[] bytes)
     {
-        for (int i = 0; i < bytes.length; i++)
-        {
-            this.encodeByte(bytes[i]);
-        }
+        this.encodeBytes(bytes, 0, bytes.length);
+    }
+
+
+    /**
+     * Convenient method:
+     * Encode part of an array of bytes with one bulk copy.
+     * @param bytes: the array contains the bytes to be encoded
+     * @param offset: index of the first byte to be encoded
+     * @param length: number of bytes to be encoded
+     */
+    public void encodeBytes(byte[] bytes, int offset, int length)
+    {
+        this.ensureCapacity(length);
+        System.arraycopy(bytes, offset, this.buffer, this.position, length);
+        this.position += length;
     }
 
 
     /**
      * Basic encoding method:
      * Encodes a 16-bit (2 bytes) short number, and add the
-     * higer byte as well as the lower byte to the byteList.
+     * higer byte as well as the lower byte to the buffer.
      * @param s: the 16-bit short number to be encoded
      */
     public void encodeShort(short s)
     {
-
-        byte higerByte = (byte) (s >> 8);
-        byte lowerByte = (byte) s;
-
+        this.ensureCapacity(2);
         // First encode higher byte
         // Then encode lower byte
-        this.encodeByte(higerByte);
-        this.encodeByte(lowerByte);
+        this.buffer[this.position] = (byte) (s >> 8);
+        this.buffer[this.position + 1] = (byte) s;
+        this.position += 2;
+    }
+
 
+    /** Helper method:
+     * Leave room for a 16-bit value whose value is not known yet,
+     *  e.g. RDLENGTH, which is only known after the rdata is encoded.
+     *  Fill it in later with patchShort().
+     * @return the offset (from the start of the message) of the room. */
+    public int reserveShort()
+    {
+        int offset = this.position();
+        this.encodeShort((short) 0);
+        return offset;
+    }
+
+
+    /** Helper method:
+     * Overwrite a 16-bit value that has been encoded before,
+     *  in big-endian format. The position is not changed.
+     * @param offset: offset from the start of the message, see reserveShort().
+     * @param s: the value to write. */
+    public void patchShort(int offset, short s)
+    {
+        if (offset < 0 || offset + 2 > this.position())
+        {
+            throw new IndexOutOfBoundsException("BigEndianEncoder: patch offset "
+                    + offset + " position " + this.position());
+        }
+        this.buffer[this.start + offset] = (byte) (s >> 8);
+        this.buffer[this.start + offset + 1] = (byte) s;
     }
 
 
@@ -82,14 +329,14 @@ public class BigEndianEncoder
      * @param i: the 32-bit intger to be encoded. */
     public void encodeInt(int i)
     {
-        // higherShort is 0x1020
-        short higherShort = (short) (i >> 16);
-        // lowerShort is 0x3040
-        short lowerShort = (short) i;
-        // Now we first encode the higherShort's two bytes
-        //  then we encode the lower two bytes.
-        this.encodeShort(higherShort);
-        this.encodeShort(lowerShort);
+        this.ensureCapacity(4);
+        // first we encode the higher two bytes (0x10, 0x20)
+        //  then we encode the lower two bytes (0x30, 0x40).
+        this.buffer[this.position] = (byte) (i >> 24);
+        this.buffer[this.position + 1] = (byte) (i >> 16);
+        this.buffer[this.position + 2] = (byte) (i >> 8);
+        this.buffer[this.position + 3] = (byte) i;
+        this.position += 4;
     }
 
 
@@ -98,108 +345,373 @@ public class BigEndianEncoder
      * Encodes a string which represents a domain name.
      * The length of each substring and the last 0x00 byte will be added
      * as required by RFC1035.
+     *
+     * If the same name is encoded again and again, use encodeName(DNSName),
+     * the DNSName keeps the bytes so the string is only converted once.
      * @param name: a string like "xxx.xxxxx.xxx"
      */
     public void encodeName(String name)
     {
-        // first split the name by "." dot
-        String[] splittedName = name.split("\\.+");
+        byte[] wire = BigEndianEncoder.toWireFormat(name);
+        this.encodeName(wire, 0);
+    }
+
+
+    /**
+     * Basic encoding method:
+     * Encodes a DNSName, using the wire format bytes it has computed before.
+     * Without a pointer, this is one copy of the bytes.
+     * @param dnsName: the domain name to be encoded.
+     */
+    public void encodeName(DNSName dnsName)
+    {
+        byte[] wire = dnsName.getWireFormat();
+        int[] starts = dnsName.getLabelOffsets();
+        this.encodeName(wire, 0, wire.length, starts, dnsName.getSuffixHashes(),
+                starts.length);
+    }
+
+
+    /**
+     * Helper method:
+     * convert a domain name to the format used in a DNS message,
+     * a sequence of [length byte][ASCII characters] labels, then a 0x00 byte.
+     * Empty labels (e.g. "www..uwo.ca" or a trailing dot) are skipped.
+     * @param name: a string like "www.uwo.ca"
+     * @return bytes like [03 77 77 77 03 75 77 6f 02 63 61 00]
+     */
+    public static byte[] toWireFormat(String name)
+    {
+        // every character takes at most one byte, the length byte
+        // of the first label and the last 0x00 byte take two more.
+        byte[] wire = new byte[name.length() + 2];
+        // index of the length byte of the label we are writing.
+        int lengthIndex = 0;
+        int length = 0;
+        for (int i = 0; i < name.length(); i++)
+        {
+            char c = name.charAt(i);
+            if (c == '.')
+            {
+                if (length > 0)
+                {
+                    // end of a label, the next one starts after it.
+                    wire[lengthIndex] = (byte) length;
+                    lengthIndex += length + 1;
+                    length = 0;
+                }
+                continue;
+            }
+            length += 1;
+            // not an ASCII character, write a '?' like String.getBytes() does.
+            wire[lengthIndex + length] = (c < 0x80) ? (byte) c : (byte) '?';
+        }
+        if (length > 0)
+        {
+            wire[lengthIndex] = (byte) length;
+            lengthIndex += length + 1;
+        }
+
+        // at the end, 00 to indicate the end of domain Name
+        wire[lengthIndex] = 0x00;
+        return Arrays.copyOf(wire, lengthIndex + 1);
+    }
 
-        // use a for loop, encode each split string
-        for (int i = 0; i < splittedName.length; i++)
+
+    /**
+     * Helper method:
+     * find where each label of a wire format name starts.
+     * @param wire: the array contains the name.
+     * @param offset: index in wire of the first length byte of the name.
+     * @param starts: receives the index of each label's length byte,
+     *              may be null to only count the labels.
+     * @return number of labels, or -starts.length - 1 if starts is too small.
+     */
+    public static int findLabels(byte[] wire, int offset, int[] starts)
+    {
+        int labelCount = 0;
+        int cursor = offset;
+        while (wire[cursor] != 0)
         {
-             try
-             {
-                 // first convert string to a byte array
-                 // e.g. "www" now should be {0x77, 0x77, 0x77}
-                 byte[] toBytes = splittedName[i].getBytes("ASCII");
-                 // get the length byte to be encoded
-                 byte labelCount = (byte) toBytes.length;
-                 // encode to the list
-                 this.encodeByte(labelCount);
-                 // encode the byte array
-                 this.encodeBytes(toBytes);
-
-             }
-             catch (UnsupportedEncodingException e)
-             {
-                 // stub
-             }
+            if (starts != null)
+            {
+                if (labelCount == starts.length)
+                {
+                    return -starts.length - 1;
+                }
+                starts[labelCount] = cursor;
+            }
+            labelCount += 1;
+            cursor += (wire[cursor] & 0xFF) + 1;
         }
+        return labelCount;
+    }
 
-        // at the end, encode 00 to indicate the end of domain Name
-        this.encodeByte((byte) 0x00);
 
+    /**
+     * Helper method:
+     * hash every suffix of a wire format name, for the compression table.
+     * Hashes are built from the last label; e.g. hash of "www.uwo.ca"
+     * is built from "www" and the hash of "uwo.ca".
+     * @param wire: the array contains the name.
+     * @param starts: index of each label's length byte, see findLabels().
+     * @param count: number of labels.
+     * @param hashes: receives the hash of the suffix starting at each label.
+     */
+    public static void hashSuffixes(byte[] wire, int[] starts, int count, int[] hashes)
+    {
+        int suffixHash = 0;
+        for (int i = count - 1; i >= 0; i--)
+        {
+            int labelStart = starts[i];
+            int labelEnd = labelStart + (wire[labelStart] & 0xFF);
+            int labelHash = 1;
+            for (int j = labelStart; j <= labelEnd; j++)
+            {
+                labelHash = 31 * labelHash + wire[j];
+            }
+            suffixHash = suffixHash * 0x01000193 + labelHash;
+            hashes[i] = suffixHash;
+        }
     }
 
 
-    /** Basic encoding method: Encodes an IPv4 address
-     * IPv4 address in a DNS rdata, is a 32-bit(4 bytes) integer.
-     * For research project, this method is used for encoding
-     * Type A Resource Record's rdata.
-     * @param ipv4Addr - a string that looks like "129.100.0.79" */
-    public void encodeIPv4(String ipv4Addr)
+    /**
+     * Basic encoding method:
+     * Encodes a domain name which is already in wire format, see toWireFormat().
+     * If compression is on, the longest suffix of the name that has been
+     * encoded before in this message is replaced by a pointer.
+     * @param wire: the array contains the name.
+     * @param offset: index in wire of the first length byte of the name.
+     */
+    public void encodeName(byte[] wire, int offset)
     {
-        // if any error occurs, encode 0.0.0.0 as IPv4 address
+        // first find where each label starts.
+        int labelCount = BigEndianEncoder.findLabels(wire, offset, this.labelStarts);
+        if (labelCount < 0)
+        {
+            // more labels than the scratch arrays can hold.
+            int needed = BigEndianEncoder.findLabels(wire, offset, null);
+            this.labelStarts = new int[needed];
+            this.labelHashes = new int[needed];
+            labelCount = BigEndianEncoder.findLabels(wire, offset, this.labelStarts);
+        }
+        int end = (labelCount == 0) ? offset
+                : this.labelStarts[labelCount - 1]
+                        + (wire[this.labelStarts[labelCount - 1]] & 0xFF) + 1;
 
-        // a 4 byte short variable that help us encode 0.0.0.0
-        int wrongData = 0;
-        // firsr we split the string by "."
-        String[] splittedStr = ipv4Addr.split("\\.+");
-        // debug purpose. The length of splittedStr should be 4.
-        if (splittedStr.length != 4)
+        if (this.compression)
+        {
+            BigEndianEncoder.hashSuffixes(wire, this.labelStarts, labelCount,
+                    this.labelHashes);
+        }
+        this.encodeName(wire, offset, end + 1 - offset, this.labelStarts,
+                this.labelHashes, labelCount);
+    }
+
+
+    /**
+     * Helper method for encodeName():
+     * encode a wire format name whose labels and suffix hashes are known.
+     * @param wire: the array contains the name.
+     * @param offset: index in wire of the first length byte of the name.
+     * @param length: number of bytes of the name, including the 0x00 byte.
+     * @param starts: index of each label's length byte.
+     * @param hashes: hash of each suffix, see hashSuffixes().
+     * @param labelCount: number of labels.
+     */
+    private void encodeName(byte[] wire, int offset, int length,
+                            int[] starts, int[] hashes, int labelCount)
+    {
+        if (!this.compression)
         {
-            System.out.println("encodeIPv4: incorrect split string length. ");
-            // Encode two short variable.
-            this.encodeInt(wrongData);
+            // labels and the 0x00 byte, in one copy.
+            this.encodeBytes(wire, offset, length);
             return;
         }
 
-        int byteBalue; // use it for get integer value from a sub string
-        // Use a for loop, to convert each string to a
-        byte[] bytesArray = new byte[4]; // a 4-bytes array for our data
-        for (int i = 0; i < splittedStr.length; i++)
+        // the first suffix we find in the table is the longest one.
+        for (int i = 0; i < labelCount; i++)
         {
-            try
+            int pointerOffset = this.findSuffix(wire, starts[i], hashes[i]);
+            if (pointerOffset >= 0)
             {
-                byteBalue = Integer.parseInt(splittedStr[i]);
-                // if no error, add the byte value to bytesBuffer.
-                bytesArray[i] = (byte) byteBalue;
-            }catch (NumberFormatException n)
+                // labels before the suffix, then a pointer to the suffix.
+                this.addSuffixes(offset, starts, hashes, i);
+                this.encodeBytes(wire, offset, starts[i] - offset);
+                this.encodeShort((short) (0xC000 | pointerOffset));
+                return;
+            }
+        }
+
+        // no suffix has been encoded before, encode the whole name.
+        this.addSuffixes(offset, starts, hashes, labelCount);
+        this.encodeBytes(wire, offset, length);
+    }
+
+
+    /**
+     * Helper method for encodeName():
+     * before the first count labels of a name are encoded at the current
+     * position, add the suffix starting at each of them to the compression table.
+     * @param offset: index in the name's array of its first length byte.
+     * @param starts: index of each label's length byte.
+     * @param hashes: hash of each suffix.
+     * @param count: number of labels that will be encoded.
+     */
+    private void addSuffixes(int offset, int[] starts, int[] hashes, int count)
+    {
+        int base = this.position() - offset;
+        for (int i = 0; i < count; i++)
+        {
+            // a pointer has 14 bits for the offset.
+            int suffixOffset = base + starts[i];
+            if (suffixOffset >= 0x4000)
             {
-                System.out.println("encodeIPv4: can't convert string to number");
-                // encode 2 short variables with value 0, and returns.
-                this.encodeInt(wrongData);
                 return;
             }
+            if (this.suffixCount == this.suffixOffsets.length)
+            {
+                this.suffixOffsets = Arrays.copyOf(this.suffixOffsets,
+                        this.suffixCount * 2);
+                this.suffixHashes = Arrays.copyOf(this.suffixHashes,
+                        this.suffixCount * 2);
+            }
+            this.suffixOffsets[this.suffixCount] = suffixOffset;
+            this.suffixHashes[this.suffixCount] = hashes[i];
+            this.suffixCount += 1;
         }
+    }
+
 
-        // Now we left the loop, no exception was caught.
-        // Encode the array of bytes.
-        this.encodeBytes(bytesArray);
+    /**
+     * Helper method for encodeName():
+     * look up the compression table for a suffix that has been encoded before.
+     * @param wire: the array contains the suffix.
+     * @param suffixStart: index in wire of the first length byte of the suffix.
+     * @param hash: hash of the suffix.
+     * @return offset of the suffix in this message, or -1 if not found.
+     */
+    private int findSuffix(byte[] wire, int suffixStart, int hash)
+    {
+        for (int i = 0; i < this.suffixCount; i++)
+        {
+            if (this.suffixHashes[i] == hash
+                    && this.isSuffixAt(wire, suffixStart, this.suffixOffsets[i]))
+            {
+                return this.suffixOffsets[i];
+            }
+        }
+        return -1;
+    }
+
+
+    /**
+     * Helper method for findSuffix():
+     * compare a suffix with the name already encoded at an offset of this
+     * message, following any pointer encoded there.
+     * @param wire: the array contains the suffix.
+     * @param suffixStart: index in wire of the first length byte of the suffix.
+     * @param messageOffset: offset of an encoded name in this message.
+     * @return true if both are the same name (byte by byte).
+     */
+    private boolean isSuffixAt(byte[] wire, int suffixStart, int messageOffset)
+    {
+        int cursor = this.start + messageOffset;
+        int wireCursor = suffixStart;
+        while (true)
+        {
+            int lengthByte = this.buffer[cursor] & 0xFF;
+            if ((lengthByte & 0xC0) == 0xC0)
+            {
+                // we only encode pointers to earlier offsets, so following
+                // them always ends at a 0x00 byte.
+                int pointer = ((lengthByte & 0x3F) << 8) | (this.buffer[cursor + 1] & 0xFF);
+                cursor = this.start + pointer;
+                continue;
+            }
+            if (lengthByte != (wire[wireCursor] & 0xFF))
+            {
+                return false;
+            }
+            if (lengthByte == 0)
+            {
+                // both names end here.
+                return true;
+            }
+            for (int j = 1; j <= lengthByte; j++)
+            {
+                if (this.buffer[cursor + j] != wire[wireCursor + j])
+                {
+                    return false;
+                }
+            }
+            cursor += lengthByte + 1;
+            wireCursor += lengthByte + 1;
+        }
+    }
+
+
+    /** Basic encoding method: Encodes an IPv4 address
+     * IPv4 address in a DNS rdata, is a 32-bit(4 bytes) integer.
+     * For research project, this method is used for encoding
+     * Type A Resource Record's rdata.
+     *
+     * If the address is encoded many times, parse it once with
+     * DNSRdataTypeA.parseIPv4() and use encodeInt() instead.
+     * @param ipv4Addr - a string that looks like "129.100.0.79" */
+    public void encodeIPv4(String ipv4Addr)
+    {
+        // if any error occurs, parseIPv4 gives 0.0.0.0 as IPv4 address
+        this.encodeInt(DNSRdataTypeA.parseIPv4(ipv4Addr));
     }
 
 
 
     /**
      * Helper method:
-     * when the encoding of a DNS query is completed,
-     * return the byte array which gonna to be sent to a DNS server.
-     * @return: a bytes buffer from byteList
+     * get the array the encoder writes to, without copying it.
+     * Only the position() bytes from getStartOffset() are valid. The array
+     * will be overwritten if the encoder is reset and reused.
+     * @return the bytes buffer the encoder writes to.
      */
-    public byte[] toBtyesBuffer()
+    public byte[] getBuffer()
     {
+        return this.buffer;
+    }
+
 
-       int length = this.bytesList.size();
-       byte[] bytesBuffer = new byte[length];
+    /**
+     * Helper method:
+     * @return index in getBuffer() of the first byte of the message.
+     */
+    public int getStartOffset()
+    {
+        return this.start;
+    }
 
-       for (int i = 0; i < length; i++)
-       {
-           Byte b = this.bytesList.get(i);
-           bytesBuffer[i] = b.byteValue();
-       }
 
-        return bytesBuffer;
+    /**
+     * Helper method:
+     * a ByteBuffer view of the encoded bytes, without copying them.
+     * The view is only valid until the encoder is reset or grows.
+     * @return a ByteBuffer whose remaining bytes are the encoded message.
+     */
+    public ByteBuffer toByteBuffer()
+    {
+        return ByteBuffer.wrap(this.buffer, this.start, this.position());
+    }
+
+
+    /**
+     * Helper method:
+     * when the encoding of a DNS query is completed,
+     * return the byte array which gonna to be sent to a DNS server.
+     * @return: a copy of the encoded bytes
+     */
+    public byte[] toBtyesBuffer()
+    {
+        return Arrays.copyOfRange(this.buffer, this.start, this.position);
     }
 
 }
@@ -0,0 +1,76 @@
+/**
+ * CodecPool keeps one BigEndianEncoder and one BigEndianDecoder for each
+ * thread, so a thread that handles packet after packet (e.g. the loop in
+ * Simple_DNS_Server) does not create a new encoder, decoder and name table
+ * for every packet.
+ *
+ * The pool is thread-confined: each thread gets its own instances, and
+ * nothing is shared, so no locking is needed. But a thread only has one of
+ * each. Getting the decoder again resets it, so the caller must be done with
+ * the previous message before decoding the next one. A decoded DNSMessage
+ * does not keep the decoder, so it stays valid after the decoder is reused.
+ * The same goes for the encoder, which Encodable.encodeInto() uses too:
+ * an encode() must not call encodeInto() or CodecPool.encoder() itself.
+ */
+public class CodecPool
+{
+    // the instances of the current thread.
+    private static final ThreadLocal<CodecPool> POOLS =
+            ThreadLocal.withInitial(CodecPool::new);
+
+    private final BigEndianEncoder encoder;
+    private final BigEndianDecoder decoder;
+
+    /** Constructor:
+     * only called once for each thread, by POOLS. */
+    private CodecPool()
+    {
+        this.encoder = new BigEndianEncoder();
+        this.decoder = new BigEndianDecoder(new byte[0]);
+    }
+
+
+    /** Helper method:
+     * get the decoder of this thread, ready to decode a message.
+     * @param buffer - the array that holds the message.
+     * @param offset - index in buffer where the message starts.
+     * @param length - number of bytes of the message.
+     * @return the decoder of this thread. */
+    public static BigEndianDecoder decoder(byte[] buffer, int offset, int length)
+    {
+        CodecPool pool = POOLS.get();
+        pool.decoder.reset(buffer, offset, length);
+        return pool.decoder;
+    }
+
+
+    /** Helper method:
+     * get the encoder of this thread, empty, encoding into its own
+     *  growable array, names compressed.
+     * Note: the bytes of the previous message are overwritten, copy them
+     *  first (toBtyesBuffer()) if they are still needed.
+     * @return the encoder of this thread. */
+    public static BigEndianEncoder encoder()
+    {
+        CodecPool pool = POOLS.get();
+        pool.encoder.unwrap();
+        pool.encoder.setCompression(true);
+        return pool.encoder;
+    }
+
+
+    /** Helper method:
+     * get the encoder of this thread, ready to encode a message into the
+     *  caller's array, names compressed.
+     * @param buffer - the array the message is encoded into.
+     * @param offset - index in buffer of the first byte of the message.
+     * @param length - the most bytes the message may take in buffer.
+     * @return the encoder of this thread. */
+    public static BigEndianEncoder encoder(byte[] buffer, int offset, int length)
+    {
+        CodecPool pool = POOLS.get();
+        pool.encoder.reset(buffer, offset, length);
+        pool.encoder.setCompression(true);
+        return pool.encoder;
+    }
+}
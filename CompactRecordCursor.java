@@ -0,0 +1,187 @@
+/**
+ * CompactRecordCursor walks the records of a CompactResourceRecords, one at
+ * a time, reading the fields straight from its arrays: nothing is decoded
+ * and nothing is allocated, e.g.
+ *      CompactRecordCursor cursor = records.cursor();
+ *      while (cursor.next())
+ *      {
+ *          if (cursor.getType() == RecordType.A.getCode()
+ *                  && cursor.nameEquals(qName))
+ *          {
+ *              int address = cursor.getIPv4Address();
+ *              ...
+ *          }
+ *      }
+ * One cursor can be reused for another section with reset(), so walking
+ * many cached sections allocates nothing at all.
+ *
+ * The cursor is the flyweight view of the records; iterating the
+ * CompactResourceRecords as DNSResourceRecords is the compatibility path,
+ * which decodes a new record each time. The methods below that decode
+ * (getDnsName(), getRdata(), getRecord()) say so.
+ *
+ * A cursor is not thread-safe; the records it walks are, so each thread
+ * takes its own cursor.
+ */
+public class CompactRecordCursor
+{
+    // the records walked, and the index of the current one.
+    private CompactResourceRecords records;
+    private int index;
+
+    /** Constructor:
+     * @param recordsV - the records to walk, see CompactResourceRecords.cursor(). */
+    public CompactRecordCursor(CompactResourceRecords recordsV)
+    {
+        this.reset(recordsV);
+    }
+
+
+    /** Helper method:
+     * walk other records (or the same ones again), from before the first.
+     * @param recordsV - the records to walk. */
+    public void reset(CompactResourceRecords recordsV)
+    {
+        this.records = recordsV;
+        this.index = -1;
+    }
+
+
+    /** Helper method:
+     * move to the next record.
+     * @return false if there is no more record. */
+    public boolean next()
+    {
+        if (this.index + 1 >= (this.records.getRRCount() & 0xFFFF))
+        {
+            this.index = this.records.getRRCount() & 0xFFFF;
+            return false;
+        }
+        this.index += 1;
+        return true;
+    }
+
+
+    /** Helper method:
+     * @return index of the current record. */
+    public int getIndex()
+    {
+        return this.index;
+    }
+
+
+    /** Helper method:
+     * @return TYPE of the current record. */
+    public short getType()
+    {
+        return this.records.getType(this.index);
+    }
+
+
+    /** Helper method:
+     * @return CLASS of the current record. */
+    public short getRRClass()
+    {
+        return this.records.getRRClass(this.index);
+    }
+
+
+    /** Helper method:
+     * @return TTL of the current record. */
+    public int getTTL()
+    {
+        return this.records.getTTL(this.index);
+    }
+
+
+    /** Helper method:
+     * @return number of bytes of the rdata of the current record. */
+    public int getRdLength()
+    {
+        return this.records.getRdLength(this.index);
+    }
+
+
+    /** Helper method:
+     * compare the owner name of the current record with a name, upper/lower
+     *  case ignored.
+     * @param dnsName - the name to compare with.
+     * @return true if the current record is a record of dnsName. */
+    public boolean nameEquals(DNSName dnsName)
+    {
+        return this.records.nameEquals(this.index, dnsName);
+    }
+
+
+    /** Helper method:
+     * @return the array the names and rdata are in. It is shared, it must
+     *          not be changed. */
+    public byte[] getBuffer()
+    {
+        return this.records.getData();
+    }
+
+
+    /** Helper method:
+     * @return index in getBuffer() of the owner name of the current record,
+     *          uncompressed wire format. */
+    public int getNameOffset()
+    {
+        return this.records.getNameOffset(this.index);
+    }
+
+
+    /** Helper method:
+     * @return index in getBuffer() of the rdata of the current record,
+     *          getRdLength() bytes as encoded. */
+    public int getRdataOffset()
+    {
+        return this.records.getRdataOffset(this.index);
+    }
+
+
+    /** Helper method:
+     * the address of a type A record, read from its 4 bytes.
+     * @return the IPv4 address as packed int, see DNSRdataTypeA.
+     * @throws IllegalStateException if the rdata is not 4 bytes. */
+    public int getIPv4Address()
+    {
+        if (this.getRdLength() != 4)
+        {
+            throw new IllegalStateException("rdata is not an IPv4 address");
+        }
+        byte[] data = this.records.getData();
+        int offset = this.getRdataOffset();
+        return ((data[offset] & 0xFF) << 24)
+                | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8)
+                | (data[offset + 3] & 0xFF);
+    }
+
+
+    /** Helper method:
+     * decode the owner name of the current record, allocates.
+     * @return the name, see CompactResourceRecords.getDnsName(). */
+    public DNSName getDnsName()
+    {
+        return this.records.getDnsName(this.index);
+    }
+
+
+    /** Helper method:
+     * decode the rdata of the current record, allocates.
+     * @return the rdata, see CompactResourceRecords.getRdata(). */
+    public DNSRdata getRdata()
+    {
+        return this.records.getRdata(this.index);
+    }
+
+
+    /** Helper method:
+     * decode the current record, allocates.
+     * @return a new DNSResourceRecord, see CompactResourceRecords.getRecord(). */
+    public DNSResourceRecord getRecord()
+    {
+        return this.records.getRecord(this.index);
+    }
+}
@@ -0,0 +1,319 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * CompactResourceRecords holds a list of resource records in a few arrays,
+ * instead of one DNSResourceRecord object graph per record. It is made for
+ * records that are kept for a long time, e.g. large answer sets and cached
+ * responses, where the objects cost more memory than the records.
+ *
+ * One column per field, indexed by the record:
+ *      types[i], classes[i], ttls[i], rdLengths[i]
+ *      nameOffsets[i], rdataOffsets[i] - where the owner name and the rdata
+ *                                        are in data.
+ * data holds the owner names in wire format and the rdata, exactly as they
+ * are encoded, without name compression, so every name and every rdata can
+ * be read on its own. A record with the same owner name as the record
+ * before it (the usual case in an answer set) shares its name bytes.
+ *
+ * Nothing is decoded to build the hot paths: a name is compared with
+ * DNSName.wireEquals() on data, an IPv4 address is read from its 4 bytes.
+ * cursor() walks the records that way, with a CompactRecordCursor that
+ * reads every field from the arrays and allocates nothing per record.
+ * The Iterable<DNSResourceRecord> API is still there, as a compatibility
+ * path: iterator() and getRecord() decode a new DNSResourceRecord (name and
+ * rdata included) for every record, which costs more than the objects the
+ * arrays replace; use the cursor to walk cached records.
+ *
+ * The arrays are never changed once built, so the records can be read by
+ * many threads at the same time.
+ */
+public class CompactResourceRecords implements Iterable<DNSResourceRecord>, Encodable
+{
+    private final short[] types;
+    private final short[] classes;
+    private final int[] ttls;
+    private final short[] rdLengths;
+    private final int[] nameOffsets;
+    private final int[] rdataOffsets;
+    // the owner names and the rdata of every record.
+    private final byte[] data;
+
+    /** Constructor:
+     * copy records into the arrays. The rdata of each record is encoded
+     *  once, names in it are not compressed.
+     * @param records - e.g. the answer section of a decoded DNSMessage. */
+    public CompactResourceRecords(DNSResourceRecords records)
+    {
+        int count = records.getRRCount() & 0xFFFF;
+        this.types = new short[count];
+        this.classes = new short[count];
+        this.ttls = new int[count];
+        this.rdLengths = new short[count];
+        this.nameOffsets = new int[count];
+        this.rdataOffsets = new int[count];
+
+        BigEndianEncoder encoderV = new BigEndianEncoder();
+        encoderV.setCompression(false);
+        byte[] previousName = null;
+        int i = 0;
+        for (DNSResourceRecord record : records)
+        {
+            byte[] wire = record.getDnsName().getWireFormat();
+            if (previousName != null && Arrays.equals(wire, previousName))
+            {
+                this.nameOffsets[i] = this.nameOffsets[i - 1];
+            }
+            else
+            {
+                this.nameOffsets[i] = encoderV.position();
+                encoderV.encodeBytes(wire);
+                previousName = wire;
+            }
+            this.types[i] = record.getType();
+            this.classes[i] = record.getRRClass();
+            this.ttls[i] = record.getTTL();
+            this.rdataOffsets[i] = encoderV.position();
+            if (record.getRdata() != null)
+            {
+                record.getRdata().encode(encoderV);
+            }
+            this.rdLengths[i] = (short) (encoderV.position() - this.rdataOffsets[i]);
+            i += 1;
+        }
+        this.data = encoderV.toBtyesBuffer();
+    }
+
+
+    /** Helper method:
+     * @return number of records. */
+    public short getRRCount()
+    {
+        return (short) this.types.length;
+    }
+
+
+    /** Helper method:
+     * @return TYPE of record i. */
+    public short getType(int i)
+    {
+        return this.types[i];
+    }
+
+
+    /** Helper method:
+     * @return CLASS of record i. */
+    public short getRRClass(int i)
+    {
+        return this.classes[i];
+    }
+
+
+    /** Helper method:
+     * @return TTL of record i. */
+    public int getTTL(int i)
+    {
+        return this.ttls[i];
+    }
+
+
+    /** Helper method:
+     * @return number of bytes of the rdata of record i. */
+    public int getRdLength(int i)
+    {
+        return this.rdLengths[i] & 0xFFFF;
+    }
+
+
+    /** Helper method:
+     * @return a new cursor before the first record, see CompactRecordCursor. */
+    public CompactRecordCursor cursor()
+    {
+        return new CompactRecordCursor(this);
+    }
+
+
+    /** Helper method:
+     * @return the array of the names and the rdata, for CompactRecordCursor. */
+    byte[] getData()
+    {
+        return this.data;
+    }
+
+
+    /** Helper method:
+     * @return index in getData() of the owner name of record i. */
+    int getNameOffset(int i)
+    {
+        return this.nameOffsets[i];
+    }
+
+
+    /** Helper method:
+     * @return index in getData() of the rdata of record i. */
+    int getRdataOffset(int i)
+    {
+        return this.rdataOffsets[i];
+    }
+
+
+    /** Helper method:
+     * compare the owner name of record i with a name, without decoding it,
+     *  upper/lower case ignored.
+     * @param i - index of the record.
+     * @param dnsName - the name to compare with.
+     * @return true if record i is a record of dnsName. */
+    public boolean nameEquals(int i, DNSName dnsName)
+    {
+        return dnsName.wireEquals(this.data, this.nameOffsets[i],
+                this.data.length - this.nameOffsets[i]);
+    }
+
+
+    /** Helper method:
+     * decode the owner name of record i.
+     * @return the name, a new DNSName or one from DNSNamePool. */
+    public DNSName getDnsName(int i)
+    {
+        BigEndianDecoder decoder = CodecPool.decoder(this.data, this.nameOffsets[i],
+                this.data.length - this.nameOffsets[i]);
+        return DNSName.decode(decoder);
+    }
+
+
+    /** Helper method:
+     * decode the rdata of record i, with the codec of its TYPE.
+     * @return the rdata, e.g. a DNSRdataTypeA. */
+    public DNSRdata getRdata(int i)
+    {
+        BigEndianDecoder decoder = CodecPool.decoder(this.data, this.rdataOffsets[i],
+                this.getRdLength(i));
+        return RdataCodecs.get(this.types[i]).decode(decoder, this.rdLengths[i]);
+    }
+
+
+    /** Helper method:
+     * decode record i, name and rdata included.
+     * @return a new DNSResourceRecord with the fields of record i. */
+    public DNSResourceRecord getRecord(int i)
+    {
+        return new DNSResourceRecord(this.getDnsName(i), this.types[i],
+                this.classes[i], this.ttls[i], this.getRdata(i));
+    }
+
+
+    /** Helper method:
+     * same as DNSResourceRecords.getIPv4sOfName(), read from the arrays:
+     *  nothing is decoded, only the result array is created.
+     * @param qName domain name query looks for
+     * @return the IPv4 addresses as packed int, see DNSRdataTypeA. */
+    public int[] getIPv4sOfName(DNSName qName)
+    {
+        int[] addresses = new int[this.types.length];
+        int count = 0;
+        // records that share their name bytes are compared once.
+        int comparedOffset = -1;
+        boolean sameName = false;
+        for (int i = 0; i < this.types.length; i++)
+        {
+            if (this.types[i] != RecordType.A.getCode() || this.rdLengths[i] != 4)
+            {
+                continue;
+            }
+            if (this.nameOffsets[i] != comparedOffset)
+            {
+                comparedOffset = this.nameOffsets[i];
+                sameName = this.nameEquals(i, qName);
+            }
+            if (sameName)
+            {
+                int offset = this.rdataOffsets[i];
+                addresses[count] = ((this.data[offset] & 0xFF) << 24)
+                        | ((this.data[offset + 1] & 0xFF) << 16)
+                        | ((this.data[offset + 2] & 0xFF) << 8)
+                        | (this.data[offset + 3] & 0xFF);
+                count += 1;
+            }
+        }
+        return Arrays.copyOf(addresses, count);
+    }
+
+
+    @Override
+    /** Compatibility path:
+     * every record is decoded to a new DNSResourceRecord, see getRecord().
+     *  cursor() walks the records without allocating. */
+    public Iterator<DNSResourceRecord> iterator()
+    {
+        return new Iterator<DNSResourceRecord>()
+        {
+            // index of the next record.
+            private int next = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return this.next < CompactResourceRecords.this.types.length;
+            }
+
+            @Override
+            public DNSResourceRecord next()
+            {
+                if (!this.hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                this.next += 1;
+                return CompactResourceRecords.this.getRecord(this.next - 1);
+            }
+        };
+    }
+
+
+    @Override
+    /** Implementing the interface:
+     * @return total length of all records, names uncompressed. */
+    public int encodedLength()
+    {
+        int length = 0;
+        for (int i = 0; i < this.types.length; i++)
+        {
+            // name, type(2), class(2), ttl(4), rdLength(2), rdata.
+            length += this.nameLength(i) + 10 + this.getRdLength(i);
+        }
+        return length;
+    }
+
+
+    @Override
+    /** Implementing the interface:
+     * the owner names may be compressed by encoderV, the rdata is copied
+     *  as it is.
+     * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
+    public void encode(BigEndianEncoder encoderV)
+    {
+        for (int i = 0; i < this.types.length; i++)
+        {
+            encoderV.encodeName(this.data, this.nameOffsets[i]);
+            encoderV.encodeShort(this.types[i]);
+            encoderV.encodeShort(this.classes[i]);
+            encoderV.encodeInt(this.ttls[i]);
+            encoderV.encodeShort(this.rdLengths[i]);
+            encoderV.encodeBytes(this.data, this.rdataOffsets[i], this.getRdLength(i));
+        }
+    }
+
+
+    /** Helper method:
+     * @return number of bytes of the owner name of record i. */
+    private int nameLength(int i)
+    {
+        int index = this.nameOffsets[i];
+        while (this.data[index] != 0)
+        {
+            index += 1 + (this.data[index] & 0xFF);
+        }
+        return index + 1 - this.nameOffsets[i];
+    }
+}
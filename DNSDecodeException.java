@@ -0,0 +1,75 @@
+/**
+ * Thrown by BigEndianDecoder, and the constructors that use it, when the
+ * bytes received are not a valid DNS message, e.g. a truncated packet, or
+ * a name pointer that points to nowhere.
+ *
+ * The reason tells what went wrong, so a caller can count or handle the
+ * failures without parsing the message string.
+ *
+ * A server may get a flood of malformed packets, so throwing must be cheap:
+ * the exception has no stack trace, and the message string is only built if
+ * someone asks for it. See also DNSMessageValidator, which checks a message
+ * without throwing at all.
+ */
+public class DNSDecodeException extends RuntimeException
+{
+    private static final long serialVersionUID = 1L;
+
+    /** What went wrong while decoding. */
+    public enum Reason
+    {
+        // the message ends before the field we are decoding.
+        TRUNCATED,
+        // a name pointer does not point to a name before it.
+        BAD_POINTER,
+        // a label length byte starts with 01 or 10, which RFC1035 does not use.
+        BAD_LABEL,
+        // a domain name is longer than 255 bytes, or follows too many
+        //  name pointers (RFC1035 2.3.4).
+        NAME_TOO_LONG,
+        // a section count in the header is larger than the message can hold.
+        BAD_COUNT,
+        // RDLENGTH does not match the rdata of the record's type.
+        BAD_RDATA
+    }
+
+    private final Reason reason;
+    // offset, from the start of the message, where decoding failed.
+    private final int offset;
+
+    /** Constructor:
+     * @param reasonV - what went wrong.
+     * @param offsetV - offset from the start of the message. */
+    public DNSDecodeException(Reason reasonV, int offsetV)
+    {
+        // no message, no cause, no stack trace.
+        super(null, null, false, false);
+        this.reason = reasonV;
+        this.offset = offsetV;
+    }
+
+
+    /** Helper method:
+     * @return a message like "DNS decode error: TRUNCATED at offset 5". */
+    @Override
+    public String getMessage()
+    {
+        return "DNS decode error: " + this.reason + " at offset " + this.offset;
+    }
+
+
+    /** Helper method:
+     * @return what went wrong. */
+    public Reason getReason()
+    {
+        return this.reason;
+    }
+
+
+    /** Helper method:
+     * @return offset from the start of the message where decoding failed. */
+    public int getOffset()
+    {
+        return this.offset;
+    }
+}
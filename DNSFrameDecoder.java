@@ -0,0 +1,212 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * DNSFrameDecoder splits a DNS-over-TCP byte stream into messages.
+ * Over TCP, each message is sent after a 2-byte length (RFC1035 4.2.2):
+ *      | length (16 bits) | message | length | message | ...
+ * and one read from the socket can return part of a message, or several
+ * messages, or the end of one and the start of the next.
+ *
+ * The bytes read are kept in one growing array. next() finds the next
+ * complete message in it and resets a BigEndianDecoder over it, without
+ * copying it, e.g.
+ *      while (frames.read(channel) >= 0)
+ *      {
+ *          BigEndianDecoder decoder;
+ *          while ((decoder = frames.next()) != null)
+ *          {
+ *              DNSMessage message = new DNSMessage(decoder);
+ *              ...
+ *          }
+ *      }
+ * Before the next read, the bytes of a message that is not complete yet are
+ * moved to the start of the array; the messages already returned are not
+ * kept. So a decoder (and a DNSRdataTypeRaw decoded from it) is only valid
+ * until the next read() or feed().
+ */
+public class DNSFrameDecoder
+{
+    // the length before each message.
+    public static final int PREFIX_LENGTH = 2;
+
+    // size of the array, if none is given.
+    private static final int DEFAULT_CAPACITY = 4096;
+
+    // the bytes read so far.
+    private byte[] buffer;
+    // the same array, for reading from a channel.
+    private ByteBuffer byteBuffer;
+    // index in buffer of the first byte not returned by next() yet.
+    private int start;
+    // index in buffer right after the last byte read.
+    private int end;
+
+    // index in buffer and length of the message next() returned last.
+    private int frameOffset;
+    private int frameLength;
+
+    // the decoder next() resets over each message.
+    private final BigEndianDecoder decoder;
+
+    /** Constructor:
+     * with an array of the default size, it grows for larger messages. */
+    public DNSFrameDecoder()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+
+
+    /** Constructor:
+     * @param capacity - initial size of the array, it grows for larger
+     *                 messages (at most 2 + 65535 bytes each). */
+    public DNSFrameDecoder(int capacity)
+    {
+        this.buffer = new byte[Math.max(capacity, PREFIX_LENGTH + DNSHeader.HEADER_LENGTH)];
+        this.byteBuffer = ByteBuffer.wrap(this.buffer);
+        this.decoder = new BigEndianDecoder(new byte[0]);
+    }
+
+
+    /** Helper method:
+     * read what the channel has into the array, with one read() call.
+     * @param channel - e.g. a SocketChannel.
+     * @return number of bytes read, 0 if none, -1 at the end of the stream.
+     * @throws IOException if the read fails. */
+    public int read(ReadableByteChannel channel) throws IOException
+    {
+        this.makeRoom();
+        this.byteBuffer.limit(this.buffer.length);
+        this.byteBuffer.position(this.end);
+        int count = channel.read(this.byteBuffer);
+        if (count > 0)
+        {
+            this.end += count;
+        }
+        return count;
+    }
+
+
+    /** Helper method:
+     * add bytes from the stream, e.g. what an InputStream read returned.
+     * @param chunk - the array with the bytes.
+     * @param offset - index in chunk of the first byte.
+     * @param length - number of bytes. */
+    public void feed(byte[] chunk, int offset, int length)
+    {
+        while (length > 0)
+        {
+            this.makeRoom();
+            int count = Math.min(length, this.buffer.length - this.end);
+            System.arraycopy(chunk, offset, this.buffer, this.end, count);
+            this.end += count;
+            offset += count;
+            length -= count;
+        }
+    }
+
+
+    /** Helper method:
+     * get the next complete message.
+     * @return the decoder, reset over the message; null if the bytes of the
+     *          next message have not all been read yet. */
+    public BigEndianDecoder next()
+    {
+        if (this.end - this.start < PREFIX_LENGTH)
+        {
+            return null;
+        }
+        int length = DNSHeader.getField(this.buffer, this.start, 0);
+        if (this.end - this.start < PREFIX_LENGTH + length)
+        {
+            return null;
+        }
+        this.frameOffset = this.start + PREFIX_LENGTH;
+        this.frameLength = length;
+        this.start = this.frameOffset + length;
+        this.decoder.reset(this.buffer, this.frameOffset, length);
+        return this.decoder;
+    }
+
+
+    /** Helper method:
+     * @return the array of the message next() returned last, e.g. for
+     *          DNSMessageValidator.validate(getBuffer(), getFrameOffset(),
+     *          getFrameLength()). */
+    public byte[] getBuffer()
+    {
+        return this.buffer;
+    }
+
+
+    /** Helper method:
+     * @return index in getBuffer() of the message next() returned last. */
+    public int getFrameOffset()
+    {
+        return this.frameOffset;
+    }
+
+
+    /** Helper method:
+     * @return number of bytes of the message next() returned last. */
+    public int getFrameLength()
+    {
+        return this.frameLength;
+    }
+
+
+    /** Helper method:
+     * @return number of bytes read that are not returned by next() yet. */
+    public int pending()
+    {
+        return this.end - this.start;
+    }
+
+
+    /** Helper method:
+     * make room at the end of the array for more bytes: move the bytes not
+     *  returned yet to the start, and grow the array if the message they
+     *  start does not fit in it. */
+    private void makeRoom()
+    {
+        if (this.start > 0)
+        {
+            System.arraycopy(this.buffer, this.start, this.buffer, 0,
+                    this.end - this.start);
+            this.end -= this.start;
+            this.start = 0;
+        }
+
+        // the message being read, and at least one more byte.
+        int needed = this.end + 1;
+        if (this.end >= PREFIX_LENGTH)
+        {
+            int length = DNSHeader.getField(this.buffer, 0, 0);
+            needed = Math.max(needed, PREFIX_LENGTH + length);
+        }
+        if (needed > this.buffer.length)
+        {
+            byte[] larger = new byte[Math.max(needed, 2 * this.buffer.length)];
+            System.arraycopy(this.buffer, 0, larger, 0, this.end);
+            this.buffer = larger;
+            this.byteBuffer = ByteBuffer.wrap(larger);
+        }
+    }
+
+
+    /** Static method:
+     * encode a message with its 2-byte length before it, ready to be
+     *  written to a TCP stream.
+     * @param message - e.g. a DNSMessage.
+     * @param out - the array to encode into.
+     * @param offset - index in out where the length should start.
+     * @return number of bytes written, the length and the message.
+     * @throws java.nio.BufferOverflowException if out is too small. */
+    public static int encodeFrame(Encodable message, byte[] out, int offset)
+    {
+        int length = message.encodeInto(out, offset + PREFIX_LENGTH);
+        DNSHeader.setField(out, offset, 0, length);
+        return PREFIX_LENGTH + length;
+    }
+}
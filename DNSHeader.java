@@ -1,10 +1,36 @@
+import java.nio.ByteBuffer;
+
 /**
  * DNSHeader represents the header of a DNS communication message (either a query or a response).
  * This class implements the Encodable interface to support encoding a query.
  * It provides two constructors: one for encoding and the other for decoding purpose.
+ *
+ * It also has static methods that read and write the header fields straight
+ * in the wire bytes of a message (a byte[] or a ByteBuffer, and the offset where
+ * the message starts), e.g. to give a new ID to a query that has been encoded,
+ * without decoding or encoding the message again.
  */
 public class DNSHeader implements Encodable
 {
+    // offset of each field from the start of the message (RFC1035 4.1.1).
+    public static final int ID_OFFSET = 0;
+    public static final int FLAG_OFFSET = 2;
+    public static final int QUESTION_COUNT_OFFSET = 4;
+    public static final int ANSWER_COUNT_OFFSET = 6;
+    public static final int NAME_SERVER_COUNT_OFFSET = 8;
+    public static final int ADDITIONAL_COUNT_OFFSET = 10;
+    // the header is always 12 bytes.
+    public static final int HEADER_LENGTH = 12;
+
+    // bits in the 16-bit flag.
+    // QR: 1 for a response, 0 for a query.
+    public static final int QR_BIT = 0x8000;
+    // AA: the response is from an authoritative server.
+    public static final int AA_BIT = 0x0400;
+    // TC: the message was truncated.
+    public static final int TC_BIT = 0x0200;
+    // RCODE: the response code, lowest 4 bits.
+    public static final int RCODE_MASK = 0x000F;
 
     // the Query Id
     private short id;
@@ -180,6 +206,220 @@ public class DNSHeader implements Encodable
     }
 
 
+    /** Static helper method:
+     * read a 16-bit field of a header in wire format.
+     * @param buffer - the bytes of the message.
+     * @param messageOffset - index in buffer where the message starts.
+     * @param fieldOffset - offset of the field, e.g. ANSWER_COUNT_OFFSET.
+     * @return the field, as an unsigned value (0 - 65535). */
+    public static int getField(byte[] buffer, int messageOffset, int fieldOffset)
+    {
+        int index = messageOffset + fieldOffset;
+        return ((buffer[index] & 0xFF) << 8) | (buffer[index + 1] & 0xFF);
+    }
+
+
+    /** Static helper method:
+     * overwrite a 16-bit field of a header in wire format.
+     * @param buffer - the bytes of the message.
+     * @param messageOffset - index in buffer where the message starts.
+     * @param fieldOffset - offset of the field, e.g. ID_OFFSET.
+     * @param value - the new value, only the lower 16 bits are used. */
+    public static void setField(byte[] buffer, int messageOffset, int fieldOffset,
+                                int value)
+    {
+        int index = messageOffset + fieldOffset;
+        buffer[index] = (byte) (value >> 8);
+        buffer[index + 1] = (byte) value;
+    }
+
+
+    /** Static helper method:
+     * same as getField(byte[], ...), for a ByteBuffer. The position, limit
+     *  and byte order of the ByteBuffer are not used or changed.
+     * @param buffer - the bytes of the message.
+     * @param messageOffset - index in buffer where the message starts.
+     * @param fieldOffset - offset of the field, e.g. ANSWER_COUNT_OFFSET.
+     * @return the field, as an unsigned value (0 - 65535). */
+    public static int getField(ByteBuffer buffer, int messageOffset, int fieldOffset)
+    {
+        int index = messageOffset + fieldOffset;
+        return ((buffer.get(index) & 0xFF) << 8) | (buffer.get(index + 1) & 0xFF);
+    }
+
+
+    /** Static helper method:
+     * same as setField(byte[], ...), for a ByteBuffer. The position, limit
+     *  and byte order of the ByteBuffer are not used or changed.
+     * @param buffer - the bytes of the message.
+     * @param messageOffset - index in buffer where the message starts.
+     * @param fieldOffset - offset of the field, e.g. ID_OFFSET.
+     * @param value - the new value, only the lower 16 bits are used. */
+    public static void setField(ByteBuffer buffer, int messageOffset, int fieldOffset,
+                                int value)
+    {
+        int index = messageOffset + fieldOffset;
+        buffer.put(index, (byte) (value >> 8));
+        buffer.put(index + 1, (byte) value);
+    }
+
+
+    /** Static helper method:
+     * @return the query ID of the message in buffer (0 - 65535). */
+    public static int getId(byte[] buffer, int messageOffset)
+    {
+        return DNSHeader.getField(buffer, messageOffset, ID_OFFSET);
+    }
+
+
+    /** Static helper method:
+     * give the message in buffer a new query ID. */
+    public static void setId(byte[] buffer, int messageOffset, int id)
+    {
+        DNSHeader.setField(buffer, messageOffset, ID_OFFSET, id);
+    }
+
+
+    /** Static helper method:
+     * @return the query ID of the message in buffer (0 - 65535). */
+    public static int getId(ByteBuffer buffer, int messageOffset)
+    {
+        return DNSHeader.getField(buffer, messageOffset, ID_OFFSET);
+    }
+
+
+    /** Static helper method:
+     * give the message in buffer a new query ID. */
+    public static void setId(ByteBuffer buffer, int messageOffset, int id)
+    {
+        DNSHeader.setField(buffer, messageOffset, ID_OFFSET, id);
+    }
+
+
+    /** Static helper method:
+     * @return the 16-bit flag of the message in buffer. */
+    public static int getFlag(byte[] buffer, int messageOffset)
+    {
+        return DNSHeader.getField(buffer, messageOffset, FLAG_OFFSET);
+    }
+
+
+    /** Static helper method:
+     * overwrite the 16-bit flag of the message in buffer. */
+    public static void setFlag(byte[] buffer, int messageOffset, int flag)
+    {
+        DNSHeader.setField(buffer, messageOffset, FLAG_OFFSET, flag);
+    }
+
+
+    /** Static helper method:
+     * @return the 16-bit flag of the message in buffer. */
+    public static int getFlag(ByteBuffer buffer, int messageOffset)
+    {
+        return DNSHeader.getField(buffer, messageOffset, FLAG_OFFSET);
+    }
+
+
+    /** Static helper method:
+     * overwrite the 16-bit flag of the message in buffer. */
+    public static void setFlag(ByteBuffer buffer, int messageOffset, int flag)
+    {
+        DNSHeader.setField(buffer, messageOffset, FLAG_OFFSET, flag);
+    }
+
+
+    /** Static helper method:
+     * @param bit - one of QR_BIT, AA_BIT, TC_BIT.
+     * @return true if the bit is set in the flag of the message in buffer. */
+    public static boolean isFlagBitSet(byte[] buffer, int messageOffset, int bit)
+    {
+        return (DNSHeader.getFlag(buffer, messageOffset) & bit) != 0;
+    }
+
+
+    /** Static helper method:
+     * set or clear one bit in the flag of the message in buffer,
+     *  other bits are unchanged.
+     * @param bit - one of QR_BIT, AA_BIT, TC_BIT.
+     * @param isSet - true to set the bit, false to clear it. */
+    public static void setFlagBit(byte[] buffer, int messageOffset, int bit,
+                                  boolean isSet)
+    {
+        int flag = DNSHeader.getFlag(buffer, messageOffset);
+        flag = isSet ? (flag | bit) : (flag & ~bit);
+        DNSHeader.setFlag(buffer, messageOffset, flag);
+    }
+
+
+    /** Static helper method:
+     * @param bit - one of QR_BIT, AA_BIT, TC_BIT.
+     * @return true if the bit is set in the flag of the message in buffer. */
+    public static boolean isFlagBitSet(ByteBuffer buffer, int messageOffset, int bit)
+    {
+        return (DNSHeader.getFlag(buffer, messageOffset) & bit) != 0;
+    }
+
+
+    /** Static helper method:
+     * set or clear one bit in the flag of the message in buffer,
+     *  other bits are unchanged.
+     * @param bit - one of QR_BIT, AA_BIT, TC_BIT.
+     * @param isSet - true to set the bit, false to clear it. */
+    public static void setFlagBit(ByteBuffer buffer, int messageOffset, int bit,
+                                  boolean isSet)
+    {
+        int flag = DNSHeader.getFlag(buffer, messageOffset);
+        flag = isSet ? (flag | bit) : (flag & ~bit);
+        DNSHeader.setFlag(buffer, messageOffset, flag);
+    }
+
+
+    /** Static helper method:
+     * @return the RCODE of the message in buffer (0 - 15). */
+    public static int getRcode(byte[] buffer, int messageOffset)
+    {
+        return DNSHeader.getFlag(buffer, messageOffset) & RCODE_MASK;
+    }
+
+
+    /** Static helper method:
+     * overwrite the RCODE of the message in buffer, other bits are unchanged.
+     * @param rcode - the new response code (0 - 15). */
+    public static void setRcode(byte[] buffer, int messageOffset, int rcode)
+    {
+        int flag = DNSHeader.getFlag(buffer, messageOffset);
+        flag = (flag & ~RCODE_MASK) | (rcode & RCODE_MASK);
+        DNSHeader.setFlag(buffer, messageOffset, flag);
+    }
+
+
+    /** Static helper method:
+     * @return the RCODE of the message in buffer (0 - 15). */
+    public static int getRcode(ByteBuffer buffer, int messageOffset)
+    {
+        return DNSHeader.getFlag(buffer, messageOffset) & RCODE_MASK;
+    }
+
+
+    /** Static helper method:
+     * overwrite the RCODE of the message in buffer, other bits are unchanged.
+     * @param rcode - the new response code (0 - 15). */
+    public static void setRcode(ByteBuffer buffer, int messageOffset, int rcode)
+    {
+        int flag = DNSHeader.getFlag(buffer, messageOffset);
+        flag = (flag & ~RCODE_MASK) | (rcode & RCODE_MASK);
+        DNSHeader.setFlag(buffer, messageOffset, flag);
+    }
+
+
+    @Override
+    public int encodedLength()
+    {
+        // id, flag, and four counts, 2 bytes each.
+        return HEADER_LENGTH;
+    }
+
+
     @Override
     public void encode(BigEndianEncoder encoderV)
     {
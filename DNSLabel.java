@@ -32,6 +32,14 @@ public class DNSLabel extends DNSName
 
     }
 
+    @Override
+    public int encodedLength()
+    {
+        // encode() below writes nothing.
+        return 0;
+    }
+
+
     @Override
     public void encode(BigEndianEncoder encoderV)
     {
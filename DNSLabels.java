@@ -53,7 +53,16 @@ public class DNSLabels extends DNSName
         byte firstByte = decoder.peekByte();
 
         // check the firstByte on whether it indicates a pointer or not
-        if ((firstByte & 0xC0) == 0)
+        if (firstByte == 0)
+        {
+            // the root name, just the zero byte, e.g. the name of an
+            // OPT record. There is nothing after it that belongs to the name.
+            decoder.skip(1);
+            this.head = null;
+            this.tail = null;
+            this.name = "";
+        }
+        else if ((firstByte & 0xC0) == 0)
         {
             // not pointer, start to decode label
             this.head = new DNSLabel(decoder);
@@ -104,8 +113,7 @@ public class DNSLabels extends DNSName
     @Override
     public void encode(BigEndianEncoder encoderV)
     {
-
-        encoderV.encodeName(this.name);
-
+        // the wire format bytes are computed once, and reused.
+        encoderV.encodeName(this);
     }
 }
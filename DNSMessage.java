@@ -11,7 +11,8 @@ import java.util.Random;
  * which stands for Answer, Authority and Additional section in a
  * communication message respectively.
  * One DNSMessage also has one BigEndianEncoder object to manage the encoding
- * of this specific DNS query.
+ * of this specific DNS query. It is created the first time getEncoder() is
+ * called, with room for encodedLength() bytes, so it never needs to grow.
  *
  * DNSMessage implements the Encodable interface,
  * this is achieved by using the implementation of Encodable interface
@@ -21,6 +22,7 @@ public class DNSMessage implements Encodable
 {
     // one DNS message object will have
     // one encoder inside the class for encoding this message.
+    // null until getEncoder() is called.
     private BigEndianEncoder encoder;
 
     // The real components of a DNS message
@@ -32,11 +34,14 @@ public class DNSMessage implements Encodable
 
 
     /** Static method: create DNS message from a datagram packet
-     * @param packet a Datagram Packet received by client/server.*/
+     * The decoder is the one CodecPool keeps for this thread, and it
+     *  only decodes the packet's length, not the whole buffer.
+     * @param packet a Datagram Packet received by client/server.
+     * @throws DNSDecodeException if the packet is not a valid message. */
     public static DNSMessage getMessageFromPacket(DatagramPacket packet)
     {
-        byte[] bytesBuffer = packet.getData();
-        BigEndianDecoder decoder = new BigEndianDecoder(bytesBuffer);
+        BigEndianDecoder decoder = CodecPool.decoder(packet.getData(),
+                packet.getOffset(), packet.getLength());
         return new DNSMessage(decoder);
     }
 
@@ -49,8 +54,6 @@ public class DNSMessage implements Encodable
      */
     public DNSMessage (String domainNameV, Random randomV, RecordType r)
     {
-        this.encoder = new BigEndianEncoder();
-
         int queryId = randomV.nextInt(65536);
         this.dnsHeader = new DNSHeader((short) queryId);
         this.dnsQuestion = new DNSQuestion(domainNameV, r);
@@ -67,7 +70,17 @@ public class DNSMessage implements Encodable
      * @param r  should be A for research project. */
     public DNSMessage(String domainName, int id, RecordType r)
     {
-        this.encoder = new BigEndianEncoder();
+        this(new DNSLabels(domainName), id, r);
+    }
+
+    /** Constructor version 1 - altered:
+     * Used when the same domain name is queried many times, e.g. re-sending
+     *  a query, the DNSName keeps its bytes so it is only converted once.
+     * @param domainName the domain name we wish to query for.
+     * @param id transaction id for the query(0-65535).
+     * @param r  should be A for research project. */
+    public DNSMessage(DNSName domainName, int id, RecordType r)
+    {
         this.dnsHeader = new DNSHeader((short)id);
         this.dnsQuestion = new DNSQuestion(domainName, r);
         // initialize lists
@@ -123,8 +136,6 @@ public class DNSMessage implements Encodable
                        DNSResourceRecords nameSevers,
                        DNSResourceRecords additionalRecords)
     {
-        // TODO: check, first we should create an encoder.
-        this.encoder = new BigEndianEncoder();
         // get question from query
         this.dnsQuestion = dnsQuery.copyToNewQuestion();
         // now we update the three RRs
@@ -156,7 +167,7 @@ public class DNSMessage implements Encodable
             return null;
         }
 
-        String domainName = this.dnsQuestion.getDomainNameInQuestion();
+        DNSName domainName = this.dnsQuestion.getDomainName();
         short queryType = this.dnsQuestion.getqType();
         short queryClass = this.dnsQuestion.getqClass();
         return new DNSQuestion(domainName, queryType, queryClass);
@@ -206,6 +217,18 @@ public class DNSMessage implements Encodable
     }
 
 
+    /**
+     * Helper method:
+     * get the answer section, e.g. to keep it as CompactResourceRecords.
+     * @return the answers, in the order they were decoded or added.
+     */
+    public DNSResourceRecords getAnswers()
+    {
+
+        return this.dnsAnswers;
+    }
+
+
     /**
      * Helper method:
      * get the name serber count from dnsHeader
@@ -251,6 +274,15 @@ public class DNSMessage implements Encodable
         return this.dnsQuestion.getDomainNameInQuestion();
     }
 
+    /** Helper method:
+     * get domain name in dns question
+     * @return the DNSName object of the domain name */
+    public DNSName getQueryDomainName()
+    {
+
+        return this.dnsQuestion.getDomainName();
+    }
+
     /** Helper method:
      * get question type in dns question.*/
     public short getQType()
@@ -282,6 +314,55 @@ public class DNSMessage implements Encodable
     }
 
 
+    /** Same as above, for a domain name we have as a DNSName,
+     *  e.g. getQueryDomainName(). No string is compared.
+     * @param qName domain name of query.
+     * @param qType record type query looks for.
+     * @return an array of IPv4 address of the domain
+     *  name, in String format. */
+    public String[] retrieveDNSAnswers(DNSName qName, RecordType qType)
+    {
+
+        return this.dnsAnswers.getIPsOfName(qName, qType);
+    }
+
+
+    /** Same as above, without creating an array: the matching answers
+     *  are a view the answer section reuses, see DNSRecordRange.
+     * @param qName domain name of query.
+     * @param qType record type query looks for.
+     * @return the answers of the domain name, valid until the next lookup
+     *  in this message. */
+    public DNSRecordRange lookupAnswers(DNSName qName, RecordType qType)
+    {
+
+        return this.dnsAnswers.lookup(qName, qType);
+    }
+
+
+    /** Retrieve all type A answers from dnsAnswers,
+     * get IPv4 addresses of the query domain name.
+     * @param qName domain name of query.
+     * @return an array of IPv4 address of the domain
+     *  name, as packed int (see DNSRdataTypeA). */
+    public int[] retrieveIPv4Answers(String qName)
+    {
+
+        return this.dnsAnswers.getIPv4sOfName(qName);
+    }
+
+
+    /** Same as above, for a domain name we have as a DNSName.
+     * @param qName domain name of query.
+     * @return an array of IPv4 address of the domain
+     *  name, as packed int (see DNSRdataTypeA). */
+    public int[] retrieveIPv4Answers(DNSName qName)
+    {
+
+        return this.dnsAnswers.getIPv4sOfName(qName);
+    }
+
+
     /**
      * Helper method:
      * check if the response if from the authoritative server
@@ -383,10 +464,29 @@ public class DNSMessage implements Encodable
      */
     public BigEndianEncoder getEncoder()
     {
-
+        if (this.encoder == null)
+        {
+            // sized for the whole message, see encodedLength().
+            this.encoder = new BigEndianEncoder(this.encodedLength());
+        }
         return this.encoder;
     }
 
+
+    @Override
+    /**
+     * Implementing the interface:
+     * @return length of the header, question and three sections.
+     */
+    public int encodedLength()
+    {
+        return this.dnsHeader.encodedLength()
+                + this.dnsQuestion.encodedLength()
+                + this.dnsAnswers.encodedLength()
+                + this.dnsNameServers.encodedLength()
+                + this.dnsAdditionalRecords.encodedLength();
+    }
+
     @Override
     /**
      * Implementing the interface:
@@ -416,7 +516,7 @@ public class DNSMessage implements Encodable
     public byte[] tobytesBuffer()
     {
 
-        return this.encoder.toBtyesBuffer();
+        return this.getEncoder().toBtyesBuffer();
     }
 
 
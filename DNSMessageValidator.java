@@ -0,0 +1,320 @@
+/**
+ * DNSMessageValidator checks that received bytes are a well-formed DNS
+ * message, before anything is decoded. It creates no object and throws no
+ * exception: a malformed message is reported by returning one of the
+ * DNSDecodeException.Reason constants, which all exist already.
+ *
+ * What is checked:
+ *  - the header is complete, there is exactly one question (the one
+ *    DNSMessage decodes), and the section counts fit in the message;
+ *  - every domain name (questions, owner names, names in rdata) has valid
+ *    labels, is at most 255 bytes, and its name pointers point back to a
+ *    prior name (RFC1035 4.1.4), following at most
+ *    BigEndianDecoder.MAX_POINTER_DEPTH of them;
+ *  - every rdata is inside the message, and the rdata of A, AAAA, NS, CNAME,
+ *    SOA, MX, TXT, SRV, OPT, RRSIG etc. is exactly RDLENGTH bytes.
+ *
+ * Every byte of the message is looked at a bounded number of times, so a
+ * malformed packet costs at most about as much as a valid one, e.g.
+ *      if (DNSMessageValidator.validate(buffer, 0, length) != null) { drop }
+ * A message that passes can be decoded by BigEndianDecoder without a
+ * DNSDecodeException.
+ */
+public class DNSMessageValidator
+{
+    /** Constructor:
+     * only static methods, no instance needed. */
+    private DNSMessageValidator()
+    {
+    }
+
+
+    /** Static method:
+     * check the message in buffer.
+     * @param buffer - the received bytes.
+     * @param offset - index in buffer where the message starts.
+     * @param length - number of bytes of the message.
+     * @return null if the message is well formed, otherwise what is wrong. */
+    public static DNSDecodeException.Reason validate(byte[] buffer, int offset,
+                                                     int length)
+    {
+        if (length < DNSHeader.HEADER_LENGTH)
+        {
+            return DNSDecodeException.Reason.TRUNCATED;
+        }
+        int questionCount = DNSHeader.getField(buffer, offset,
+                DNSHeader.QUESTION_COUNT_OFFSET);
+        int recordCount = DNSHeader.getField(buffer, offset,
+                DNSHeader.ANSWER_COUNT_OFFSET)
+                + DNSHeader.getField(buffer, offset,
+                DNSHeader.NAME_SERVER_COUNT_OFFSET)
+                + DNSHeader.getField(buffer, offset,
+                DNSHeader.ADDITIONAL_COUNT_OFFSET);
+        // DNSMessage decodes exactly one question.
+        if (questionCount != 1)
+        {
+            return DNSDecodeException.Reason.BAD_COUNT;
+        }
+        // a question is at least 5 bytes, a record at least 11.
+        if (questionCount * 5 + recordCount * DNSResourceRecords.MIN_RECORD_LENGTH
+                > length - DNSHeader.HEADER_LENGTH)
+        {
+            return DNSDecodeException.Reason.BAD_COUNT;
+        }
+
+        int index = DNSHeader.HEADER_LENGTH;
+        for (int i = 0; i < questionCount; i++)
+        {
+            // name, qType, qClass.
+            int end = DNSMessageValidator.checkName(buffer, offset, length,
+                    length, index);
+            if (end < 0)
+            {
+                return DNSMessageValidator.reasonOf(end);
+            }
+            index = end + 4;
+            if (index > length)
+            {
+                return DNSDecodeException.Reason.TRUNCATED;
+            }
+        }
+
+        for (int i = 0; i < recordCount; i++)
+        {
+            int end = DNSMessageValidator.checkName(buffer, offset, length,
+                    length, index);
+            if (end < 0)
+            {
+                return DNSMessageValidator.reasonOf(end);
+            }
+            // type(2), class(2), ttl(4), then rdLength(2).
+            if (end + 10 > length)
+            {
+                return DNSDecodeException.Reason.TRUNCATED;
+            }
+            int type = DNSHeader.getField(buffer, offset, end);
+            int rdLength = DNSHeader.getField(buffer, offset, end + 8);
+            int rdataStart = end + 10;
+            index = rdataStart + rdLength;
+            if (index > length)
+            {
+                return DNSDecodeException.Reason.TRUNCATED;
+            }
+            int rdataEnd = DNSMessageValidator.checkRdata(buffer, offset, length,
+                    type, rdataStart, index);
+            if (rdataEnd < 0)
+            {
+                return DNSMessageValidator.reasonOf(rdataEnd);
+            }
+            if (rdataEnd != index)
+            {
+                return DNSDecodeException.Reason.BAD_RDATA;
+            }
+        }
+        return null;
+    }
+
+
+    // errors returned by checkName() and checkRdata(), as negative numbers.
+    private static final int ERROR_TRUNCATED = -1;
+    private static final int ERROR_BAD_POINTER = -2;
+    private static final int ERROR_BAD_LABEL = -3;
+    private static final int ERROR_NAME_TOO_LONG = -4;
+
+
+    /** Helper method:
+     * @param error - a negative number returned by checkName().
+     * @return the Reason that error stands for. */
+    private static DNSDecodeException.Reason reasonOf(int error)
+    {
+        switch (error)
+        {
+            case ERROR_BAD_POINTER:
+                return DNSDecodeException.Reason.BAD_POINTER;
+
+            case ERROR_BAD_LABEL:
+                return DNSDecodeException.Reason.BAD_LABEL;
+
+            case ERROR_NAME_TOO_LONG:
+                return DNSDecodeException.Reason.NAME_TOO_LONG;
+
+            default:
+                return DNSDecodeException.Reason.TRUNCATED;
+        }
+    }
+
+
+    /** Helper method:
+     * check the rdata of one record. Only the types that have domain names
+     *  or a fixed length or layout are looked into, the others are only skipped.
+     * @param type - TYPE of the record.
+     * @param start - offset (from the start of the message) of the rdata.
+     * @param end - offset right after the rdata, from RDLENGTH.
+     * @return offset right after the rdata, as the type says it is,
+     *          or a negative error. */
+    private static int checkRdata(byte[] buffer, int offset, int length,
+                                  int type, int start, int end)
+    {
+        switch (type)
+        {
+            // A
+            case 1:
+                return start + 4;
+
+            // one domain name: NS, MD, MF, CNAME, MB, MG, MR, PTR.
+            case 2: case 3: case 4: case 5: case 7: case 8: case 9: case 12:
+                return DNSMessageValidator.checkName(buffer, offset, length,
+                        end, start);
+
+            // two domain names, then 5 integers.
+            case 6:
+            {
+                int index = DNSMessageValidator.checkName(buffer, offset, length,
+                        end, start);
+                if (index < 0)
+                {
+                    return index;
+                }
+                index = DNSMessageValidator.checkName(buffer, offset, length,
+                        end, index);
+                return (index < 0) ? index : index + 20;
+            }
+
+            // two domain names.
+            case 14:
+            {
+                int index = DNSMessageValidator.checkName(buffer, offset, length,
+                        end, start);
+                return (index < 0)
+                        ? index
+                        : DNSMessageValidator.checkName(buffer, offset, length,
+                                end, index);
+            }
+
+            // preference, then a domain name.
+            case 15:
+                return DNSMessageValidator.checkName(buffer, offset, length,
+                        end, start + 2);
+
+            // <character-string>s, each a length byte then the text.
+            case 16:
+            {
+                int index = start;
+                while (index < end)
+                {
+                    index += 1 + (buffer[offset + index] & 0xFF);
+                }
+                return index;
+            }
+
+            // AAAA
+            case 28:
+                return start + 16;
+
+            // priority, weight, port, then a domain name.
+            case 33:
+                return DNSMessageValidator.checkName(buffer, offset, length,
+                        end, start + 6);
+
+            // options, each a code, a length, then the data.
+            case 41:
+            {
+                int index = start;
+                while (index + 4 <= end)
+                {
+                    index += 4 + DNSHeader.getField(buffer, offset, index + 2);
+                }
+                // 1 to 3 bytes left is not an option.
+                return (index < end) ? end + 1 : index;
+            }
+
+            // 18 bytes of fields, the signer's name, then the signature.
+            case 46:
+            {
+                int index = DNSMessageValidator.checkName(buffer, offset, length,
+                        end, start + 18);
+                return (index < 0) ? index : end;
+            }
+
+            // skipped by the decoder.
+            default:
+                return end;
+        }
+    }
+
+
+    /** Helper method:
+     * check the domain name at index, and the names its pointers point to.
+     * The name may only use bytes before limit; the names pointed to may be
+     *  anywhere in the message.
+     * @param length - number of bytes of the message.
+     * @param limit - offset (from the start of the message) the name must
+     *              end before, e.g. the end of the rdata.
+     * @param index - offset of the name, from the start of the message.
+     * @return offset right after the name, or a negative error. */
+    private static int checkName(byte[] buffer, int offset, int length,
+                                 int limit, int index)
+    {
+        // offset right after the name where it is, before any pointer.
+        int end = -1;
+        // wire length of the name, with the labels pointed to.
+        int nameLength = 0;
+        // pointers followed so far.
+        int pointers = 0;
+        // a pointer must point before this.
+        int pointerLimit = index;
+
+        while (true)
+        {
+            if (index >= limit)
+            {
+                return ERROR_TRUNCATED;
+            }
+            int lengthByte = buffer[offset + index] & 0xFF;
+            if ((lengthByte & 0xC0) == 0xC0)
+            {
+                if (index + 2 > limit)
+                {
+                    return ERROR_TRUNCATED;
+                }
+                if (end < 0)
+                {
+                    end = index + 2;
+                }
+                int target = ((lengthByte & 0x3F) << 8)
+                        | (buffer[offset + index + 1] & 0xFF);
+                // every pointer points before the name, and before
+                //  the pointer before it, so the loop ends. This is stricter
+                //  than the decoder, which only needs it before the pointer.
+                if (target >= pointerLimit)
+                {
+                    return ERROR_BAD_POINTER;
+                }
+                pointers += 1;
+                if (pointers > BigEndianDecoder.MAX_POINTER_DEPTH)
+                {
+                    return ERROR_NAME_TOO_LONG;
+                }
+                pointerLimit = target;
+                index = target;
+                // a name pointed to may be anywhere in the message.
+                limit = length;
+                continue;
+            }
+            if ((lengthByte & 0xC0) != 0)
+            {
+                return ERROR_BAD_LABEL;
+            }
+            nameLength += 1 + lengthByte;
+            if (nameLength > BigEndianDecoder.MAX_NAME_LENGTH)
+            {
+                return ERROR_NAME_TOO_LONG;
+            }
+            index += 1 + lengthByte;
+            if (lengthByte == 0)
+            {
+                return (end < 0) ? index : end;
+            }
+        }
+    }
+}
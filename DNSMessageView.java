@@ -0,0 +1,409 @@
+import java.net.DatagramPacket;
+
+/**
+ * DNSMessageView is a lazy, read-only DNSMessage over the received bytes.
+ *
+ * The 12 bytes of the header are read when the view is created, that is all
+ * the client needs to drop a late, mismatched or forged response, e.g.
+ *      if (view.getQueryId() != queryId) { ... }
+ * The question and the three sections of resource records are only decoded
+ * the first time they are asked for. To find where a section starts, the
+ * sections before it are skipped, without building any object.
+ *
+ * Rdata with domain names (NS, CNAME, MX, ...) is skipped too, and only
+ * decoded when its record's getRdata() or getRdataInfo() is called.
+ *
+ * The view keeps a reference to the bytes, not a copy. The bytes must not be
+ * overwritten (e.g. by receiving another packet into the same buffer) while
+ * the view is still used.
+ */
+public class DNSMessageView
+{
+    // the bytes of the message.
+    private byte[] buffer;
+    // index in buffer where the message starts.
+    private int start;
+    // number of bytes of the message.
+    private int length;
+
+    // header fields, read when the view is created.
+    private int id;
+    private int flag;
+    private int questionCount;
+    private int answerCount;
+    private int nameServerCount;
+    private int additionalCount;
+
+    // offset (from the start of the message) of the answer, authority and
+    // additional sections, and of the end of the last section.
+    // 0 until findSections() is called.
+    private int answerOffset;
+    private int nameServerOffset;
+    private int additionalOffset;
+    private int endOffset;
+
+    // the decoder for the parts decoded so far, created when first needed.
+    private BigEndianDecoder decoder;
+    // parts decoded so far, null if not decoded yet.
+    private DNSQuestion question;
+    private DNSResourceRecords answers;
+    private DNSResourceRecords nameServers;
+    private DNSResourceRecords additionalRecords;
+
+
+    /** Constructor:
+     * read the header of a message, nothing else is decoded.
+     * @param bufferV - the bytes of the message.
+     * @param offset - index in bufferV where the message starts.
+     * @param lengthV - number of bytes of the message.
+     * @throws DNSDecodeException if the message is shorter than a header. */
+    public DNSMessageView(byte[] bufferV, int offset, int lengthV)
+    {
+        if (offset < 0 || lengthV < 0 || offset + lengthV > bufferV.length)
+        {
+            throw new IndexOutOfBoundsException("DNSMessageView: offset " + offset
+                    + " length " + lengthV + " buffer length " + bufferV.length);
+        }
+        if (lengthV < DNSHeader.HEADER_LENGTH)
+        {
+            throw new DNSDecodeException(DNSDecodeException.Reason.TRUNCATED, lengthV);
+        }
+        this.buffer = bufferV;
+        this.start = offset;
+        this.length = lengthV;
+
+        this.id = DNSHeader.getId(bufferV, offset);
+        this.flag = DNSHeader.getFlag(bufferV, offset);
+        this.questionCount = DNSHeader.getField(bufferV, offset,
+                DNSHeader.QUESTION_COUNT_OFFSET);
+        this.answerCount = DNSHeader.getField(bufferV, offset,
+                DNSHeader.ANSWER_COUNT_OFFSET);
+        this.nameServerCount = DNSHeader.getField(bufferV, offset,
+                DNSHeader.NAME_SERVER_COUNT_OFFSET);
+        this.additionalCount = DNSHeader.getField(bufferV, offset,
+                DNSHeader.ADDITIONAL_COUNT_OFFSET);
+    }
+
+
+    /** Static method: create a view of the message in a datagram packet.
+     * @param packet a Datagram Packet received by client/server.
+     * @return the view, only the header has been read. */
+    public static DNSMessageView fromPacket(DatagramPacket packet)
+    {
+        return new DNSMessageView(packet.getData(), packet.getOffset(),
+                packet.getLength());
+    }
+
+
+    /** Helper method:
+     * @return the query ID in the header (0 - 65535). */
+    public int getQueryId()
+    {
+        return this.id;
+    }
+
+
+    /** Helper method:
+     * @return the 16-bit flag in the header. */
+    public int getFlag()
+    {
+        return this.flag;
+    }
+
+
+    /** Helper method:
+     * @return true if QR is set, i.e. the message is a response. */
+    public boolean isResponse()
+    {
+        return (this.flag & DNSHeader.QR_BIT) != 0;
+    }
+
+
+    /** Helper method:
+     * @return true if the response is from an authoritative server. */
+    public boolean isFromAuthoritative()
+    {
+        return (this.flag & DNSHeader.AA_BIT) != 0;
+    }
+
+
+    /** Helper method:
+     * @return true if all RCODE bits are zero. */
+    public boolean isResponseCodeCorrect()
+    {
+        return (this.flag & DNSHeader.RCODE_MASK) == 0;
+    }
+
+
+    /** Helper method:
+     * @return number of questions in the header. */
+    public int getQuestionCount()
+    {
+        return this.questionCount;
+    }
+
+
+    /** Helper method:
+     * @return number of answers in the header. */
+    public int getAnswerCount()
+    {
+        return this.answerCount;
+    }
+
+
+    /** Helper method:
+     * @return number of name servers in the header. */
+    public int getNameServerCount()
+    {
+        return this.nameServerCount;
+    }
+
+
+    /** Helper method:
+     * @return number of additional resource records in the header. */
+    public int getAddtionalInfoCount()
+    {
+        return this.additionalCount;
+    }
+
+
+    /** Helper method:
+     * decode the question, the first time it is asked for.
+     * @return the question of the message.
+     * @throws DNSDecodeException if there is no valid question. */
+    public DNSQuestion getQuestion()
+    {
+        if (this.question == null)
+        {
+            if (this.questionCount == 0)
+            {
+                throw new DNSDecodeException(DNSDecodeException.Reason.TRUNCATED,
+                        DNSHeader.HEADER_LENGTH);
+            }
+            BigEndianDecoder decoderV = this.getDecoder();
+            decoderV.seek(DNSHeader.HEADER_LENGTH);
+            this.question = new DNSQuestion(decoderV);
+        }
+        return this.question;
+    }
+
+
+    /** Helper method:
+     * get domain name in dns question
+     * @return the domain name's string */
+    public String getQueryName()
+    {
+
+        return this.getQuestion().getDomainNameInQuestion();
+    }
+
+
+    /** Helper method:
+     * get question type in dns question.*/
+    public short getQType()
+    {
+
+        return this.getQuestion().getqType();
+    }
+
+
+    /** Helper method:
+     * decode the answer section, the first time it is asked for.
+     * @return the resource records in the answer section. */
+    public DNSResourceRecords getAnswers()
+    {
+        if (this.answers == null)
+        {
+            this.answers = this.decodeSection(this.findSections(0),
+                    this.answerCount);
+        }
+        return this.answers;
+    }
+
+
+    /** Helper method:
+     * decode the authority section, the first time it is asked for.
+     * @return the resource records in the authority section. */
+    public DNSResourceRecords getNameServers()
+    {
+        if (this.nameServers == null)
+        {
+            this.nameServers = this.decodeSection(this.findSections(1),
+                    this.nameServerCount);
+        }
+        return this.nameServers;
+    }
+
+
+    /** Helper method:
+     * decode the additional section, the first time it is asked for.
+     * @return the resource records in the additional section. */
+    public DNSResourceRecords getAdditionalRecords()
+    {
+        if (this.additionalRecords == null)
+        {
+            this.additionalRecords = this.decodeSection(this.findSections(2),
+                    this.additionalCount);
+        }
+        return this.additionalRecords;
+    }
+
+
+    /** Retrieve all type A answers, only the answer section is decoded.
+     * @param qName domain name of query.
+     * @return an array of IPv4 address of the domain
+     *  name, as packed int (see DNSRdataTypeA). */
+    public int[] retrieveIPv4Answers(String qName)
+    {
+
+        return this.getAnswers().getIPv4sOfName(qName);
+    }
+
+
+    /** Same as above, for a domain name we have as a DNSName.
+     * @param qName domain name of query.
+     * @return an array of IPv4 address of the domain
+     *  name, as packed int (see DNSRdataTypeA). */
+    public int[] retrieveIPv4Answers(DNSName qName)
+    {
+
+        return this.getAnswers().getIPv4sOfName(qName);
+    }
+
+
+    /** Helper method:
+     * decode the whole message, the same as DNSMessage(BigEndianDecoder).
+     * @return a new DNSMessage object. */
+    public DNSMessage toMessage()
+    {
+        return new DNSMessage(new BigEndianDecoder(this.buffer, this.start,
+                this.length));
+    }
+
+
+    /** Helper method:
+     * @return the decoder of this view, created the first time. */
+    private BigEndianDecoder getDecoder()
+    {
+        if (this.decoder == null)
+        {
+            this.decoder = new BigEndianDecoder(this.buffer, this.start, this.length);
+            // the view keeps its decoder, so rdata that nobody reads
+            //  (e.g. NS records in the authority section) is only skipped.
+            this.decoder.setLazyRdata(true);
+        }
+        return this.decoder;
+    }
+
+
+    /** Helper method:
+     * decode count resource records, starting at offset.
+     * Names the records point to are decoded on demand by the decoder,
+     *  even if the section they are in has not been decoded. */
+    private DNSResourceRecords decodeSection(int offset, int count)
+    {
+        BigEndianDecoder decoderV = this.getDecoder();
+        decoderV.seek(offset);
+        return new DNSResourceRecords(decoderV, count);
+    }
+
+
+    /** Helper method:
+     * find where each section starts, by skipping over the question and
+     *  resource records without decoding them. Only done once.
+     * @param section - 0 for answer, 1 for authority, 2 for additional.
+     * @return offset of that section. */
+    private int findSections(int section)
+    {
+        if (this.endOffset == 0)
+        {
+            int offset = DNSHeader.HEADER_LENGTH;
+            for (int i = 0; i < this.questionCount; i++)
+            {
+                // name, qType, qClass.
+                offset = this.skipName(offset) + 4;
+            }
+            this.answerOffset = offset;
+            offset = this.skipRecords(offset, this.answerCount);
+            this.nameServerOffset = offset;
+            offset = this.skipRecords(offset, this.nameServerCount);
+            this.additionalOffset = offset;
+            this.endOffset = this.skipRecords(offset, this.additionalCount);
+        }
+        if (section == 0)
+        {
+            return this.answerOffset;
+        }
+        return (section == 1) ? this.nameServerOffset : this.additionalOffset;
+    }
+
+
+    /** Helper method:
+     * @return offset after count resource records that start at offset. */
+    private int skipRecords(int offset, int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            // name, then type(2), class(2), ttl(4), then rdLength(2).
+            offset = this.skipName(offset) + 8;
+            int rdLength = this.unsignedShortAt(offset);
+            offset += 2 + rdLength;
+        }
+        if (offset > this.length)
+        {
+            throw new DNSDecodeException(DNSDecodeException.Reason.TRUNCATED, offset);
+        }
+        return offset;
+    }
+
+
+    /** Helper method:
+     * @return offset after the domain name that starts at offset. */
+    private int skipName(int offset)
+    {
+        while (true)
+        {
+            int lengthByte = this.unsignedByteAt(offset);
+            if (lengthByte == 0)
+            {
+                // the root label ends the name.
+                return offset + 1;
+            }
+            if ((lengthByte & 0xC0) == 0xC0)
+            {
+                // a pointer ends the name.
+                return offset + 2;
+            }
+            if ((lengthByte & 0xC0) != 0)
+            {
+                throw new DNSDecodeException(DNSDecodeException.Reason.BAD_LABEL,
+                        offset);
+            }
+            offset += 1 + lengthByte;
+        }
+    }
+
+
+    /** Helper method:
+     * @return the byte at offset from the start of the message, unsigned. */
+    private int unsignedByteAt(int offset)
+    {
+        if (offset >= this.length)
+        {
+            throw new DNSDecodeException(DNSDecodeException.Reason.TRUNCATED, offset);
+        }
+        return this.buffer[this.start + offset] & 0xFF;
+    }
+
+
+    /** Helper method:
+     * @return the 16-bit value at offset from the start of the message. */
+    private int unsignedShortAt(int offset)
+    {
+        if (offset + 2 > this.length)
+        {
+            throw new DNSDecodeException(DNSDecodeException.Reason.TRUNCATED, offset);
+        }
+        return DNSHeader.getField(this.buffer, this.start, offset);
+    }
+}
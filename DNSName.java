@@ -17,11 +17,30 @@
  *
  * See the subclasses for more information of why there are three subclasses
  * and their data structure.
+ *
+ * A DNSName converts its name to wire format (length-prefixed labels, see
+ * BigEndianEncoder.toWireFormat()) only once, the first time it is encoded
+ * or compared. Names are compared case-insensitively, as DNS requires, and
+ * hashCode() is cached, so DNSName can be used as a key of a HashMap.
+ *
+ * Decoded names without pointers are interned in DNSNamePool, so the same
+ * object may be returned by decode() for many messages, on many threads.
+ * A DNSName must not be changed after it is created.
  */
 public abstract class DNSName implements Encodable
 {
     protected String name;
 
+    // the name in wire format, computed from name when first needed.
+    private byte[] wireFormat;
+    // index in wireFormat where each label starts.
+    private int[] labelOffsets;
+    // hash of the suffix starting at each label, used by
+    // BigEndianEncoder's compression table.
+    private int[] suffixHashes;
+    // cached hashCode(), 0 if it has not been computed yet.
+    private int hash;
+
     // helper method
     // Return the decoded string of this DNSName
     public String getName()
@@ -30,6 +49,176 @@ public abstract class DNSName implements Encodable
     }
 
 
+    /**
+     * Helper method:
+     * get the name in wire format. Do not modify the returned array.
+     * @return bytes like [03 77 77 77 03 75 77 6f 02 63 61 00]
+     */
+    public byte[] getWireFormat()
+    {
+        if (this.wireFormat == null)
+        {
+            this.prepareWireFormat();
+        }
+        return this.wireFormat;
+    }
+
+
+    /**
+     * Helper method:
+     * @return index in getWireFormat() where each label starts,
+     *          the length of the array is the number of labels.
+     */
+    public int[] getLabelOffsets()
+    {
+        if (this.wireFormat == null)
+        {
+            this.prepareWireFormat();
+        }
+        return this.labelOffsets;
+    }
+
+
+    /**
+     * Helper method:
+     * @return hash of the suffix starting at each label,
+     *          see BigEndianEncoder.hashSuffixes().
+     */
+    public int[] getSuffixHashes()
+    {
+        if (this.wireFormat == null)
+        {
+            this.prepareWireFormat();
+        }
+        return this.suffixHashes;
+    }
+
+
+    /**
+     * Helper method:
+     * convert the name to wire format, and find its labels and suffix hashes.
+     * Only called once for each DNSName object.
+     */
+    private void prepareWireFormat()
+    {
+        byte[] wire = BigEndianEncoder.toWireFormat(this.name);
+        int labelCount = BigEndianEncoder.findLabels(wire, 0, null);
+        int[] starts = new int[labelCount];
+        int[] hashes = new int[labelCount];
+        BigEndianEncoder.findLabels(wire, 0, starts);
+        BigEndianEncoder.hashSuffixes(wire, starts, labelCount, hashes);
+
+        this.labelOffsets = starts;
+        this.suffixHashes = hashes;
+        // set it last, other methods check it to see if all are ready.
+        this.wireFormat = wire;
+    }
+
+
+    /**
+     * Implementing the interface:
+     * a name is encoded as its wire format, when it is not compressed.
+     * @return length of the wire format name.
+     */
+    @Override
+    public int encodedLength()
+    {
+        return this.getWireFormat().length;
+    }
+
+
+    /**
+     * Helper method:
+     * lower case of an ASCII letter, other bytes are unchanged.
+     * @param b: a byte of a label.
+     * @return the lower case byte.
+     */
+    public static byte toLowerCase(byte b)
+    {
+        if (b >= 'A' && b <= 'Z')
+        {
+            return (byte) (b + ('a' - 'A'));
+        }
+        return b;
+    }
+
+
+    /**
+     * Compute a hash that does not depend on upper/lower case,
+     * so "WWW.uwo.ca" and "www.uwo.ca" have the same hash.
+     * It is computed once, and cached.
+     * @return hash of the wire format name.
+     */
+    @Override
+    public int hashCode()
+    {
+        int h = this.hash;
+        if (h == 0)
+        {
+            byte[] wire = this.getWireFormat();
+            h = NameScanner.get().hashIgnoreCase(wire, 0, wire.length);
+            this.hash = h;
+        }
+        return h;
+    }
+
+
+    /**
+     * Two DNSName objects are equal if they have the same labels,
+     * ignoring upper/lower case of ASCII letters.
+     * @param obj: the object to compare with.
+     * @return true if both are the same domain name.
+     */
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj)
+        {
+            return true;
+        }
+        if (!(obj instanceof DNSName))
+        {
+            return false;
+        }
+        DNSName other = (DNSName) obj;
+        if (this.hashCode() != other.hashCode())
+        {
+            return false;
+        }
+        byte[] wire = this.getWireFormat();
+        byte[] otherWire = other.getWireFormat();
+        if (wire.length != otherWire.length)
+        {
+            return false;
+        }
+        return NameScanner.get().equalsIgnoreCase(wire, 0, otherWire, 0,
+                wire.length);
+    }
+
+
+    /**
+     * Compare this name with a name in received bytes, without decoding it,
+     * ignoring upper/lower case of ASCII letters. The name in the bytes must
+     * not be compressed, e.g. the name in the question of a message.
+     * Length bytes of labels are at most 63, they are never changed by
+     * toLowerCase(), so the wire formats can be compared byte by byte.
+     * @param buffer: the received bytes.
+     * @param offset: index in buffer where the name starts.
+     * @param length: number of bytes after offset that may be read.
+     * @return true if the bytes at offset are this name.
+     */
+    public boolean wireEquals(byte[] buffer, int offset, int length)
+    {
+        byte[] wire = this.getWireFormat();
+        if (length < wire.length || offset < 0 || offset + wire.length > buffer.length)
+        {
+            return false;
+        }
+        return NameScanner.get().equalsIgnoreCase(wire, 0, buffer, offset,
+                wire.length);
+    }
+
+
     /**
      * static factory method:
      * Base on the first byte to determine the actual class of the DNSName.
@@ -45,16 +234,48 @@ public abstract class DNSName implements Encodable
      */
     public static DNSName decode(BigEndianDecoder decoder)
     {
+        // reject bad labels and long names before any object is built.
+        int end = decoder.checkName();
+        int offset = decoder.getOffset();
+
+        // a name without pointer may have been decoded before,
+        //  in this message or another one.
+        DNSNamePool pool = DNSNamePool.shared();
+        if (end > 0)
+        {
+            DNSName pooled = pool.lookup(decoder, offset, end);
+            if (pooled != null)
+            {
+                decoder.skip(end - offset);
+                decoder.addEntry(offset, pooled);
+                return pooled;
+            }
+        }
+
         byte firstByte = decoder.peekByte();
 
+        DNSName dnsName;
         if ((firstByte & 0xC0) == 0xC0)
         {
-            return new DNSNamePointer(decoder);
+            dnsName = new DNSNamePointer(decoder);
         }
         else
         {
-            return new DNSLabels(decoder);
+            dnsName = new DNSLabels(decoder);
+        }
+
+        // the labels and the name it points to, together, must still fit
+        //  in 255 bytes: 253 characters, without the dot at the end.
+        if (dnsName.getName().length() > BigEndianDecoder.MAX_NAME_LENGTH - 2)
+        {
+            throw new DNSDecodeException(DNSDecodeException.Reason.NAME_TOO_LONG,
+                    offset);
+        }
+        if (end > 0)
+        {
+            pool.put(dnsName);
         }
+        return dnsName;
     }
 
 
@@ -4,6 +4,10 @@
  */
 public class DNSNamePointer extends DNSName
 {
+    // the name this pointer points to.
+    // The wire format and the hash are the ones of that name, so they are
+    //  not computed again for each pointer to it.
+    private DNSName pointedName;
 
     public DNSNamePointer(BigEndianDecoder decoder)
     {
@@ -11,19 +15,50 @@ public class DNSNamePointer extends DNSName
 
         int pointerPosition = decoder.decodeShort() & 0x3FFF;
 
-        this.name = decoder.getEntry(pointerPosition).getName();
+        this.pointedName = decoder.getPointedName(pointerPosition, offset);
+        this.name = this.pointedName.getName();
 
         decoder.addEntry(offset, this);
 
     }
 
 
+    @Override
+    public byte[] getWireFormat()
+    {
+
+        return this.pointedName.getWireFormat();
+    }
+
+
+    @Override
+    public int[] getLabelOffsets()
+    {
+
+        return this.pointedName.getLabelOffsets();
+    }
+
+
+    @Override
+    public int[] getSuffixHashes()
+    {
+
+        return this.pointedName.getSuffixHashes();
+    }
+
+
+    @Override
+    public int hashCode()
+    {
+
+        return this.pointedName.hashCode();
+    }
+
+
     @Override
     public void encode(BigEndianEncoder encoderV)
     {
-        // stub
-        // No need to implement this one
-        // Because when encoding DNSQuestion, DNSLabels rather than
-        // DNSNamePointer will be used for encoding the Domain name.
+        // the name pointed to is encoded, compressed if the encoder can.
+        encoderV.encodeName(this);
     }
 }
@@ -0,0 +1,163 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * DNSNamePool interns decoded domain names, so a name that is received again
+ * and again (e.g. the name our client queries, in every response) is decoded
+ * once: later messages reuse the same DNSName object, with its name string
+ * and wire format, instead of building new DNSLabel and DNSLabels objects and
+ * concatenating their strings.
+ *
+ * The key is the wire format of the name, exactly as received (upper/lower
+ * case included, so the name string of a pooled name is always the one in
+ * the message). Only names without a pointer are pooled, since their bytes
+ * are all in one place.
+ *
+ * The pool is a fixed number of slots: a name goes to the slot of the hash
+ * of its bytes, and replaces whatever name was there. So the memory it uses
+ * is bounded, and a name that is not used anymore is soon replaced.
+ * The hash is DNSName.hashCode(): a pooled name has it cached, and for the
+ * bytes of a message it is computed by NameScanner, with vectors when they
+ * are available. Names that only differ in case share a slot.
+ *
+ * One pool is shared by all decoders, on all threads. The slots are an
+ * AtomicReferenceArray: a name is fully built (wire format and hash code
+ * computed) before it is put in a slot, so another thread that gets it from
+ * the slot sees all of it. Two threads putting into the same slot at the same
+ * time is fine, one of the names is kept.
+ */
+public class DNSNamePool
+{
+    // number of slots of the shared pool.
+    private static final int SHARED_SLOTS = 1024;
+
+    // the pool all decoders use.
+    private static final DNSNamePool SHARED = new DNSNamePool(SHARED_SLOTS);
+
+    // the pooled names, null if the slot is empty.
+    private final AtomicReferenceArray<DNSName> slots;
+    // number of slots - 1, the number of slots is a power of 2.
+    private final int mask;
+
+    /** Constructor:
+     * @param slotCount - number of slots, rounded up to a power of 2. */
+    public DNSNamePool(int slotCount)
+    {
+        int size = Integer.highestOneBit(Math.max(slotCount, 1));
+        if (size < slotCount)
+        {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+
+    /** Static method:
+     * @return the pool shared by all decoders. */
+    public static DNSNamePool shared()
+    {
+        return SHARED;
+    }
+
+
+    /** Helper method:
+     * find the name which wire format is the bytes of a message.
+     * Nothing is created.
+     * @param decoder - the decoder of the message.
+     * @param from - offset (from the start of the message) of the name.
+     * @param to - offset right after the root label of the name.
+     * @return the pooled name, or null if it is not in the pool. */
+    public DNSName lookup(BigEndianDecoder decoder, int from, int to)
+    {
+        byte[] buffer = decoder.getReceivedBuffer();
+        if (buffer == null)
+        {
+            // a direct ByteBuffer, one byte at a time.
+            return this.lookupByByte(decoder, from, to);
+        }
+        int index = decoder.getArrayIndex(from);
+        int hash = NameScanner.get().hashIgnoreCase(buffer, index, to - from);
+        DNSName candidate = this.slots.get(this.slotOf(hash));
+        if (candidate == null)
+        {
+            return null;
+        }
+
+        // the exact bytes, upper/lower case included.
+        byte[] wire = candidate.getWireFormat();
+        if (!Arrays.equals(wire, 0, wire.length, buffer, index, index + to - from))
+        {
+            return null;
+        }
+        return candidate;
+    }
+
+
+    /** Helper method:
+     * same as above, for a decoder with no byte array behind it.
+     *  The hash is the one of ScalarNameScanner. */
+    private DNSName lookupByByte(BigEndianDecoder decoder, int from, int to)
+    {
+        int hash = 1;
+        for (int i = from; i < to; i++)
+        {
+            hash = 31 * hash + DNSName.toLowerCase(decoder.getByte(i));
+        }
+        DNSName candidate = this.slots.get(this.slotOf(hash));
+        if (candidate == null)
+        {
+            return null;
+        }
+
+        byte[] wire = candidate.getWireFormat();
+        if (wire.length != to - from)
+        {
+            return null;
+        }
+        for (int i = 0; i < wire.length; i++)
+        {
+            if (wire[i] != decoder.getByte(from + i))
+            {
+                return null;
+            }
+        }
+        return candidate;
+    }
+
+
+    /** Helper method:
+     * put a decoded name in the pool, it replaces the name in its slot.
+     * @param dnsName - a name without pointer. */
+    public void put(DNSName dnsName)
+    {
+        // compute everything that is computed lazily now, before any
+        //  other thread can see the name.
+        dnsName.getWireFormat();
+        dnsName.getSuffixHashes();
+        int hash = dnsName.hashCode();
+
+        this.slots.set(this.slotOf(hash), dnsName);
+    }
+
+
+    /** Helper method:
+     * @param hash - the hash of a name, see DNSName.hashCode().
+     * @return the slot of the name. */
+    private int slotOf(int hash)
+    {
+        // mix the high bits in, only the low ones pick the slot.
+        return (hash ^ (hash >>> 16)) & this.mask;
+    }
+
+
+    /** Helper method:
+     * remove all names from the pool. */
+    public void clear()
+    {
+        for (int i = 0; i < this.slots.length(); i++)
+        {
+            this.slots.set(i, null);
+        }
+    }
+}
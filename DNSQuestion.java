@@ -23,7 +23,20 @@ public class DNSQuestion implements Encodable
      */
     public DNSQuestion (String domainNameV, RecordType r)
     {
-        this.domainName = new DNSLabels(domainNameV);
+        this(new DNSLabels(domainNameV), r);
+    }
+
+
+    /**
+     * Constructor for encoding purpose:
+     * encode a domain name that has been created before. If the same name
+     * is queried many times, reusing the DNSName saves converting it again.
+     * @param domainNameV: the domain name we wish to query.
+     * @param r: the type of query we wish to ask, e.g. A, NS, AAAA, etc.
+     */
+    public DNSQuestion (DNSName domainNameV, RecordType r)
+    {
+        this.domainName = domainNameV;
         this.qType = (short) r.getCode();
         this.qClass = (short) 0x1;
     }
@@ -35,7 +48,17 @@ public class DNSQuestion implements Encodable
      * @param queryClass - class of the query */
     public DNSQuestion(String domainName, short queryType, short queryClass)
     {
-        this.domainName = new DNSLabels(domainName);
+        this(new DNSLabels(domainName), queryType, queryClass);
+    }
+
+
+    /** Constructor for encoding a DNS response's DNS question.
+     * @param domainName - domain name in the question, e.g. from the query.
+     * @param  queryType - type of the query
+     * @param queryClass - class of the query */
+    public DNSQuestion(DNSName domainName, short queryType, short queryClass)
+    {
+        this.domainName = domainName;
         this.qType = queryType;
         this.qClass = queryClass;
     }
@@ -63,6 +86,15 @@ public class DNSQuestion implements Encodable
     }
 
 
+    /** Helper method: get the domain name within the question field
+     * @return : the DNSName object of the domain name */
+    public DNSName getDomainName()
+    {
+
+        return this.domainName;
+    }
+
+
     /** Helper method: get the query type.
      * @return: the qType */
     public short getqType()
@@ -92,13 +124,17 @@ public class DNSQuestion implements Encodable
     }
 
     @Override
-    public void encode(BigEndianEncoder encoderV)
+    public int encodedLength()
     {
-        // First get the Domain Name in string format
-        String qName = this.domainName.getName();
+        // the domain name, then qType and qClass.
+        return this.domainName.encodedLength() + 4;
+    }
 
-        // encode the Domain Name's string
-        encoderV.encodeName(qName);
+    @Override
+    public void encode(BigEndianEncoder encoderV)
+    {
+        // encode the Domain Name, its bytes are computed only once.
+        encoderV.encodeName(this.domainName);
 
         // now encode qType and qClass
         encoderV.encodeShort(this.qType);
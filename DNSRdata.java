@@ -28,85 +28,87 @@ public abstract class DNSRdata implements Encodable
      *      like "129.100.0.79" */
     public static DNSRdata createInstance(short r, String dataStr)
     {
-        switch (r)
-        {
-            // supported type
-            // For this project, we only support encode a TypeA Rdata.
-            case 1:
-                return new DNSRdataTypeA(dataStr);
+        // types that need more than a string return null,
+        //  use their constructors.
+        return RdataCodecs.get(r).create(dataStr);
+    }
+
 
-            default:
-                return null;
+    /** Helper method for createInstance():
+     * @param dataStr - like "10 mail.uwo.ca"
+     * @return a DNSRdataTypeMX object, or null if dataStr has a wrong format. */
+    static DNSRdata createMX(String dataStr)
+    {
+        int space = dataStr.indexOf(' ');
+        if (space <= 0)
+        {
+            System.out.println("DNSRdata: MX data should be \"preference name\".");
+            return null;
         }
+        try
+        {
+            int preference = Integer.parseInt(dataStr.substring(0, space));
+            return new DNSRdataTypeMX((short) preference,
+                    new DNSLabels(dataStr.substring(space + 1)));
+        }catch (NumberFormatException n)
+        {
+            System.out.println("DNSRdata: MX preference is not a number.");
+            return null;
+        }
+    }
 
+
+    /** Helper method for createInstance():
+     * @param dataStr - like "2001:db8::1"
+     * @return a DNSRdataTypeAAAA object, or null if dataStr has a wrong format. */
+    static DNSRdata createAAAA(String dataStr)
+    {
+        try
+        {
+            return new DNSRdataTypeAAAA(dataStr);
+        }catch (IllegalArgumentException i)
+        {
+            System.out.println("DNSRdata: " + i.getMessage());
+            return null;
+        }
     }
 
 
     // Factory method for decoding purpose:
     // Based on the TYPE field in ResourceRecord,
-    // generate appropriate DNSRdata.
+    // generate appropriate DNSRdata with the codec registered for it,
+    // see RdataCodecs.
+    // If the decoder is in lazy rdata mode, types which rdata has domain
+    // names are not decoded now, see DNSRdataLazy.
     public static DNSRdata decode(BigEndianDecoder decoder, short r, short rdLengthV)
     {
-
-        switch (r)
+        RdataCodec codec = RdataCodecs.get(r);
+        if (decoder.isLazyRdata() && codec.hasDomainName())
         {
-            // supported type
-            case 1:
-                return new DNSRdataTypeA(decoder);
-
-            // supported type
-            case 2:
-                return new DNSRdataTypeNS(decoder);
-
-            case 3:
-                return new DNSRdataTypeMdfbgrPtr(decoder);
-
-            case 4:
-                return new DNSRdataTypeMdfbgrPtr(decoder);
-
-            // supported type
-            case 5:
-                return new DNSRdataTypeCNAME(decoder);
-
-            case 6:
-                return new DNSRdataTypeSOA(decoder);
-
-            case 7:
-                return new DNSRdataTypeMdfbgrPtr(decoder);
-
-            case 8:
-                return new DNSRdataTypeMdfbgrPtr(decoder);
-
-            case 9:
-                return new DNSRdataTypeMdfbgrPtr(decoder);
-
-            case 10:
-                return new DNSRdataTypeNullSkippable(decoder, rdLengthV);
-
-            case 11:
-                return new DNSRdataTypeNullSkippable(decoder, rdLengthV);
+            return new DNSRdataLazy(decoder, r, rdLengthV);
+        }
+        return codec.decode(decoder, rdLengthV);
+    }
 
-            case 12:
-                return new DNSRdataTypeMdfbgrPtr(decoder);
 
-            case 13:
-                return new DNSRdataTypeNullSkippable(decoder, rdLengthV);
+    /** Factory method for decoding purpose:
+     * same as decode(), but the rdata is always decoded now.
+     * Used by DNSRdataLazy when its rdata is asked for. */
+    static DNSRdata decodeNow(BigEndianDecoder decoder, short r, short rdLengthV)
+    {
 
-            case 14:
-                return new DNSRdataTypeMINFO(decoder);
+        return RdataCodecs.get(r).decode(decoder, rdLengthV);
+    }
 
-            // supported type
-            case 15:
-                return new DNSRdataTypeMX(decoder);
 
-            // supported type
-            case 28:
-                return new DNSRdataTypeAAAA(decoder);
+    /** Helper method:
+     * get the decoded rdata. Only a DNSRdataLazy is not decoded yet,
+     *  every other rdata returns itself.
+     * @return the rdata, decoded. */
+    public DNSRdata resolve()
+    {
 
-                default:
-                    // return an object that just skip the whole rdata
-                    return new DNSRdataTypeNullSkippable(decoder, rdLengthV);
-        }
+        return this;
     }
 
 
@@ -122,9 +124,21 @@ public abstract class DNSRdata implements Encodable
      * each subclasses of DNSRdata need to implement this method,
      * based on their rdata format and size.
      *
-     * Note: this method needs to be called before encoding rdata!
-     * Since in Resource Record, the data length is encoded before
-     * the rdata is actually encoded. */
+     * Domain names in rdata are counted without compression, the number of
+     * bytes actually encoded can be smaller. That is why DNSResourceRecord
+     * reserves RDLENGTH, encodes the rdata, then fills in RDLENGTH, instead
+     * of encoding this value. */
     public abstract short getDataLength();
 
+
+    /** Implementing the interface:
+     * the rdata is encoded as at most getDataLength() bytes,
+     *  exactly getDataLength() if names are not compressed.
+     * @return the length of rdata, in number of bytes. */
+    @Override
+    public int encodedLength()
+    {
+        return this.getDataLength() & 0xFFFF;
+    }
+
 }
@@ -0,0 +1,112 @@
+/**
+ * A rdata that has not been decoded yet.
+ * It only keeps where the rdata is in the message (offset and length) and
+ * the TYPE of its resource record. Decoding the rdata is skipping its bytes.
+ *
+ * The first time the rdata is asked for (getInfo(), resolve(), or when it is
+ * encoded), the decoder goes back to the offset and decodes the real rdata,
+ * e.g. a DNSRdataTypeNS, which is kept for later calls.
+ *
+ * Only created when the decoder is in lazy rdata mode, see
+ * BigEndianDecoder.setLazyRdata(). The decoder, and the bytes it decodes,
+ * must stay the same until the rdata is resolved: the decoder must not be
+ * reset to another message before that.
+ */
+public class DNSRdataLazy extends DNSRdata
+{
+    // the decoder of the message this rdata is in.
+    private BigEndianDecoder decoder;
+    // offset (from the start of the message) of the first byte of rdata.
+    private int offset;
+    // RDLENGTH of the resource record.
+    private short rdLength;
+    // TYPE of the resource record.
+    private short type;
+
+    // the decoded rdata, null until resolve() is called.
+    private DNSRdata resolved;
+
+    /**
+     * Construct a DNSRdataLazy object, and skip over the rdata.
+     * @param decoderV: the BigEndianDecoder originally
+     *               from DNSMessage's constructor argument
+     * @param typeV: TYPE of the resource record.
+     * @param rdLengthV: number of bytes of the rdata.
+     */
+    public DNSRdataLazy(BigEndianDecoder decoderV, short typeV, short rdLengthV)
+    {
+        this.decoder = decoderV;
+        this.offset = decoderV.getOffset();
+        this.rdLength = rdLengthV;
+        this.type = typeV;
+        decoderV.skip(rdLengthV & 0xFFFF);
+    }
+
+
+    /** Helper method:
+     * @return TYPE of the resource record this rdata belongs to. */
+    public short getType()
+    {
+        return this.type;
+    }
+
+
+    /** Helper method:
+     * @return offset of the rdata, from the start of the message. */
+    public int getOffset()
+    {
+        return this.offset;
+    }
+
+
+    /** Helper method:
+     * decode the rdata, the first time it is asked for.
+     * The cursor of the decoder is put back where it was.
+     * @return the decoded rdata, e.g. a DNSRdataTypeNS. */
+    @Override
+    public DNSRdata resolve()
+    {
+        if (this.resolved == null)
+        {
+            int savedOffset = this.decoder.getOffset();
+            this.decoder.seek(this.offset);
+            try
+            {
+                this.resolved = DNSRdata.decodeNow(this.decoder, this.type,
+                        this.rdLength);
+            }finally
+            {
+                this.decoder.seek(savedOffset);
+            }
+            // the decoder is not needed anymore.
+            this.decoder = null;
+        }
+        return this.resolved;
+    }
+
+
+    @Override
+    public String getInfo()
+    {
+
+        return this.resolve().getInfo();
+    }
+
+
+    @Override
+    /** implement the abstract method. */
+    public short getDataLength()
+    {
+
+        return this.resolve().getDataLength();
+    }
+
+
+    @Override
+    /** Implementing the interface:
+     * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
+    public void encode(BigEndianEncoder encoderV)
+    {
+        this.resolve().encode(encoderV);
+    }
+}
@@ -2,9 +2,15 @@
  * the type A's DNSResourceRecord's rdata.
  * type value: 1.
  * one field: a 32-bit data which represents a IPv4 address.
+ *
+ * The address is kept as a packed int, e.g. 129.100.0.79 is 0x8164004F.
+ * A string like "129.100.0.79" is only parsed or built at the edges:
+ * when the server reads its configured answer, and when we print results.
  */
 public class DNSRdataTypeA extends DNSRdata
 {
+    // the IPv4 address, the first byte of the address is the highest byte.
+    private int address;
 
     /** Constructor for encoding purpose:
      * Use to create a DNSRdataTypeA instance, and then encode it
@@ -13,11 +19,15 @@ public class DNSRdataTypeA extends DNSRdata
      *  dataStr - a string with IPV4 address format. like "129.100.0.79"*/
     public DNSRdataTypeA(String dataStr)
     {
-        // the parsedIp orginally used for holding parsed IP address from
-        // a DNS Resource Record Rdata field.
-        // Now, we can use to to store the IP address that we will encode
-        // using BigEndianEncoder later on.
-        this.parsedIp = dataStr;
+        this(DNSRdataTypeA.parseIPv4(dataStr));
+    }
+
+
+    /** Constructor for encoding purpose:
+     *  @param addressV - a packed IPv4 address, see parseIPv4(). */
+    public DNSRdataTypeA(int addressV)
+    {
+        this.address = addressV;
     }
 
 
@@ -25,15 +35,104 @@ public class DNSRdataTypeA extends DNSRdata
     // decode the Ip address which in 4 bytes
     public DNSRdataTypeA(BigEndianDecoder decoder)
     {
-        // First initialized an empty string
-        this.parsedIp = decoder.decodeIpv4();
+        this.address = decoder.decodeInt();
+    }
+
 
+    /** Helper method:
+     * @return the IPv4 address as a packed int. */
+    public int getAddress()
+    {
+        return this.address;
+    }
+
+
+    /** Helper method:
+     * Parse a string like "129.100.0.79" to a packed int 0x8164004F,
+     *  without split() or Integer.parseInt().
+     * If the string is not a valid IPv4 address, 0.0.0.0 is returned,
+     *  the same address the encoder used to encode on errors.
+     * @param ipv4Addr - a string that looks like "129.100.0.79"
+     * @return the packed address. */
+    public static int parseIPv4(String ipv4Addr)
+    {
+        int result = 0;
+        int value = 0; // value of the current part.
+        int digits = 0; // number of digits in the current part.
+        int parts = 0; // number of parts we have finished.
+        for (int i = 0; i < ipv4Addr.length(); i++)
+        {
+            char c = ipv4Addr.charAt(i);
+            if (c >= '0' && c <= '9')
+            {
+                value = value * 10 + (c - '0');
+                digits += 1;
+                if (value > 255 || digits > 3)
+                {
+                    System.out.println("parseIPv4: can't convert string to number");
+                    return 0;
+                }
+            }
+            else if (c == '.' && digits > 0 && parts < 3)
+            {
+                result = (result << 8) | value;
+                parts += 1;
+                value = 0;
+                digits = 0;
+            }
+            else
+            {
+                System.out.println("parseIPv4: can't convert string to number");
+                return 0;
+            }
+        }
+
+        if (parts != 3 || digits == 0)
+        {
+            System.out.println("parseIPv4: incorrect number of parts.");
+            return 0;
+        }
+        return (result << 8) | value;
+    }
+
+
+    /** Helper method:
+     * Format a packed address like 0x8164004F to "129.100.0.79".
+     * @param addressV - the packed IPv4 address.
+     * @return the address in dotted format. */
+    public static String formatIPv4(int addressV)
+    {
+        // at most "255.255.255.255", 15 characters.
+        char[] chars = new char[15];
+        int length = 0;
+        for (int shift = 24; shift >= 0; shift -= 8)
+        {
+            int part = (addressV >>> shift) & 0xFF;
+            if (part >= 100)
+            {
+                chars[length++] = (char) ('0' + part / 100);
+            }
+            if (part >= 10)
+            {
+                chars[length++] = (char) ('0' + (part / 10) % 10);
+            }
+            chars[length++] = (char) ('0' + part % 10);
+            if (shift > 0)
+            {
+                chars[length++] = '.';
+            }
+        }
+        return new String(chars, 0, length);
     }
 
     @Override
     public String getInfo()
     {
-        // return the parsed Ipv4 address
+        // build the string the first time someone asks for it.
+        if (this.parsedIp == null)
+        {
+            this.parsedIp = DNSRdataTypeA.formatIPv4(this.address);
+        }
         return this.parsedIp;
     }
 
@@ -52,7 +151,6 @@ public class DNSRdataTypeA extends DNSRdata
      * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
     public void encode(BigEndianEncoder encoderV)
     {
-        // though name is parsedIp, it's actually Ip(dataStr) in constructor.
-        encoderV.encodeIPv4(this.parsedIp);
+        encoderV.encodeInt(this.address);
     }
 }
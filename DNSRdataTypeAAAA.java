@@ -2,16 +2,297 @@
  * the type AAAA's DNSResourceRecord's rdata.
  * type value: 28.
  * one field: a 128-bit data which represents a IPv6 address.
+ *
+ * The address is kept as two longs, the first 8 bytes and the last 8 bytes,
+ * so decoding an AAAA record creates no array, the same as an A record.
+ * The string is only built when someone asks for it, in the form RFC5952
+ * recommends: lower case hex, no leading zeros, and the longest run of
+ * zero groups written as "::", e.g. "2001:db8::1".
  */
 public class DNSRdataTypeAAAA extends DNSRdata
 {
+    // the IPv6 address: bytes 0 - 7 and bytes 8 - 15,
+    //  the first byte of each half is the highest byte.
+    private long high;
+    private long low;
+
+    // hex digits, indexed by the value of a nibble.
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** Constructor for encoding purpose:
+     * @param addressV - the 16 bytes of an IPv6 address. */
+    public DNSRdataTypeAAAA(byte[] addressV)
+    {
+        if (addressV.length != 16)
+        {
+            throw new IllegalArgumentException("DNSRdataTypeAAAA: address has "
+                    + addressV.length + " bytes, 16 expected.");
+        }
+        this.high = DNSRdataTypeAAAA.toLong(addressV, 0);
+        this.low = DNSRdataTypeAAAA.toLong(addressV, 8);
+    }
+
+
+    /** Constructor for encoding purpose:
+     * @param highV - the first 8 bytes of the address.
+     * @param lowV - the last 8 bytes of the address. */
+    public DNSRdataTypeAAAA(long highV, long lowV)
+    {
+        this.high = highV;
+        this.low = lowV;
+    }
+
+
+    /** Constructor for encoding purpose:
+     * @param dataStr - an IPv6 address like "2001:db8::1",
+     *                see parseIPv6(). */
+    public DNSRdataTypeAAAA(String dataStr)
+    {
+        this(DNSRdataTypeAAAA.parseIPv6(dataStr));
+    }
+
+
+    // constructor:
+    // decode the IPv6 address which in 16 bytes
     public DNSRdataTypeAAAA(BigEndianDecoder decoder)
     {
-        this.parsedIp = decoder.decodeIpv6();
+        this.high = ((long) decoder.decodeInt() << 32)
+                | (decoder.decodeInt() & 0xFFFFFFFFL);
+        this.low = ((long) decoder.decodeInt() << 32)
+                | (decoder.decodeInt() & 0xFFFFFFFFL);
+    }
+
+
+    /** Helper method:
+     * @return the first 8 bytes of the address, as a long. */
+    public long getHigh()
+    {
+        return this.high;
+    }
+
+
+    /** Helper method:
+     * @return the last 8 bytes of the address, as a long. */
+    public long getLow()
+    {
+        return this.low;
+    }
+
+
+    /** Helper method:
+     * @return a new array with the 16 bytes of the IPv6 address. */
+    public byte[] getAddress()
+    {
+        byte[] addressV = new byte[16];
+        for (int i = 0; i < 8; i++)
+        {
+            addressV[i] = (byte) (this.high >>> (56 - 8 * i));
+            addressV[i + 8] = (byte) (this.low >>> (56 - 8 * i));
+        }
+        return addressV;
+    }
+
+
+    /** Helper method:
+     * @return the 8 bytes of bytes, from offset, as a long. */
+    private static long toLong(byte[] bytes, int offset)
+    {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++)
+        {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+
+    /** Helper method:
+     * Format the 16 bytes of an IPv6 address to a string, see formatIPv6().
+     * @param addressV - the 16 bytes of the address.
+     * @return a string like "2001:db8::1" */
+    public static String formatIPv6(byte[] addressV)
+    {
+        return DNSRdataTypeAAAA.formatIPv6(DNSRdataTypeAAAA.toLong(addressV, 0),
+                DNSRdataTypeAAAA.toLong(addressV, 8));
+    }
+
+
+    /** Helper method:
+     * Format an IPv6 address to a string as RFC5952 section 4 recommends:
+     *  each 16-bit group in lower case hex without leading zeros, and the
+     *  longest run of two or more zero groups (the first one, if two runs
+     *  are as long) replaced by "::".
+     * The digits are written from a table into one char array.
+     * @param highV - the first 8 bytes of the address.
+     * @param lowV - the last 8 bytes of the address.
+     * @return a string like "2001:db8::1" */
+    public static String formatIPv6(long highV, long lowV)
+    {
+        // find the longest run of zero groups.
+        int bestStart = -1;
+        int bestLength = 0;
+        int runStart = -1;
+        for (int i = 0; i < 8; i++)
+        {
+            if (DNSRdataTypeAAAA.group(highV, lowV, i) == 0)
+            {
+                if (runStart < 0)
+                {
+                    runStart = i;
+                }
+                if (i - runStart + 1 > bestLength)
+                {
+                    bestStart = runStart;
+                    bestLength = i - runStart + 1;
+                }
+            }
+            else
+            {
+                runStart = -1;
+            }
+        }
+        if (bestLength < 2)
+        {
+            // a single zero group is written as "0", not "::".
+            bestStart = -1;
+        }
+
+        // at most "ffff:ffff:ffff:ffff:ffff:ffff:ffff:ffff", 39 characters.
+        char[] chars = new char[39];
+        int length = 0;
+        for (int i = 0; i < 8; i++)
+        {
+            if (i == bestStart)
+            {
+                chars[length++] = ':';
+                chars[length++] = ':';
+                i += bestLength - 1;
+                continue;
+            }
+            if (i > 0 && i != bestStart + bestLength)
+            {
+                chars[length++] = ':';
+            }
+            int value = DNSRdataTypeAAAA.group(highV, lowV, i);
+            // skip leading zero nibbles, but keep the last one.
+            for (int shift = 12; shift >= 0; shift -= 4)
+            {
+                int nibble = (value >>> shift) & 0xF;
+                if ((value >>> shift) != 0 || shift == 0)
+                {
+                    chars[length++] = HEX_DIGITS[nibble];
+                }
+            }
+        }
+        return new String(chars, 0, length);
+    }
+
+
+    /** Helper method:
+     * @return the 16-bit group i (0 - 7) of the address. */
+    private static int group(long highV, long lowV, int i)
+    {
+        long half = (i < 4) ? highV : lowV;
+        return (int) (half >>> (48 - 16 * (i & 3))) & 0xFFFF;
+    }
+
+
+    /** Helper method:
+     * Parse an IPv6 address in the text form of RFC4291 section 2.2, e.g.
+     *  "2001:0db8:0:0:0:0:0:1", "2001:db8::1" or "::1".
+     * Upper and lower case hex digits are both accepted. The form with an
+     *  IPv4 address at the end ("::ffff:1.2.3.4") is not.
+     * @param ipv6Addr - the address as text.
+     * @return the 16 bytes of the address.
+     * @throws IllegalArgumentException if ipv6Addr is not an IPv6 address. */
+    public static byte[] parseIPv6(String ipv6Addr)
+    {
+        // groups before "::", and groups after it.
+        int[] groups = new int[8];
+        int count = 0;
+        int compressAt = -1;
+
+        int length = ipv6Addr.length();
+        int i = 0;
+        if (ipv6Addr.startsWith("::"))
+        {
+            compressAt = 0;
+            i = 2;
+        }
+        while (i < length)
+        {
+            int value = 0;
+            int digits = 0;
+            while (i < length && ipv6Addr.charAt(i) != ':')
+            {
+                int digit = Character.digit(ipv6Addr.charAt(i), 16);
+                if (digit < 0 || digits == 4)
+                {
+                    throw new IllegalArgumentException(
+                            "parseIPv6: not an IPv6 address: " + ipv6Addr);
+                }
+                value = (value << 4) | digit;
+                digits += 1;
+                i += 1;
+            }
+            if (digits == 0 || count == 8)
+            {
+                throw new IllegalArgumentException(
+                        "parseIPv6: not an IPv6 address: " + ipv6Addr);
+            }
+            groups[count++] = value;
+
+            if (i < length)
+            {
+                // skip the ':', or the "::".
+                i += 1;
+                if (i < length && ipv6Addr.charAt(i) == ':')
+                {
+                    if (compressAt >= 0)
+                    {
+                        throw new IllegalArgumentException(
+                                "parseIPv6: more than one \"::\": " + ipv6Addr);
+                    }
+                    compressAt = count;
+                    i += 1;
+                }
+                else if (i == length)
+                {
+                    // ends with a single ':'.
+                    throw new IllegalArgumentException(
+                            "parseIPv6: not an IPv6 address: " + ipv6Addr);
+                }
+            }
+        }
+        if (i < length || (compressAt < 0 && count != 8)
+                || (compressAt >= 0 && count > 7))
+        {
+            throw new IllegalArgumentException(
+                    "parseIPv6: not an IPv6 address: " + ipv6Addr);
+        }
+
+        // put the groups after "::" at the end, zeros in between.
+        byte[] addressV = new byte[16];
+        int after = (compressAt < 0) ? 0 : count - compressAt;
+        for (int g = 0; g < count; g++)
+        {
+            int position = (compressAt >= 0 && g >= compressAt)
+                    ? 8 - after + (g - compressAt)
+                    : g;
+            addressV[2 * position] = (byte) (groups[g] >>> 8);
+            addressV[2 * position + 1] = (byte) groups[g];
+        }
+        return addressV;
     }
 
     @Override
-    public String getInfo() {
+    public String getInfo()
+    {
+        // build the string the first time someone asks for it.
+        if (this.parsedIp == null)
+        {
+            this.parsedIp = DNSRdataTypeAAAA.formatIPv6(this.high, this.low);
+        }
         return this.parsedIp;
     }
 
@@ -20,8 +301,7 @@ public class DNSRdataTypeAAAA extends DNSRdata
     /** implement the abstract method. */
     public short getDataLength()
     {
-        //for research project, no need for implementation here.
-        return 0;
+        return 16;
     }
 
     @Override
@@ -29,7 +309,9 @@ public class DNSRdataTypeAAAA extends DNSRdata
      * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
     public void encode(BigEndianEncoder encoderV)
     {
-        // Note: No need for implementation for this class.
-        // Our simulation will use Type A resource record only.
+        encoderV.encodeInt((int) (this.high >>> 32));
+        encoderV.encodeInt((int) this.high);
+        encoderV.encodeInt((int) (this.low >>> 32));
+        encoderV.encodeInt((int) this.low);
     }
 }
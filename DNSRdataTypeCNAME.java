@@ -5,6 +5,13 @@
  */
 public class DNSRdataTypeCNAME extends DNSRdata
 {
+    /** Constructor for encoding purpose:
+     * @param canonicalName - the canonical name of the owner. */
+    public DNSRdataTypeCNAME(DNSName canonicalName)
+    {
+        this.dnsName = canonicalName;
+    }
+
     // constrcutor:
     public DNSRdataTypeCNAME(BigEndianDecoder decoder)
     {
@@ -23,8 +30,8 @@ public class DNSRdataTypeCNAME extends DNSRdata
     /** implement the abstract method. */
     public short getDataLength()
     {
-        //for research project, no need for implementation here.
-        return 0;
+        // the domain name, when it is not compressed.
+        return (short) this.dnsName.encodedLength();
     }
 
     @Override
@@ -32,7 +39,7 @@ public class DNSRdataTypeCNAME extends DNSRdata
      * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
     public void encode(BigEndianEncoder encoderV)
     {
-        // Note: No need for implementation for this class.
-        // Our simulation will use Type A resource record only.
+        // RFC1035 allows the name to be compressed.
+        encoderV.encodeName(this.dnsName);
     }
 }
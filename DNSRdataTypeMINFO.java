@@ -11,6 +11,16 @@ public class DNSRdataTypeMINFO extends DNSRdata
     private DNSName n2;
 
 
+    /** Constructor for encoding purpose:
+     * @param rmailbx - the mailbox responsible for the mailing list.
+     * @param emailbx - the mailbox to receive error messages. */
+    public DNSRdataTypeMINFO(DNSName rmailbx, DNSName emailbx)
+    {
+        this.n1 = rmailbx;
+        this.n2 = emailbx;
+    }
+
+
     public DNSRdataTypeMINFO(BigEndianDecoder decoder)
     {
         this.n1 = DNSName.decode(decoder);
@@ -30,8 +40,8 @@ public class DNSRdataTypeMINFO extends DNSRdata
     /** implement the abstract method. */
     public short getDataLength()
     {
-        //for research project, no need for implementation here.
-        return 0;
+        // both names, when they are not compressed.
+        return (short) (this.n1.encodedLength() + this.n2.encodedLength());
     }
 
 
@@ -40,7 +50,8 @@ public class DNSRdataTypeMINFO extends DNSRdata
      * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
     public void encode(BigEndianEncoder encoderV)
     {
-        // Note: No need for implementation for this class.
-        // Our simulation will use Type A resource record only.
+        // RFC1035 allows both names to be compressed.
+        encoderV.encodeName(this.n1);
+        encoderV.encodeName(this.n2);
     }
 }
@@ -1,16 +1,24 @@
 /**
  * This class represents a rdata for resource record with type MX.
  * Type value: 15.
- * One field: a domain name.
+ * Two fields: a 16-bit preference, and a domain name.
  */
 public class DNSRdataTypeMX extends DNSRdata
 {
     // the 16-bit integer which specifies the preference.
     private short reference;
 
+    /** Constructor for encoding purpose:
+     * @param preference - lower values are preferred.
+     * @param exchange - the domain name of the mail exchange. */
+    public DNSRdataTypeMX(short preference, DNSName exchange)
+    {
+        this.reference = preference;
+        this.dnsName = exchange;
+    }
+
     public DNSRdataTypeMX(BigEndianDecoder decoder)
     {
-        // stub
         this.reference = decoder.decodeShort();
         this.dnsName = DNSName.decode(decoder);
     }
@@ -28,8 +36,8 @@ public class DNSRdataTypeMX extends DNSRdata
     /** implement the abstract method. */
     public short getDataLength()
     {
-        //for research project, no need for implementation here.
-        return 0;
+        // the preference, then the name, when it is not compressed.
+        return (short) (2 + this.dnsName.encodedLength());
     }
 
 
@@ -38,7 +46,8 @@ public class DNSRdataTypeMX extends DNSRdata
      * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
     public void encode(BigEndianEncoder encoderV)
     {
-        // Note: No need for implementation for this class.
-        // Our simulation will use Type A resource record only.
+        encoderV.encodeShort(this.reference);
+        // RFC1035 allows the name to be compressed.
+        encoderV.encodeName(this.dnsName);
     }
 }
@@ -7,6 +7,17 @@
 public class DNSRdataTypeMdfbgrPtr extends DNSRdata
 {
 
+    /**
+     * Constructor for encoding purpose:
+     * @param domainName: the domain name in the rdata.
+     */
+    public DNSRdataTypeMdfbgrPtr(DNSName domainName)
+    {
+
+        this.dnsName = domainName;
+    }
+
+
     /**
      * Construct a DNSRdataTypeMdfbgrPtr object
      * @param decoder: the BigEndianDecoder originally
@@ -31,8 +42,8 @@ public class DNSRdataTypeMdfbgrPtr extends DNSRdata
     /** implement the abstract method. */
     public short getDataLength()
     {
-        //for research project, no need for implementation here.
-        return 0;
+        // the domain name, when it is not compressed.
+        return (short) this.dnsName.encodedLength();
     }
 
 
@@ -41,7 +52,7 @@ public class DNSRdataTypeMdfbgrPtr extends DNSRdata
      * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
     public void encode(BigEndianEncoder encoderV)
     {
-        // Note: No need for implementation for this class.
-        // Our simulation will use Type A resource record only.
+        // RFC1035 allows the name to be compressed.
+        encoderV.encodeName(this.dnsName);
     }
 }
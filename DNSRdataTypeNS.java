@@ -6,6 +6,13 @@
 public class DNSRdataTypeNS extends DNSRdata
 {
 
+    /** Constructor for encoding purpose:
+     * @param nsName - the domain name of the name server. */
+    public DNSRdataTypeNS(DNSName nsName)
+    {
+        this.dnsName = nsName;
+    }
+
     // constructor:
     public DNSRdataTypeNS(BigEndianDecoder decoder)
     {
@@ -24,8 +31,8 @@ public class DNSRdataTypeNS extends DNSRdata
     /** implement the abstract method. */
     public short getDataLength()
     {
-        //for research project, no need for implementation here.
-        return 0;
+        // the domain name, when it is not compressed.
+        return (short) this.dnsName.encodedLength();
     }
 
     @Override
@@ -33,7 +40,7 @@ public class DNSRdataTypeNS extends DNSRdata
      * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
     public void encode(BigEndianEncoder encoderV)
     {
-        // Note: No need for implementation for this class.
-        // Our simulation will use Type A resource record only.
+        // RFC1035 allows the name to be compressed.
+        encoderV.encodeName(this.dnsName);
     }
 }
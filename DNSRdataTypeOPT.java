@@ -0,0 +1,139 @@
+import java.util.ArrayList;
+
+/**
+ * This class represents the rdata of the OPT pseudo resource record of
+ * EDNS(0) (RFC6891 6.1.2). Type value: 41.
+ * The rdata is a list of options, each one a 16-bit OPTION-CODE, a 16-bit
+ * OPTION-LENGTH, then OPTION-LENGTH bytes of OPTION-DATA, e.g. a client
+ * subnet or a cookie. The data of each option is kept as it is.
+ *
+ * The other EDNS fields are in the resource record itself: the CLASS is the
+ * UDP payload size of the sender, the TTL has the extended RCODE, the
+ * version and the DO bit. The owner name is the root.
+ */
+public class DNSRdataTypeOPT extends DNSRdata
+{
+    // OPTION-CODE of each option.
+    private ArrayList<Short> codes = new ArrayList<>();
+    // OPTION-DATA of each option.
+    private ArrayList<byte[]> data = new ArrayList<>();
+
+    /** Constructor for encoding purpose:
+     * an OPT rdata with no option, add them with addOption(). */
+    public DNSRdataTypeOPT()
+    {
+    }
+
+
+    /**
+     * Construct a DNSRdataTypeOPT object from the received bytes.
+     * @param decoder: the BigEndianDecoder originally
+     *               from DNSMessage's constructor argument
+     * @param rdLengthV: number of bytes of the rdata.
+     * @throws DNSDecodeException if an option goes past the rdata.
+     */
+    public DNSRdataTypeOPT(BigEndianDecoder decoder, short rdLengthV)
+    {
+        int end = decoder.getOffset() + (rdLengthV & 0xFFFF);
+        while (decoder.getOffset() < end)
+        {
+            int optionOffset = decoder.getOffset();
+            if (optionOffset + 4 > end)
+            {
+                throw new DNSDecodeException(DNSDecodeException.Reason.BAD_RDATA,
+                        optionOffset);
+            }
+            short code = decoder.decodeShort();
+            int length = decoder.decodeShort() & 0xFFFF;
+            if (decoder.getOffset() + length > end)
+            {
+                throw new DNSDecodeException(DNSDecodeException.Reason.BAD_RDATA,
+                        optionOffset);
+            }
+            this.codes.add(code);
+            this.data.add(decoder.decodeBytes(length));
+        }
+    }
+
+
+    /** Helper method:
+     * add an option at the end.
+     * @param code - OPTION-CODE, e.g. 10 for a cookie.
+     * @param optionData - OPTION-DATA, at most 65535 bytes. */
+    public void addOption(int code, byte[] optionData)
+    {
+        this.codes.add((short) code);
+        this.data.add(optionData);
+    }
+
+
+    /** Helper method:
+     * @return number of options. */
+    public int getOptionCount()
+    {
+        return this.codes.size();
+    }
+
+
+    /** Helper method:
+     * @param index - which option, from 0.
+     * @return its OPTION-CODE, 0 - 65535. */
+    public int getOptionCode(int index)
+    {
+        return this.codes.get(index) & 0xFFFF;
+    }
+
+
+    /** Helper method:
+     * @param index - which option, from 0.
+     * @return its OPTION-DATA. */
+    public byte[] getOptionData(int index)
+    {
+        return this.data.get(index);
+    }
+
+
+    @Override
+    public String getInfo()
+    {
+        // like "10:8 12:0", the code and the data length of each option.
+        StringBuilder info = new StringBuilder();
+        for (int i = 0; i < this.codes.size(); i++)
+        {
+            if (i > 0)
+            {
+                info.append(' ');
+            }
+            info.append(this.getOptionCode(i)).append(':')
+                    .append(this.data.get(i).length);
+        }
+        return info.toString();
+    }
+
+
+    @Override
+    /** implement the abstract method. */
+    public short getDataLength()
+    {
+        int length = 0;
+        for (byte[] optionData : this.data)
+        {
+            length += 4 + optionData.length;
+        }
+        return (short) length;
+    }
+
+
+    @Override
+    /** Implementing the interface:
+     * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
+    public void encode(BigEndianEncoder encoderV)
+    {
+        for (int i = 0; i < this.codes.size(); i++)
+        {
+            encoderV.encodeShort(this.codes.get(i));
+            encoderV.encodeShort((short) this.data.get(i).length);
+            encoderV.encodeBytes(this.data.get(i));
+        }
+    }
+}
@@ -0,0 +1,151 @@
+import java.util.Base64;
+
+/**
+ * This class represents a rdata for resource record with type RRSIG.
+ * Type value: 46 (RFC4034 3.1).
+ * The fields: type covered (16 bits), algorithm (8 bits), labels (8 bits),
+ * original TTL, signature expiration, signature inception (32 bits each),
+ * key tag (16 bits), the signer's name, then the signature, which is the
+ * rest of the rdata.
+ *
+ * The signature is not checked here, it is only kept so the record can be
+ * encoded again.
+ */
+public class DNSRdataTypeRRSIG extends DNSRdata
+{
+    private short typeCovered;
+    private byte algorithm;
+    private byte labels;
+    private int originalTtl;
+    // seconds since 1 January 1970 UTC, modulo 2^32 (RFC4034 3.1.5).
+    private int expiration;
+    private int inception;
+    private short keyTag;
+    private byte[] signature;
+
+    /** Constructor for encoding purpose:
+     * @param typeCoveredV - TYPE of the records that are signed.
+     * @param algorithmV - the DNSSEC algorithm number, e.g. 8.
+     * @param labelsV - number of labels of the owner name, without "*".
+     * @param originalTtlV - TTL of the records in the zone.
+     * @param expirationV - the signature is not valid after this time.
+     * @param inceptionV - the signature is not valid before this time.
+     * @param keyTagV - key tag of the DNSKEY that signed.
+     * @param signer - the zone of the DNSKEY that signed.
+     * @param signatureV - the signature. */
+    public DNSRdataTypeRRSIG(short typeCoveredV, byte algorithmV, byte labelsV,
+                             int originalTtlV, int expirationV, int inceptionV,
+                             short keyTagV, DNSName signer, byte[] signatureV)
+    {
+        this.typeCovered = typeCoveredV;
+        this.algorithm = algorithmV;
+        this.labels = labelsV;
+        this.originalTtl = originalTtlV;
+        this.expiration = expirationV;
+        this.inception = inceptionV;
+        this.keyTag = keyTagV;
+        this.dnsName = signer;
+        this.signature = signatureV;
+    }
+
+
+    /**
+     * Construct a DNSRdataTypeRRSIG object from the received bytes.
+     * @param decoder: the BigEndianDecoder originally
+     *               from DNSMessage's constructor argument
+     * @param rdLengthV: number of bytes of the rdata.
+     * @throws DNSDecodeException if the fields go past the rdata.
+     */
+    public DNSRdataTypeRRSIG(BigEndianDecoder decoder, short rdLengthV)
+    {
+        int start = decoder.getOffset();
+        int end = start + (rdLengthV & 0xFFFF);
+        // 18 bytes of fields before the signer's name.
+        if (start + 18 >= end)
+        {
+            throw new DNSDecodeException(DNSDecodeException.Reason.BAD_RDATA, start);
+        }
+        this.typeCovered = decoder.decodeShort();
+        this.algorithm = decoder.decodeByte();
+        this.labels = decoder.decodeByte();
+        this.originalTtl = decoder.decodeInt();
+        this.expiration = decoder.decodeInt();
+        this.inception = decoder.decodeInt();
+        this.keyTag = decoder.decodeShort();
+        this.dnsName = DNSName.decode(decoder);
+        if (decoder.getOffset() > end)
+        {
+            throw new DNSDecodeException(DNSDecodeException.Reason.BAD_RDATA, start);
+        }
+        this.signature = decoder.decodeBytes(end - decoder.getOffset());
+    }
+
+
+    /** Helper method:
+     * @return TYPE of the records that are signed. */
+    public int getTypeCovered()
+    {
+        return this.typeCovered & 0xFFFF;
+    }
+
+
+    /** Helper method:
+     * @return the name of the zone that signed. */
+    public DNSName getSigner()
+    {
+        return this.dnsName;
+    }
+
+
+    /** Helper method:
+     * @return the signature bytes. */
+    public byte[] getSignature()
+    {
+        return this.signature;
+    }
+
+
+    @Override
+    public String getInfo()
+    {
+        // RFC4034 3.2, with the times as numbers of seconds,
+        //  like "A 8 3 3600 1700000000 1690000000 2642 uwo.ca Base64..."
+        RecordType covered = RecordType.getByCode(this.getTypeCovered());
+        return ((covered == RecordType.OTHER) ? "TYPE" + this.getTypeCovered()
+                        : covered.name())
+                + " " + (this.algorithm & 0xFF)
+                + " " + (this.labels & 0xFF)
+                + " " + (this.originalTtl & 0xFFFFFFFFL)
+                + " " + (this.expiration & 0xFFFFFFFFL)
+                + " " + (this.inception & 0xFFFFFFFFL)
+                + " " + (this.keyTag & 0xFFFF)
+                + " " + this.dnsName.getName()
+                + " " + Base64.getEncoder().encodeToString(this.signature);
+    }
+
+
+    @Override
+    /** implement the abstract method. */
+    public short getDataLength()
+    {
+        return (short) (18 + this.dnsName.encodedLength() + this.signature.length);
+    }
+
+
+    @Override
+    /** Implementing the interface:
+     * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
+    public void encode(BigEndianEncoder encoderV)
+    {
+        encoderV.encodeShort(this.typeCovered);
+        encoderV.encodeByte(this.algorithm);
+        encoderV.encodeByte(this.labels);
+        encoderV.encodeInt(this.originalTtl);
+        encoderV.encodeInt(this.expiration);
+        encoderV.encodeInt(this.inception);
+        encoderV.encodeShort(this.keyTag);
+        // RFC4034 3.1.7: the signer's name must not be compressed.
+        encoderV.encodeBytes(this.dnsName.getWireFormat());
+        encoderV.encodeBytes(this.signature);
+    }
+}
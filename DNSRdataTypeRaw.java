@@ -0,0 +1,177 @@
+/**
+ * The rdata of a type this application does not decode, e.g. NULL, WKS,
+ * HINFO, or any TYPE nothing is registered for in RdataCodecs.
+ *
+ * The bytes are kept as they were received (RFC3597 2): the rdata is only
+ * where it is, a (buffer, offset, length) slice of the received bytes.
+ * Decoding it copies nothing, and encoding it again is one array copy, so
+ * a record of any type can be relayed or cached unchanged.
+ *
+ * The slice keeps a reference to the received bytes, not a copy. Like
+ * DNSMessageView, the bytes must not be overwritten (e.g. by receiving
+ * another packet into the same buffer) while the rdata is still used;
+ * call detach() to give the rdata its own copy before that.
+ */
+public class DNSRdataTypeRaw extends DNSRdata
+{
+    // the array the rdata is in.
+    private byte[] buffer;
+    // index in buffer of the first byte of rdata.
+    private int offset;
+    // number of bytes of rdata, RDLENGTH.
+    private int length;
+
+    // hex digits, indexed by the value of a nibble.
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /** Constructor for encoding purpose:
+     * @param data - the rdata bytes, they are not copied. */
+    public DNSRdataTypeRaw(byte[] data)
+    {
+        this(data, 0, data.length);
+    }
+
+
+    /** Constructor for encoding purpose:
+     * @param bufferV - the array the rdata is in, it is not copied.
+     * @param offsetV - index in bufferV of the first byte of rdata.
+     * @param lengthV - number of bytes of rdata, at most 65535. */
+    public DNSRdataTypeRaw(byte[] bufferV, int offsetV, int lengthV)
+    {
+        if (lengthV < 0 || lengthV > 0xFFFF || offsetV < 0
+                || offsetV + lengthV > bufferV.length)
+        {
+            throw new IllegalArgumentException("DNSRdataTypeRaw: " + lengthV
+                    + " bytes at " + offsetV + " are not in the array.");
+        }
+        this.buffer = bufferV;
+        this.offset = offsetV;
+        this.length = lengthV;
+    }
+
+
+    /**
+     * Construct a DNSRdataTypeRaw object over the received bytes,
+     * and move the decoder past them.
+     * @param decoder: the BigEndianDecoder originally
+     *               from DNSMessage's constructor argument
+     * @param rdLengthV: number of bytes of the rdata.
+     */
+    public DNSRdataTypeRaw(BigEndianDecoder decoder, short rdLengthV)
+    {
+        this.length = rdLengthV & 0xFFFF;
+        this.buffer = decoder.getReceivedBuffer();
+        if (this.buffer == null)
+        {
+            // the message is in a direct ByteBuffer, it has no array.
+            this.buffer = decoder.decodeBytes(this.length);
+            this.offset = 0;
+            return;
+        }
+        this.offset = decoder.getArrayIndex(decoder.getOffset());
+        decoder.skip(this.length);
+    }
+
+
+    /** Factory method for encoding purpose:
+     * @param dataStr - the rdata in the generic form of RFC3597 5,
+     *                like "\# 4 0a000001", or "\# 0".
+     * @return a DNSRdataTypeRaw object, or null if dataStr has a wrong format. */
+    static DNSRdata create(String dataStr)
+    {
+        String[] fields = dataStr.trim().split("\\s+");
+        if (fields.length < 2 || !fields[0].equals("\\#"))
+        {
+            System.out.println("DNSRdata: unknown rdata should be \"\\# length hex\".");
+            return null;
+        }
+        try
+        {
+            int lengthV = Integer.parseInt(fields[1]);
+            StringBuilder hex = new StringBuilder();
+            for (int i = 2; i < fields.length; i++)
+            {
+                hex.append(fields[i]);
+            }
+            if (lengthV < 0 || lengthV > 0xFFFF || hex.length() != 2 * lengthV)
+            {
+                System.out.println("DNSRdata: unknown rdata length does not match its hex.");
+                return null;
+            }
+            byte[] data = new byte[lengthV];
+            for (int i = 0; i < lengthV; i++)
+            {
+                int high = Character.digit(hex.charAt(2 * i), 16);
+                int low = Character.digit(hex.charAt(2 * i + 1), 16);
+                if (high < 0 || low < 0)
+                {
+                    System.out.println("DNSRdata: unknown rdata is not hex.");
+                    return null;
+                }
+                data[i] = (byte) ((high << 4) | low);
+            }
+            return new DNSRdataTypeRaw(data);
+        }catch (NumberFormatException n)
+        {
+            System.out.println("DNSRdata: unknown rdata length is not a number.");
+            return null;
+        }
+    }
+
+
+    /** Helper method:
+     * give this rdata its own copy of its bytes, so the received bytes
+     *  can be reused. */
+    public void detach()
+    {
+        this.buffer = java.util.Arrays.copyOfRange(this.buffer, this.offset,
+                this.offset + this.length);
+        this.offset = 0;
+    }
+
+
+    /** Helper method:
+     * @return a new array with the rdata bytes. */
+    public byte[] getBytes()
+    {
+        return java.util.Arrays.copyOfRange(this.buffer, this.offset,
+                this.offset + this.length);
+    }
+
+
+    @Override
+    public String getInfo()
+    {
+        // RFC3597 5, like "\# 4 0a000001"
+        StringBuilder info = new StringBuilder(6 + 2 * this.length);
+        info.append("\\# ").append(this.length);
+        if (this.length > 0)
+        {
+            info.append(' ');
+        }
+        for (int i = this.offset; i < this.offset + this.length; i++)
+        {
+            info.append(HEX_DIGITS[(this.buffer[i] >>> 4) & 0xF])
+                    .append(HEX_DIGITS[this.buffer[i] & 0xF]);
+        }
+        return info.toString();
+    }
+
+
+    @Override
+    /** implement the abstract method. */
+    public short getDataLength()
+    {
+        return (short) this.length;
+    }
+
+
+    @Override
+    /** Implementing the interface:
+     * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
+    public void encode(BigEndianEncoder encoderV)
+    {
+        // the bytes as they were received, in one copy.
+        encoderV.encodeBytes(this.buffer, this.offset, this.length);
+    }
+}
@@ -1,10 +1,11 @@
 /**
  * Represent a DNS ResourceRecord type SOA's rdata.
  * Type value: 6.
- * It has two domain name inside, plus 20 bytes of data.
+ * It has two domain name inside, plus 20 bytes of data:
+ * SERIAL, REFRESH, RETRY, EXPIRE and MINIMUM, each a 32-bit integer.
  *
  * We need to decode the two domain name and store them in decoder,
- * And skipp the 20 bytes of data.
+ * the 20 bytes are kept too, so the rdata can be encoded again.
  */
 public class DNSRdataTypeSOA extends DNSRdata {
 
@@ -12,17 +13,45 @@ public class DNSRdataTypeSOA extends DNSRdata {
     private DNSName nmNAME;
     private DNSName rnNAME;
 
+    // the five 32-bit fields after the two names.
+    private int serial;
+    private int refresh;
+    private int retry;
+    private int expire;
+    private int minimum;
+
+    /** Constructor for encoding purpose:
+     * @param mName - the name server that is the primary source of the zone.
+     * @param rName - the mailbox of the person responsible for the zone.
+     * @param serialV - version number of the zone.
+     * @param refreshV - seconds before the zone should be refreshed.
+     * @param retryV - seconds before a failed refresh should be retried.
+     * @param expireV - seconds before the zone is no longer authoritative.
+     * @param minimumV - minimum TTL of any RR from this zone. */
+    public DNSRdataTypeSOA(DNSName mName, DNSName rName, int serialV,
+                           int refreshV, int retryV, int expireV, int minimumV)
+    {
+        this.nmNAME = mName;
+        this.rnNAME = rName;
+        this.serial = serialV;
+        this.refresh = refreshV;
+        this.retry = retryV;
+        this.expire = expireV;
+        this.minimum = minimumV;
+    }
+
     public DNSRdataTypeSOA(BigEndianDecoder decoder)
     {
-        // stub
-        // TODO: check
         // This should not be skipped, caused the domain names here might
         // be pointed by other name pointers
         this.nmNAME = DNSName.decode(decoder);
         this.rnNAME = DNSName.decode(decoder);
 
-        // recheck if the skip process is correct
-        decoder.skip(20);
+        this.serial = decoder.decodeInt();
+        this.refresh = decoder.decodeInt();
+        this.retry = decoder.decodeInt();
+        this.expire = decoder.decodeInt();
+        this.minimum = decoder.decodeInt();
     }
 
 
@@ -38,8 +67,9 @@ public class DNSRdataTypeSOA extends DNSRdata {
     /** implement the abstract method. */
     public short getDataLength()
     {
-        //for research project, no need for implementation here.
-        return 0;
+        // both names, when they are not compressed, then 5 integers.
+        return (short) (this.nmNAME.encodedLength()
+                + this.rnNAME.encodedLength() + 20);
     }
 
 
@@ -48,7 +78,13 @@ public class DNSRdataTypeSOA extends DNSRdata {
      * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
     public void encode(BigEndianEncoder encoderV)
     {
-        // Note: No need for implementation for this class.
-        // Our simulation will use Type A resource record only.
+        // RFC1035 allows both names to be compressed.
+        encoderV.encodeName(this.nmNAME);
+        encoderV.encodeName(this.rnNAME);
+        encoderV.encodeInt(this.serial);
+        encoderV.encodeInt(this.refresh);
+        encoderV.encodeInt(this.retry);
+        encoderV.encodeInt(this.expire);
+        encoderV.encodeInt(this.minimum);
     }
 }
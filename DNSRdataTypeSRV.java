@@ -0,0 +1,121 @@
+/**
+ * This class represents a rdata for resource record with type SRV.
+ * Type value: 33 (RFC2782).
+ * Four fields: a 16-bit priority, a 16-bit weight, a 16-bit port,
+ * and the domain name of the target host.
+ */
+public class DNSRdataTypeSRV extends DNSRdata
+{
+    // lower values are tried first.
+    private short priority;
+    // relative weight of targets with the same priority.
+    private short weight;
+    // the port of the service on the target.
+    private short port;
+
+    /** Constructor for encoding purpose:
+     * @param priorityV - lower values are tried first.
+     * @param weightV - relative weight of targets with the same priority.
+     * @param portV - the port of the service on the target.
+     * @param target - the domain name of the target host. */
+    public DNSRdataTypeSRV(short priorityV, short weightV, short portV,
+                           DNSName target)
+    {
+        this.priority = priorityV;
+        this.weight = weightV;
+        this.port = portV;
+        this.dnsName = target;
+    }
+
+
+    // constructor:
+    // decode the three integers, then the target.
+    public DNSRdataTypeSRV(BigEndianDecoder decoder)
+    {
+        this.priority = decoder.decodeShort();
+        this.weight = decoder.decodeShort();
+        this.port = decoder.decodeShort();
+        // RFC2782 says the target is not compressed, but decoding
+        //  a compressed one costs nothing more.
+        this.dnsName = DNSName.decode(decoder);
+    }
+
+
+    /** Factory method for encoding purpose:
+     * @param dataStr - like "10 5 5060 sip.uwo.ca"
+     * @return a DNSRdataTypeSRV object, or null if dataStr has a wrong format. */
+    static DNSRdata create(String dataStr)
+    {
+        String[] fields = dataStr.trim().split(" +");
+        if (fields.length != 4)
+        {
+            System.out.println("DNSRdata: SRV data should be \"priority weight port target\".");
+            return null;
+        }
+        try
+        {
+            return new DNSRdataTypeSRV((short) Integer.parseInt(fields[0]),
+                    (short) Integer.parseInt(fields[1]),
+                    (short) Integer.parseInt(fields[2]),
+                    new DNSLabels(fields[3]));
+        }catch (NumberFormatException n)
+        {
+            System.out.println("DNSRdata: SRV priority, weight or port is not a number.");
+            return null;
+        }
+    }
+
+
+    /** Helper method:
+     * @return the port of the service, 0 - 65535. */
+    public int getPort()
+    {
+        return this.port & 0xFFFF;
+    }
+
+
+    /** Helper method:
+     * @return the priority of the target, 0 - 65535. */
+    public int getPriority()
+    {
+        return this.priority & 0xFFFF;
+    }
+
+
+    /** Helper method:
+     * @return the weight of the target, 0 - 65535. */
+    public int getWeight()
+    {
+        return this.weight & 0xFFFF;
+    }
+
+
+    @Override
+    public String getInfo()
+    {
+        // like "10 5 5060 sip.uwo.ca"
+        return this.getPriority() + " " + this.getWeight() + " "
+                + this.getPort() + " " + this.dnsName.getName();
+    }
+
+
+    @Override
+    /** implement the abstract method. */
+    public short getDataLength()
+    {
+        return (short) (6 + this.dnsName.encodedLength());
+    }
+
+
+    @Override
+    /** Implementing the interface:
+     * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
+    public void encode(BigEndianEncoder encoderV)
+    {
+        encoderV.encodeShort(this.priority);
+        encoderV.encodeShort(this.weight);
+        encoderV.encodeShort(this.port);
+        // RFC2782: the target must not be compressed.
+        encoderV.encodeBytes(this.dnsName.getWireFormat());
+    }
+}
@@ -0,0 +1,133 @@
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+/**
+ * This class represents a rdata for resource record with type TXT.
+ * Type value: 16.
+ * One or more <character-string>s (RFC1035 3.3.14): a length byte,
+ * then that many bytes of text. The bytes are kept as they are, so the
+ * rdata is encoded again exactly as it was received.
+ */
+public class DNSRdataTypeTXT extends DNSRdata
+{
+    // the bytes of each <character-string>, at most 255 each.
+    private byte[][] strings;
+
+    /** Constructor for encoding purpose:
+     * @param text - the text, in UTF-8. A text longer than 255 bytes
+     *             is split into <character-string>s of 255 bytes. */
+    public DNSRdataTypeTXT(String text)
+    {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        int count = Math.max(1, (bytes.length + 254) / 255);
+        this.strings = new byte[count][];
+        for (int i = 0; i < count; i++)
+        {
+            int from = i * 255;
+            int to = Math.min(bytes.length, from + 255);
+            this.strings[i] = java.util.Arrays.copyOfRange(bytes, from, to);
+        }
+    }
+
+
+    /** Constructor for encoding purpose:
+     * @param stringsV - the bytes of each <character-string>, at most 255. */
+    public DNSRdataTypeTXT(byte[][] stringsV)
+    {
+        for (byte[] string : stringsV)
+        {
+            if (string.length > 255)
+            {
+                throw new IllegalArgumentException("DNSRdataTypeTXT: a string has "
+                        + string.length + " bytes, at most 255.");
+            }
+        }
+        this.strings = stringsV;
+    }
+
+
+    /**
+     * Construct a DNSRdataTypeTXT object from the received bytes.
+     * @param decoder: the BigEndianDecoder originally
+     *               from DNSMessage's constructor argument
+     * @param rdLengthV: number of bytes of the rdata.
+     * @throws DNSDecodeException if a string goes past the rdata.
+     */
+    public DNSRdataTypeTXT(BigEndianDecoder decoder, short rdLengthV)
+    {
+        int end = decoder.getOffset() + (rdLengthV & 0xFFFF);
+        ArrayList<byte[]> list = new ArrayList<>(1);
+        while (decoder.getOffset() < end)
+        {
+            int lengthOffset = decoder.getOffset();
+            int length = decoder.decodeByte() & 0xFF;
+            if (decoder.getOffset() + length > end)
+            {
+                throw new DNSDecodeException(DNSDecodeException.Reason.BAD_RDATA,
+                        lengthOffset);
+            }
+            list.add(decoder.decodeBytes(length));
+        }
+        this.strings = list.toArray(new byte[0][]);
+    }
+
+
+    /** Helper method:
+     * @return number of <character-string>s. */
+    public int getStringCount()
+    {
+        return this.strings.length;
+    }
+
+
+    /** Helper method:
+     * @param index - which <character-string>, from 0.
+     * @return its text, in UTF-8. */
+    public String getString(int index)
+    {
+        return new String(this.strings[index], StandardCharsets.UTF_8);
+    }
+
+
+    @Override
+    public String getInfo()
+    {
+        // like "v=spf1 -all" "second string"
+        StringBuilder info = new StringBuilder();
+        for (int i = 0; i < this.strings.length; i++)
+        {
+            if (i > 0)
+            {
+                info.append(' ');
+            }
+            info.append('"').append(this.getString(i)).append('"');
+        }
+        return info.toString();
+    }
+
+
+    @Override
+    /** implement the abstract method. */
+    public short getDataLength()
+    {
+        int length = 0;
+        for (byte[] string : this.strings)
+        {
+            length += 1 + string.length;
+        }
+        return (short) length;
+    }
+
+
+    @Override
+    /** Implementing the interface:
+     * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
+    public void encode(BigEndianEncoder encoderV)
+    {
+        for (byte[] string : this.strings)
+        {
+            encoderV.encodeByte((byte) string.length);
+            encoderV.encodeBytes(string);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * DNSRecordRange is a view of the records of one (name, TYPE) in a
+ * DNSResourceRecords, e.g. the 10 A records of www.uwo.ca in an answer
+ * section. It is what DNSResourceRecords.lookup() returns.
+ *
+ * The view holds no records of its own: it is a range of the index the
+ * section builds, see DNSResourceRecords. Each section has one view that
+ * every lookup() resets, so a lookup allocates nothing; the view is only
+ * valid until the next lookup() on the same section. Copy what should be
+ * kept, e.g. with toInfoArray().
+ */
+public class DNSRecordRange implements Iterable<DNSResourceRecord>
+{
+    // the records of the section, and their indexes grouped by (name, TYPE).
+    private List<DNSResourceRecord> records;
+    private int[] order;
+    // the range of order this view shows.
+    private int start;
+    private int end;
+
+    /** Constructor:
+     * an empty view, for DNSResourceRecords. */
+    DNSRecordRange()
+    {
+        this.order = new int[0];
+    }
+
+
+    /** Helper method:
+     * show another range.
+     * @param recordsV - the records of the section.
+     * @param orderV - indexes in recordsV, grouped by (name, TYPE).
+     * @param startV - index in orderV of the first record of the range.
+     * @param endV - index in orderV right after the last one. */
+    void reset(List<DNSResourceRecord> recordsV, int[] orderV, int startV, int endV)
+    {
+        this.records = recordsV;
+        this.order = orderV;
+        this.start = startV;
+        this.end = endV;
+    }
+
+
+    /** Helper method:
+     * @return number of records in the range, 0 if none matched. */
+    public int size()
+    {
+        return this.end - this.start;
+    }
+
+
+    /** Helper method:
+     * @return true if no record matched. */
+    public boolean isEmpty()
+    {
+        return this.end == this.start;
+    }
+
+
+    /** Helper method:
+     * @param i - index in the range, in the order of the section.
+     * @return record i of the range. */
+    public DNSResourceRecord get(int i)
+    {
+        if (i < 0 || i >= this.size())
+        {
+            throw new IndexOutOfBoundsException(i);
+        }
+        return this.records.get(this.order[this.start + i]);
+    }
+
+
+    /** Helper method:
+     * @param i - index in the range.
+     * @return the rdata of record i, e.g. a DNSRdataTypeA. */
+    public DNSRdata getRdata(int i)
+    {
+        return this.get(i).getRdata();
+    }
+
+
+    /** Helper method:
+     * @param i - index in the range.
+     * @return the rdata of record i in String format, e.g. "10.0.0.1". */
+    public String getRdataInfo(int i)
+    {
+        return this.get(i).getRdataInfo();
+    }
+
+
+    /** Helper method:
+     * copy the rdata of the range in String format, e.g. for
+     *  DNSMessage.retrieveDNSAnswers().
+     * @return a new array, one String per record. */
+    public String[] toInfoArray()
+    {
+        String[] strings = new String[this.size()];
+        for (int i = 0; i < strings.length; i++)
+        {
+            strings[i] = this.getRdataInfo(i);
+        }
+        return strings;
+    }
+
+
+    @Override
+    public Iterator<DNSResourceRecord> iterator()
+    {
+        return new Iterator<DNSResourceRecord>()
+        {
+            // index in the range of the next record.
+            private int next = 0;
+
+            @Override
+            public boolean hasNext()
+            {
+                return this.next < DNSRecordRange.this.size();
+            }
+
+            @Override
+            public DNSResourceRecord next()
+            {
+                if (!this.hasNext())
+                {
+                    throw new NoSuchElementException();
+                }
+                this.next += 1;
+                return DNSRecordRange.this.get(this.next - 1);
+            }
+        };
+    }
+}
@@ -39,9 +39,17 @@ public class DNSResourceRecord implements Encodable
     public DNSResourceRecord (String rname, RecordType type,
                               short rrclass, int TTL, String dataStr)
     {
-        // TODO: check
-        // For our project, our server will not use name compression.
-        this.dnsName = new DNSLabels(rname);
+        this(new DNSLabels(rname), type, rrclass, TTL, dataStr);
+    }
+
+
+    /** Constructor for encoding purpose.
+     * Create a DNSResourceRecord object for a domain name created before,
+     *  e.g. the name in the query's question. */
+    public DNSResourceRecord (DNSName rname, RecordType type,
+                              short rrclass, int TTL, String dataStr)
+    {
+        this.dnsName = rname;
         this.type = (short)type.getCode();
         this.recordType = RecordType.getByCode(this.type & 0xFFFF);
         this.RRclass = rrclass;
@@ -61,6 +69,32 @@ public class DNSResourceRecord implements Encodable
     }
 
 
+    /** Constructor for encoding purpose.
+     * Create a DNSResourceRecord object with rdata created before,
+     *  e.g. a DNSRdataTypeA holding a packed IPv4 address. */
+    public DNSResourceRecord (DNSName rname, RecordType type,
+                              short rrclass, int TTL, DNSRdata rdataV)
+    {
+        this(rname, (short) type.getCode(), rrclass, TTL, rdataV);
+    }
+
+
+    /** Constructor for encoding purpose.
+     * Same as above, for types RecordType does not list, e.g. PTR (12).
+     * @param type - the 16-bit TYPE code. */
+    public DNSResourceRecord (DNSName rname, short type,
+                              short rrclass, int TTL, DNSRdata rdataV)
+    {
+        this.dnsName = rname;
+        this.type = type;
+        this.recordType = RecordType.getByCode(this.type & 0xFFFF);
+        this.RRclass = rrclass;
+        this.TTL = TTL;
+        this.rdata = rdataV;
+        this.rdLength = this.rdata.getDataLength();
+    }
+
+
     /** Constructor for decoding purpose.
      *  @param decoder: the BigEndianDecoder to decode a DNSResourceRecord. */
     public DNSResourceRecord (BigEndianDecoder decoder)
@@ -89,6 +123,38 @@ public class DNSResourceRecord implements Encodable
         return this.dnsName.getName();
     }
 
+    /** Helper method:
+     * get the DNSName object of the resource record's name. */
+    public DNSName getDnsName()
+    {
+
+        return this.dnsName;
+    }
+
+    /** Helper method:
+     * @return the 16-bit TYPE code, also for types RecordType does not list. */
+    public short getType()
+    {
+
+        return this.type;
+    }
+
+    /** Helper method:
+     * @return the CLASS code, 1 (IN) for internet records. */
+    public short getRRClass()
+    {
+
+        return this.RRclass;
+    }
+
+    /** Helper method:
+     * @return the TTL in seconds. */
+    public int getTTL()
+    {
+
+        return this.TTL;
+    }
+
     /** Helper method:
      * get record type from resource record. */
     public RecordType getRecordType()
@@ -104,6 +170,15 @@ public class DNSResourceRecord implements Encodable
         return this.rdata.getInfo();
     }
 
+    /** Helper method: get the rdata object of this resource record.
+     * If the rdata was skipped when decoding (see DNSRdataLazy),
+     *  it is decoded now. */
+    public DNSRdata getRdata()
+    {
+
+        return (this.rdata == null) ? null : this.rdata.resolve();
+    }
+
     /** Helper method:
      * to print this resource record. */
     public void printResourceRecord()
@@ -117,25 +192,44 @@ public class DNSResourceRecord implements Encodable
     }
 
 
+    @Override
+    /** Implementing the interface:
+     * @return length of name, type, class, ttl, rdLength and rdata. */
+    public int encodedLength()
+    {
+        int rdataLength = 0;
+        if (this.rdata != null)
+        {
+            rdataLength = this.rdata.encodedLength();
+        }
+        // type(2) + class(2) + ttl(4) + rdLength(2) = 10 bytes.
+        return this.dnsName.encodedLength() + 10 + rdataLength;
+    }
+
+
     @Override
     /** Implementing the interface:
      * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
     public void encode(BigEndianEncoder encoderV)
     {
-        // I am not sure the encode() in DNSName is safe to use
-        // So just use the old method...
-        String questionName = this.dnsName.getName();
-        encoderV.encodeName(questionName);
+        // the encoder compresses the name, if it appeared before.
+        encoderV.encodeName(this.dnsName);
         // now encode type, class, ttl.
         encoderV.encodeShort(this.type);
         encoderV.encodeShort(this.RRclass);
         encoderV.encodeInt(this.TTL);
 
-        // now we need to encode the data length
-        // Note: rdLength must be known before encoding rdata.
-        encoderV.encodeShort(this.rdLength);
+        // names in rdata may be compressed, so the length is only
+        //  known after the rdata is encoded: leave room for RDLENGTH,
+        //  encode the rdata, then go back and fill RDLENGTH in.
+        int rdLengthOffset = encoderV.reserveShort();
         // now we need to call rdata's encoding method:
-        this.rdata.encode(encoderV);
+        if (this.rdata != null)
+        {
+            this.rdata.encode(encoderV);
+        }
+        int encodedLength = encoderV.position() - rdLengthOffset - 2;
+        encoderV.patchShort(rdLengthOffset, (short) encodedLength);
     }
 
     /**
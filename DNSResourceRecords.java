@@ -1,4 +1,5 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 
@@ -6,14 +7,41 @@ import java.util.List;
  * DNSResourceRecords can be used to specify a list of DNSResourceRecords
  * in Answer, Authority or Additional section of the response DNSMessage
  * from a server.
+ *
+ * lookup() finds the records of a (name, TYPE) through an index, built the
+ * first time it is called and dropped when a record is added:
+ *      order        - the indexes of the records, grouped by (name, TYPE),
+ *                     in the order of the section inside each group.
+ *      groupStarts  - where each group starts in order (one more entry for
+ *                     the end of the last group).
+ *      groupFirsts  - index of the first record of each group, to compare
+ *                     with the (name, TYPE) looked for.
+ *      slots        - hash table, open addressing: group + 1, 0 if empty.
+ * So a lookup is one hash of the name (cached in DNSName) and usually one
+ * compare, whatever the number of records, and it returns a DNSRecordRange
+ * the section reuses. Like the rest of a DNSMessage, it is not thread-safe.
  */
 public class DNSResourceRecords implements Iterable<DNSResourceRecord>, Encodable
 {
+    // the shortest resource record: the root name (1 byte), type, class,
+    //  ttl and rdLength (10 bytes), and no rdata.
+    public static final int MIN_RECORD_LENGTH = 11;
+
     private List<DNSResourceRecord> records;
     // this field is used for counting the number of
     // DNSResourceRecord that should be decoded
     private int recordCount;
 
+    // the (name, TYPE) index, see lookup(); null until it is built.
+    private int[] order;
+    private int[] groupStarts;
+    private int[] groupFirsts;
+    private int[] slots;
+    // the view lookup() resets and returns.
+    private DNSRecordRange range;
+    // the indexes of the records a lookup of RecordType.OTHER matched.
+    private int[] otherOrder;
+
     /** Constructor for encoding purpose.
      * this constructor will only initialize the list.
      * We will use other method to add DNSResourceRecord,
@@ -34,8 +62,16 @@ public class DNSResourceRecords implements Iterable<DNSResourceRecord>, Encodabl
      */
     public DNSResourceRecords(BigEndianDecoder decoder, int count)
     {
+        // a record is at least MIN_RECORD_LENGTH bytes, do not trust
+        //  a count the rest of the message can't hold.
+        int remaining = decoder.getLength() - decoder.getOffset();
+        if (count < 0 || count > remaining / MIN_RECORD_LENGTH)
+        {
+            throw new DNSDecodeException(DNSDecodeException.Reason.BAD_COUNT,
+                    decoder.getOffset());
+        }
 
-        this.records = new ArrayList<>();
+        this.records = new ArrayList<>(count);
         this.recordCount = count;
 
         // in the for loop generate new ResourceRecord,
@@ -56,6 +92,8 @@ public class DNSResourceRecords implements Iterable<DNSResourceRecord>, Encodabl
     {
         this.records.add(resourceRecord);
         this.recordCount = this.records.size();
+        // the index is built again by the next lookup().
+        this.slots = null;
     }
 
     /** Helper method:
@@ -77,29 +115,217 @@ public class DNSResourceRecords implements Iterable<DNSResourceRecord>, Encodabl
      * @param qtype record type query looks for*/
     public String[] getIPsOfName(String qName, RecordType qtype)
     {
-        List<String> stringList = new ArrayList<>();
-        for (DNSResourceRecord record : this.records)
+
+        return this.getIPsOfName(new DNSLabels(qName), qtype);
+    }
+
+
+    /** Helper method:
+     * same as above, the records are found through the index of lookup():
+     *  names compared in wire format, upper/lower case ignored.
+     * @param qName domain name query looks for
+     * @param qtype record type query looks for, OTHER for every TYPE
+     *          RecordType does not list
+     * @return a new array; lookup() gives the same without one. */
+    public String[] getIPsOfName(DNSName qName, RecordType qtype)
+    {
+        return this.lookup(qName, qtype).toInfoArray();
+    }
+
+    /** Helper method:
+     * loop through all the type A resource records, if any one
+     *  contains an IPv4 address of the domain name we are
+     *  asking for, put it in the array.
+     * @param qName domain name query looks for
+     * @return the IPv4 addresses as packed int, see DNSRdataTypeA. */
+    public int[] getIPv4sOfName(String qName)
+    {
+
+        return this.getIPv4sOfName(new DNSLabels(qName));
+    }
+
+
+    /** Helper method:
+     * same as above, the records are found through the index of lookup(),
+     *  names compared upper/lower case ignored.
+     * @param qName domain name query looks for
+     * @return the IPv4 addresses as packed int, see DNSRdataTypeA. */
+    public int[] getIPv4sOfName(DNSName qName)
+    {
+        DNSRecordRange matches = this.lookup(qName, RecordType.A);
+        int[] addresses = new int[matches.size()];
+        int count = 0;
+        for (int i = 0; i < matches.size(); i++)
         {
-            String domainName = record.getDomainName();
-            RecordType rType = record.getRecordType();
-            if (domainName.equals(qName) &&
-                    (rType.getCode() == qtype.getCode()))
+            if (matches.getRdata(i) instanceof DNSRdataTypeA)
             {
-                // record type and domain name matche,
-                // rdata should be an IPv4 address.
-                String expectedData = record.getRdataInfo();
-                stringList.add(expectedData);
+                addresses[count] = ((DNSRdataTypeA) matches.getRdata(i)).getAddress();
+                count += 1;
             }
         }
 
-        int count = stringList.size();
-        String[] strings = new String[count];
+        return (count == addresses.length) ? addresses : Arrays.copyOf(addresses, count);
+    }
+
+
+    /** Helper method:
+     * find the records of a domain name and a TYPE, through the index.
+     * RecordType.OTHER matches the records of every type RecordType does
+     *  not list (as RecordType.getByCode() maps them all to OTHER); those
+     *  are found by a scan, not the index.
+     * @param qName domain name query looks for
+     * @param qtype record type query looks for
+     * @return the matching records, in the order of the section; the view
+     *          is reused by the next lookup(), see DNSRecordRange. */
+    public DNSRecordRange lookup(DNSName qName, RecordType qtype)
+    {
+        if (qtype != RecordType.OTHER)
+        {
+            return this.lookup(qName, (short) qtype.getCode());
+        }
+
+        if (this.range == null)
+        {
+            this.range = new DNSRecordRange();
+        }
+        if (this.otherOrder == null || this.otherOrder.length < this.records.size())
+        {
+            this.otherOrder = new int[this.records.size()];
+        }
+        int count = 0;
+        for (int i = 0; i < this.records.size(); i++)
+        {
+            DNSResourceRecord record = this.records.get(i);
+            if (record.getRecordType() == RecordType.OTHER
+                    && record.getDnsName().equals(qName))
+            {
+                this.otherOrder[count] = i;
+                count += 1;
+            }
+        }
+        this.range.reset(this.records, this.otherOrder, 0, count);
+        return this.range;
+    }
+
+
+    /** Helper method:
+     * same as above, for types RecordType does not list, e.g. PTR (12).
+     * @param qName domain name query looks for
+     * @param qtype the 16-bit TYPE code. */
+    public DNSRecordRange lookup(DNSName qName, short qtype)
+    {
+        if (this.range == null)
+        {
+            this.range = new DNSRecordRange();
+        }
+        if (this.slots == null)
+        {
+            this.buildIndex();
+        }
+
+        int mask = this.slots.length - 1;
+        for (int slot = DNSResourceRecords.keyHash(qName, qtype) & mask; ;
+             slot = (slot + 1) & mask)
+        {
+            int group = this.slots[slot] - 1;
+            if (group < 0)
+            {
+                // no record of this name and type.
+                this.range.reset(this.records, this.order, 0, 0);
+                return this.range;
+            }
+            DNSResourceRecord first = this.records.get(this.groupFirsts[group]);
+            if (first.getType() == qtype && first.getDnsName().equals(qName))
+            {
+                this.range.reset(this.records, this.order,
+                        this.groupStarts[group], this.groupStarts[group + 1]);
+                return this.range;
+            }
+        }
+    }
+
+
+    /** Helper method:
+     * build the (name, TYPE) index of lookup(): put each record in the
+     *  group of its key, then sort the record indexes by group (counting
+     *  sort, so the section's order is kept inside a group). */
+    private void buildIndex()
+    {
+        int count = this.records.size();
+        // at most half full, so probing stops soon.
+        int size = Integer.highestOneBit(Math.max(count, 1)) << 2;
+        int mask = size - 1;
+        int[] slotsV = new int[size];
+        int[] firsts = new int[count];
+        int[] groupOf = new int[count];
+        int[] starts = new int[count + 1];
+        int groups = 0;
+
         for (int i = 0; i < count; i++)
         {
-            strings[i] = stringList.get(i);
+            DNSResourceRecord record = this.records.get(i);
+            int slot = DNSResourceRecords.keyHash(record.getDnsName(), record.getType()) & mask;
+            while (true)
+            {
+                int group = slotsV[slot] - 1;
+                if (group < 0)
+                {
+                    // first record of this name and type.
+                    slotsV[slot] = groups + 1;
+                    firsts[groups] = i;
+                    groupOf[i] = groups;
+                    groups += 1;
+                    break;
+                }
+                DNSResourceRecord first = this.records.get(firsts[group]);
+                if (first.getType() == record.getType()
+                        && first.getDnsName().equals(record.getDnsName()))
+                {
+                    groupOf[i] = group;
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+            // count the records of each group, shifted by one.
+            starts[groupOf[i] + 1] += 1;
         }
 
-        return strings;
+        for (int g = 0; g < groups; g++)
+        {
+            starts[g + 1] += starts[g];
+        }
+        int[] orderV = new int[count];
+        int[] next = Arrays.copyOf(starts, groups);
+        for (int i = 0; i < count; i++)
+        {
+            orderV[next[groupOf[i]]] = i;
+            next[groupOf[i]] += 1;
+        }
+
+        this.order = orderV;
+        this.groupStarts = starts;
+        this.groupFirsts = firsts;
+        this.slots = slotsV;
+    }
+
+
+    /** Helper method:
+     * @return the hash of a (name, TYPE) key of the index, names in upper
+     *          and lower case have the same one. */
+    private static int keyHash(DNSName name, short type)
+    {
+        int h = name.hashCode() * 31 + (type & 0xFFFF);
+        // mix the high bits in, only the low ones pick the slot.
+        return h ^ (h >>> 16);
+    }
+
+    /** Helper method:
+     * copy the records into a CompactResourceRecords, which takes much less
+     *  memory, e.g. before the records are cached.
+     * @return the records, in the same order. */
+    public CompactResourceRecords compact()
+    {
+        return new CompactResourceRecords(this);
     }
 
     /** Helper method:
@@ -148,6 +374,20 @@ public class DNSResourceRecords implements Iterable<DNSResourceRecord>, Encodabl
     }
 
 
+    @Override
+    /** Implementing the interface:
+     * @return total length of all resource records in the list. */
+    public int encodedLength()
+    {
+        int length = 0;
+        for (DNSResourceRecord record : this.records)
+        {
+            length += record.encodedLength();
+        }
+        return length;
+    }
+
+
     @Override
     /** Implementing the interface:
      * @param encoderV: the BigEndianEncoder inside DNSMessage object. */
@@ -1,3 +1,5 @@
+import java.nio.ByteBuffer;
+
 /**
  * An object that can be encoded to a component of a dns query.
  *
@@ -10,6 +12,17 @@
  * By using the methods provided by encoderV object, the classes that
  * implement this Interface does not need to worry about details of
  * converting data into bytes, and store in proper order and format.
+ *
+ * The encodeInto() methods are built on top of encode(), they write the
+ * bytes straight into a buffer supplied by the caller, e.g. the buffer of
+ * a DatagramPacket that is reused for every message we send. They encode
+ * with the encoder CodecPool keeps for the thread, so nothing is allocated
+ * for each message.
+ *
+ * encodedLength() tells the size of the encoded bytes before encoding, so
+ * the caller can size its buffer once. Domain names are counted without
+ * compression: the length is exact for an encoder with compression off,
+ * and the most bytes encode() can write when compression is on.
  */
 public interface Encodable
 {
@@ -19,4 +32,59 @@ public interface Encodable
      *                private variable in DNSMessage.
      */
     void encode(BigEndianEncoder encoderV);
+
+
+    /**
+     * Compute the number of bytes encode() will write, without encoding.
+     * @return the encoded length, counting every domain name uncompressed.
+     */
+    int encodedLength();
+
+
+    /**
+     * Encode this object into the caller's array.
+     * @param buffer: the array to encode into.
+     * @param offset: index in buffer where the first byte will be written.
+     * @return the number of bytes written.
+     * @throws java.nio.BufferOverflowException if buffer is too small.
+     */
+    default int encodeInto(byte[] buffer, int offset)
+    {
+        BigEndianEncoder encoderV = CodecPool.encoder(buffer, offset,
+                buffer.length - offset);
+        this.encode(encoderV);
+        return encoderV.position();
+    }
+
+
+    /**
+     * Encode this object into the caller's ByteBuffer, starting at its
+     * position. The position is moved past the written bytes.
+     * A heap ByteBuffer is written directly; a direct ByteBuffer
+     * receives one bulk copy of the bytes, encoded in the array of the
+     * thread's pooled encoder.
+     * @param buffer: the ByteBuffer to encode into.
+     * @return the number of bytes written.
+     * @throws java.nio.BufferOverflowException if buffer has not enough room.
+     */
+    default int encodeInto(ByteBuffer buffer)
+    {
+        int length;
+        if (buffer.hasArray())
+        {
+            int offset = buffer.arrayOffset() + buffer.position();
+            BigEndianEncoder encoderV = CodecPool.encoder(buffer.array(),
+                    offset, buffer.remaining());
+            this.encode(encoderV);
+            length = encoderV.position();
+            buffer.position(buffer.position() + length);
+            return length;
+        }
+
+        BigEndianEncoder encoderV = CodecPool.encoder();
+        this.encode(encoderV);
+        length = encoderV.position();
+        buffer.put(encoderV.getBuffer(), encoderV.getStartOffset(), length);
+        return length;
+    }
 }
@@ -0,0 +1,126 @@
+import com.sun.management.HotSpotDiagnosticMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * NameScanner does the work on the bytes of domain names that looks at
+ * every byte the same way: comparing two names ignoring upper/lower case,
+ * and computing the case-insensitive hash of a name (the one
+ * DNSName.hashCode() returns).
+ *
+ * There are two implementations:
+ *  - ScalarNameScanner, one byte at a time, always available;
+ *  - VectorNameScanner, 16/32/64 bytes at a time with the Vector API
+ *    (jdk.incubator.vector). It is in vector/, and is only compiled by
+ *    "make vector", because the module is not in every JDK.
+ *
+ * The implementation is chosen once, the first time get() is called: the
+ * vector one if its class is there and the JVM was started with
+ *      java --add-modules jdk.incubator.vector ...
+ * otherwise the scalar one. "-Ddns.vector=false" always uses the scalar one.
+ * On x86 without AVX (-XX:UseAVX=0, or an SSE-only CPU) the JIT of JDK 17
+ * does not compile compares of byte vectors, the vector code would run as
+ * plain Java, many times slower than the scalar loop: the scalar one is
+ * used there too. With 128-bit vectors otherwise (AVX, NEON, or
+ * -XX:MaxVectorSize=16) the vector one works 16 bytes at a time.
+ *
+ * Walking the length bytes of the labels (BigEndianDecoder.checkName(),
+ * DNSLabels) is not done here: where a label starts depends on the length
+ * byte before it, so it is one byte at a time anyway.
+ */
+public abstract class NameScanner
+{
+    // name of the class of the vector implementation.
+    private static final String VECTOR_CLASS = "VectorNameScanner";
+
+    // the implementation chosen at startup.
+    private static final NameScanner SELECTED = NameScanner.select();
+
+    /** Static method:
+     * @return the implementation chosen at startup. */
+    public static NameScanner get()
+    {
+        return SELECTED;
+    }
+
+
+    /** Static method:
+     * choose the implementation: the vector one when it can be loaded,
+     *  otherwise the scalar one.
+     * @return the chosen implementation. */
+    private static NameScanner select()
+    {
+        if (!Boolean.parseBoolean(System.getProperty("dns.vector", "true")))
+        {
+            return new ScalarNameScanner();
+        }
+        try
+        {
+            NameScanner scanner = (NameScanner) Class.forName(VECTOR_CLASS)
+                    .getDeclaredConstructor().newInstance();
+            // make sure the vector code really runs on this JVM.
+            byte[] probe = "www.UWO.ca".getBytes();
+            if (scanner.hashIgnoreCase(probe, 0, probe.length)
+                    != ScalarNameScanner.hash(probe, 0, probe.length))
+            {
+                return new ScalarNameScanner();
+            }
+            // asked last: it starts the management beans, which takes
+            //  tens of milliseconds, only worth it when there is a choice.
+            if (!NameScanner.isVectorCompiled())
+            {
+                return new ScalarNameScanner();
+            }
+            return scanner;
+        }catch (ReflectiveOperationException | LinkageError | RuntimeException e)
+        {
+            // not compiled, or jdk.incubator.vector is not added.
+            return new ScalarNameScanner();
+        }
+    }
+
+
+    /** Static method:
+     * @return false if the JIT is known not to compile the vector code,
+     *          i.e. HotSpot on x86 with UseAVX=0. */
+    static boolean isVectorCompiled()
+    {
+        try
+        {
+            HotSpotDiagnosticMXBean bean = ManagementFactory.getPlatformMXBean(
+                    HotSpotDiagnosticMXBean.class);
+            return !"0".equals(bean.getVMOption("UseAVX").getValue());
+        }catch (RuntimeException | LinkageError e)
+        {
+            // not HotSpot, or not x86 (no UseAVX option).
+            return true;
+        }
+    }
+
+
+    /** Helper method:
+     * @return a short name of this implementation, e.g. "scalar". */
+    public abstract String getName();
+
+
+    /** Helper method:
+     * compare len bytes of a and b, ignoring upper/lower case of ASCII
+     *  letters (see DNSName.toLowerCase()).
+     * @param a - the bytes of the first name.
+     * @param aOffset - index in a where the bytes start.
+     * @param b - the bytes of the second name.
+     * @param bOffset - index in b where the bytes start.
+     * @param len - number of bytes to compare.
+     * @return true if the bytes are the same, ignoring case. */
+    public abstract boolean equalsIgnoreCase(byte[] a, int aOffset,
+                                             byte[] b, int bOffset, int len);
+
+
+    /** Helper method:
+     * the hash of len bytes, ignoring upper/lower case of ASCII letters:
+     *  h = 1, then h = 31 * h + toLowerCase(byte) for every byte.
+     * @param bytes - the bytes of a name.
+     * @param offset - index in bytes where the name starts.
+     * @param len - number of bytes of the name.
+     * @return the hash, the same for every implementation. */
+    public abstract int hashIgnoreCase(byte[] bytes, int offset, int len);
+}
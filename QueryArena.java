@@ -0,0 +1,172 @@
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * QueryArena holds a batch of encoded DNS query messages, one after another,
+ * in one direct (off-heap) ByteBuffer. It is used to generate load: all the
+ * queries are encoded once, before the run, then sent as fast as possible.
+ *
+ * For each message the arena keeps its offset and length in two int arrays,
+ * so message i is arena[offset[i]] ... arena[offset[i] + length[i] - 1].
+ * The bytes are the same as BigEndianEncoder would give for the message.
+ *
+ * select(i) returns a view of message i without copying or allocating, e.g.
+ *      channel.send(arena.select(i), target);
+ * The view is shared: it is only valid until select() is called again.
+ *
+ * clear() empties the arena, the direct buffer and the index arrays are kept,
+ * so one arena can be refilled for every run.
+ */
+public class QueryArena
+{
+    // the direct buffer all messages are encoded into.
+    private ByteBuffer arena;
+    // a view of arena, moved to one message by select().
+    private ByteBuffer view;
+
+    // where each message starts in arena, and its number of bytes.
+    private int[] offsets;
+    private int[] lengths;
+    // number of messages in the arena.
+    private int count;
+
+    // the encoder every message is encoded with, before it is copied
+    // to arena. It is reset for each message, so it never reallocates
+    // once it has grown to the largest message.
+    private BigEndianEncoder scratch;
+
+    /** Constructor:
+     * @param capacity - number of bytes of the direct buffer.
+     * @param expectedCount - number of messages we expect to add,
+     *                      the index arrays will grow if there are more. */
+    public QueryArena(int capacity, int expectedCount)
+    {
+        this.arena = ByteBuffer.allocateDirect(capacity);
+        this.view = this.arena.duplicate();
+        this.offsets = new int[Math.max(expectedCount, 16)];
+        this.lengths = new int[this.offsets.length];
+        this.count = 0;
+        this.scratch = new BigEndianEncoder();
+    }
+
+
+    /** Helper method:
+     * encode a query for a domain name, and add it to the arena.
+     * @param domainName - the domain name we wish to query for.
+     * @param id - transaction id for the query(0-65535).
+     * @param r - type of the query.
+     * @return index of the message in the arena.
+     * @throws BufferOverflowException if the arena is full. */
+    public int add(String domainName, int id, RecordType r)
+    {
+        return this.add(new DNSMessage(domainName, id, r));
+    }
+
+
+    /** Helper method:
+     * encode a message, and add it to the arena.
+     * @param message - the message, that HAS NOT BEEN ENCODED.
+     * @return index of the message in the arena.
+     * @throws BufferOverflowException if the arena is full. The arena is
+     *  unchanged in that case. */
+    public int add(DNSMessage message)
+    {
+        this.scratch.reset();
+        message.encode(this.scratch);
+        int length = this.scratch.position();
+        if (length > this.arena.remaining())
+        {
+            throw new BufferOverflowException();
+        }
+
+        if (this.count == this.offsets.length)
+        {
+            this.offsets = Arrays.copyOf(this.offsets, this.count * 2);
+            this.lengths = Arrays.copyOf(this.lengths, this.count * 2);
+        }
+        this.offsets[this.count] = this.arena.position();
+        this.lengths[this.count] = length;
+        this.arena.put(this.scratch.getBuffer(), this.scratch.getStartOffset(), length);
+        this.count += 1;
+        return this.count - 1;
+    }
+
+
+    /** Helper method:
+     * @return number of messages in the arena. */
+    public int size()
+    {
+        return this.count;
+    }
+
+
+    /** Helper method:
+     * @param index - index of a message, see add().
+     * @return where the message starts in the direct buffer. */
+    public int getOffset(int index)
+    {
+        this.checkIndex(index);
+        return this.offsets[index];
+    }
+
+
+    /** Helper method:
+     * @param index - index of a message, see add().
+     * @return number of bytes of the message. */
+    public int getLength(int index)
+    {
+        this.checkIndex(index);
+        return this.lengths[index];
+    }
+
+
+    /** Helper method:
+     * get a view of one message, from its first byte to its last byte.
+     * No bytes are copied, and no object is created: the same view is
+     *  returned by every call, moved to the message asked for.
+     * @param index - index of a message, see add().
+     * @return the shared view, position and limit around the message. */
+    public ByteBuffer select(int index)
+    {
+        this.checkIndex(index);
+        int offset = this.offsets[index];
+        // set limit first, position can't be past limit.
+        this.view.limit(offset + this.lengths[index]);
+        this.view.position(offset);
+        return this.view;
+    }
+
+
+    /** Helper method:
+     * get an independent view of one message, that stays valid after
+     *  select() or slice() is called again. Creates one ByteBuffer object.
+     * @param index - index of a message, see add().
+     * @return a ByteBuffer which content is the message. */
+    public ByteBuffer slice(int index)
+    {
+        return this.select(index).slice();
+    }
+
+
+    /** Helper method:
+     * remove all messages, so the arena can be filled again.
+     * The direct buffer is kept. */
+    public void clear()
+    {
+        this.arena.clear();
+        this.count = 0;
+    }
+
+
+    /** Helper method:
+     * make sure index refers to a message in the arena. */
+    private void checkIndex(int index)
+    {
+        if (index < 0 || index >= this.count)
+        {
+            throw new IndexOutOfBoundsException("QueryArena: index " + index
+                    + " size " + this.count);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/**
+ * QueryKey is what identifies a query, read straight from the received bytes:
+ * the query ID, a 64-bit hash of QNAME, QTYPE, QCLASS, and the offset where
+ * the question ends.
+ *
+ * extract() fills the fields of an existing QueryKey, and builds no DNSName,
+ * String or DNSQuestion, so a server can keep one QueryKey and use it for
+ * every packet it receives, e.g. to look up ResponseCache before it decodes
+ * anything. If extract() returns false, the packet is not a plain query
+ * (or is broken), and it should be decoded the normal way.
+ *
+ * The hash ignores upper/lower case of ASCII letters, as DNS does, so
+ * "WWW.uwo.ca" and "www.uwo.ca" have the same hash. Two different names may
+ * still have the same hash, compare the question bytes to be sure, see
+ * questionEquals().
+ */
+public class QueryKey
+{
+    // FNV-1a 64-bit hash parameters.
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    // the fields of the last extracted query.
+    private int id;
+    private long nameHash;
+    private int qType;
+    private int qClass;
+    // offset (from the start of the message) right after QCLASS.
+    private int questionEnd;
+
+    /** Helper method:
+     * read the key of the query in buffer.
+     * @param buffer - the received bytes.
+     * @param offset - index in buffer where the message starts.
+     * @param length - number of bytes of the message.
+     * @return true if the message is a query with exactly one question,
+     *          and the fields are filled; false otherwise (the fields are
+     *          then not valid). */
+    public boolean extract(byte[] buffer, int offset, int length)
+    {
+        if (length < DNSHeader.HEADER_LENGTH
+                || DNSHeader.isFlagBitSet(buffer, offset, DNSHeader.QR_BIT)
+                || DNSHeader.getField(buffer, offset,
+                        DNSHeader.QUESTION_COUNT_OFFSET) != 1)
+        {
+            return false;
+        }
+
+        // hash QNAME, label by label, including the length bytes.
+        long hash = FNV_OFFSET_BASIS;
+        int index = DNSHeader.HEADER_LENGTH;
+        while (true)
+        {
+            if (index >= length)
+            {
+                return false;
+            }
+            int labelLength = buffer[offset + index] & 0xFF;
+            if (labelLength > 63)
+            {
+                // a pointer (or a bad label); the question of a query
+                // is never compressed, let the decoder handle it.
+                return false;
+            }
+            if (index + 1 + labelLength > length)
+            {
+                return false;
+            }
+            hash = (hash ^ labelLength) * FNV_PRIME;
+            for (int i = offset + index + 1; i <= offset + index + labelLength; i++)
+            {
+                hash = (hash ^ (DNSName.toLowerCase(buffer[i]) & 0xFF)) * FNV_PRIME;
+            }
+            index += 1 + labelLength;
+            if (labelLength == 0)
+            {
+                break;
+            }
+        }
+        if (index + 4 > length)
+        {
+            return false;
+        }
+
+        this.id = DNSHeader.getId(buffer, offset);
+        this.nameHash = hash;
+        this.qType = DNSHeader.getField(buffer, offset, index);
+        this.qClass = DNSHeader.getField(buffer, offset, index + 2);
+        this.questionEnd = index + 4;
+        return true;
+    }
+
+
+    /** Helper method:
+     * compare the question (QNAME, QTYPE, QCLASS) of two messages,
+     *  ignoring upper/lower case of ASCII letters in QNAME.
+     * Both questions start right after the header, and end at questionEnd.
+     * @param buffer - bytes of the message of this key.
+     * @param offset - index in buffer where the message starts.
+     * @param other - bytes of the other message.
+     * @param otherOffset - index in other where the message starts.
+     * @return true if both questions are the same. */
+    public boolean questionEquals(byte[] buffer, int offset,
+                                  byte[] other, int otherOffset)
+    {
+        int end = this.questionEnd;
+        if (otherOffset + end > other.length)
+        {
+            return false;
+        }
+        // QNAME: case does not matter.
+        if (!NameScanner.get().equalsIgnoreCase(buffer,
+                offset + DNSHeader.HEADER_LENGTH, other,
+                otherOffset + DNSHeader.HEADER_LENGTH,
+                end - 4 - DNSHeader.HEADER_LENGTH))
+        {
+            return false;
+        }
+        // QTYPE and QCLASS: must be the same bytes.
+        for (int i = end - 4; i < end; i++)
+        {
+            if (buffer[offset + i] != other[otherOffset + i])
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    /** Helper method:
+     * @return the query ID (0 - 65535). */
+    public int getId()
+    {
+        return this.id;
+    }
+
+
+    /** Helper method:
+     * @return the 64-bit hash of QNAME, upper/lower case ignored. */
+    public long getNameHash()
+    {
+        return this.nameHash;
+    }
+
+
+    /** Helper method:
+     * @return QTYPE (0 - 65535). */
+    public int getQType()
+    {
+        return this.qType;
+    }
+
+
+    /** Helper method:
+     * @return QCLASS (0 - 65535). */
+    public int getQClass()
+    {
+        return this.qClass;
+    }
+
+
+    /** Helper method:
+     * @return offset (from the start of the message) where the question ends. */
+    public int getQuestionEnd()
+    {
+        return this.questionEnd;
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * How the rdata of one record TYPE is decoded and created.
+ * One codec is registered per TYPE code in RdataCodecs; DNSRdata.decode()
+ * and DNSRdata.createInstance() only look it up, so a new type plugs in by
+ * registering a codec, e.g.
+ *      RdataCodecs.register(99, (decoder, rdLength) -> new MyRdata(decoder));
+ *
+ * Encoding is done by the rdata object itself (DNSRdata implements
+ * Encodable), the codec only creates it.
+ */
+public interface RdataCodec
+{
+    /**
+     * Decode the rdata at the decoder's offset.
+     * @param decoder: the BigEndianDecoder of the message.
+     * @param rdLength: RDLENGTH of the resource record.
+     * @return the decoded rdata, the decoder's offset right after it.
+     */
+    DNSRdata decode(BigEndianDecoder decoder, short rdLength);
+
+
+    /**
+     * Create the rdata from a string, for encoding purpose.
+     * @param dataStr: the rdata in text form, e.g. "10 mail.uwo.ca" for MX.
+     * @return the rdata, or null if this type can't be created from a string.
+     */
+    default DNSRdata create(String dataStr)
+    {
+        return null;
+    }
+
+
+    /**
+     * @return true if the rdata has domain names. Decoding them is what
+     *          costs most, so a decoder in lazy rdata mode skips the rdata
+     *          of these types until it is asked for (see DNSRdataLazy).
+     */
+    default boolean hasDomainName()
+    {
+        return false;
+    }
+}
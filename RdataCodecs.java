@@ -0,0 +1,134 @@
+import java.util.function.Function;
+
+/**
+ * RdataCodecs is the registry of the RdataCodec of each record TYPE.
+ *
+ * The codecs are in an array indexed by the 16-bit TYPE code, so finding
+ * the codec of a record is one array access, for any type. A TYPE nothing
+ * is registered for gets the default codec, which keeps the rdata bytes
+ * as they are (see DNSRdataTypeRaw).
+ *
+ * The types this application knows are registered when the class is
+ * loaded. Others can be registered (or replaced) with register(), before
+ * messages that have them are decoded.
+ */
+public class RdataCodecs
+{
+    // the codec of each TYPE code, null if nothing is registered.
+    private static final RdataCodec[] CODECS = new RdataCodec[0x10000];
+
+    // the codec of the types nothing is registered for: the rdata is
+    //  kept as received bytes, dataStr is like "\# 4 0a000001".
+    private static final RdataCodec DEFAULT = RdataCodecs.codec(
+            DNSRdataTypeRaw::new, DNSRdataTypeRaw::create, false);
+
+    static
+    {
+        RdataCodecs.register(1, RdataCodecs.codec(
+                (decoder, rdLength) -> new DNSRdataTypeA(decoder),
+                DNSRdataTypeA::new, false));
+
+        // types which rdata is one domain name,
+        //  dataStr is the name, like "ns1.uwo.ca"
+        RdataCodecs.register(2, RdataCodecs.codec(
+                (decoder, rdLength) -> new DNSRdataTypeNS(decoder),
+                dataStr -> new DNSRdataTypeNS(new DNSLabels(dataStr)), true));
+        RdataCodecs.register(5, RdataCodecs.codec(
+                (decoder, rdLength) -> new DNSRdataTypeCNAME(decoder),
+                dataStr -> new DNSRdataTypeCNAME(new DNSLabels(dataStr)), true));
+        RdataCodec mdfbgrPtr = RdataCodecs.codec(
+                (decoder, rdLength) -> new DNSRdataTypeMdfbgrPtr(decoder),
+                dataStr -> new DNSRdataTypeMdfbgrPtr(new DNSLabels(dataStr)), true);
+        for (int type : new int[]{3, 4, 7, 8, 9, 12})
+        {
+            RdataCodecs.register(type, mdfbgrPtr);
+        }
+
+        RdataCodecs.register(6, RdataCodecs.codec(
+                (decoder, rdLength) -> new DNSRdataTypeSOA(decoder), null, true));
+        RdataCodecs.register(14, RdataCodecs.codec(
+                (decoder, rdLength) -> new DNSRdataTypeMINFO(decoder), null, true));
+
+        // dataStr is the preference and the name, like "10 mail.uwo.ca"
+        RdataCodecs.register(15, RdataCodecs.codec(
+                (decoder, rdLength) -> new DNSRdataTypeMX(decoder),
+                DNSRdata::createMX, true));
+
+        // dataStr is the text, like "v=spf1 -all"
+        RdataCodecs.register(16, RdataCodecs.codec(DNSRdataTypeTXT::new,
+                DNSRdataTypeTXT::new, false));
+
+        // dataStr is an IPv6 address, like "2001:db8::1"
+        RdataCodecs.register(28, RdataCodecs.codec(
+                (decoder, rdLength) -> new DNSRdataTypeAAAA(decoder),
+                DNSRdata::createAAAA, false));
+
+        // dataStr is "priority weight port target", like "10 5 5060 sip.uwo.ca"
+        RdataCodecs.register(33, RdataCodecs.codec(
+                (decoder, rdLength) -> new DNSRdataTypeSRV(decoder),
+                DNSRdataTypeSRV::create, true));
+
+        RdataCodecs.register(41, DNSRdataTypeOPT::new);
+        RdataCodecs.register(46, RdataCodecs.codec(DNSRdataTypeRRSIG::new, null, true));
+    }
+
+    /** Constructor:
+     * only static methods, no instance needed. */
+    private RdataCodecs()
+    {
+    }
+
+
+    /** Static method:
+     * register the codec of a TYPE, it replaces the one registered before.
+     * @param type - the 16-bit TYPE code.
+     * @param codec - the codec of the rdata of this type. */
+    public static void register(int type, RdataCodec codec)
+    {
+        CODECS[type & 0xFFFF] = codec;
+    }
+
+
+    /** Static method:
+     * @param type - the TYPE of a resource record, as decoded.
+     * @return the codec of this type, or the default one that keeps
+     *          the rdata bytes if nothing is registered for it. */
+    public static RdataCodec get(short type)
+    {
+        RdataCodec codec = CODECS[type & 0xFFFF];
+        return (codec == null) ? DEFAULT : codec;
+    }
+
+
+    /** Static method:
+     * build a codec from its parts.
+     * @param decode - decodes the rdata.
+     * @param create - creates the rdata from a string, or null if it can't.
+     * @param hasDomainName - see RdataCodec.hasDomainName().
+     * @return the codec. */
+    public static RdataCodec codec(RdataCodec decode,
+                                   Function<String, DNSRdata> create,
+                                   boolean hasDomainName)
+    {
+        return new RdataCodec()
+        {
+            @Override
+            public DNSRdata decode(BigEndianDecoder decoder, short rdLength)
+            {
+                return decode.decode(decoder, rdLength);
+            }
+
+            @Override
+            public DNSRdata create(String dataStr)
+            {
+                return (create == null) ? null : create.apply(dataStr);
+            }
+
+            @Override
+            public boolean hasDomainName()
+            {
+                return hasDomainName;
+            }
+        };
+    }
+}
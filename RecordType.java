@@ -2,7 +2,18 @@
  * fully supported by this application.
  */
 public enum RecordType {
-    A(1), NS(2), CNAME(5), SOA(6), MX(15), AAAA(28), OTHER(0);
+    A(1), NS(2), CNAME(5), SOA(6), MX(15), TXT(16), AAAA(28), SRV(33), OPT(41), RRSIG(46),
+    OTHER(0);
+
+    // record types indexed by their 16-bit code, OTHER where no type uses the code.
+    private static final RecordType[] BY_CODE = new RecordType[0x10000];
+
+    static {
+        java.util.Arrays.fill(BY_CODE, OTHER);
+        for (RecordType type : values())
+            if (type != OTHER)
+                BY_CODE[type.code] = type;
+    }
 
     private int code;
 
@@ -15,15 +26,14 @@ public enum RecordType {
     }
 
     /** Returns the record type associated to a particular code, or OTHER if no known record
-     * type is linked to that code.
+     * type is linked to that code. This is one array access, it is called for every record.
      *
      * @param code The record type code to be searched.
      * @return A record type that uses the specified code, or OTHER if no record type uses the code.
      */
     public static RecordType getByCode(int code) {
-        for (RecordType type : values())
-            if (type.code == code)
-                return type;
-        return OTHER;
+        if (code < 0 || code >= BY_CODE.length)
+            return OTHER;
+        return BY_CODE[code];
     }
 }
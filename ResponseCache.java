@@ -0,0 +1,121 @@
+/**
+ * ResponseCache keeps the encoded responses of recent queries, so a server
+ * can answer a query it has seen before straight from the received bytes,
+ * without decoding the query or encoding a response.
+ *
+ * The cache is direct-mapped: each QueryKey goes to one slot, chosen by the
+ * hash of its QNAME and its QTYPE. A new response replaces whatever was in
+ * its slot. Before a cached response is used, its question is compared with
+ * the question of the query byte by byte (see QueryKey.questionEquals()), so
+ * two names with the same hash never get each other's response.
+ *
+ * A response is cached with the ID and question of the query it was made
+ * for. lookup() copies it out, then writes the question bytes and the ID of
+ * the new query over it, so the client gets its own ID and its own case of
+ * QNAME back (RFC1035 4.1.1).
+ *
+ * The byte array of a slot is kept when the slot is replaced, as long as it
+ * is large enough, so once the cache is warm it allocates nothing.
+ */
+public class ResponseCache
+{
+    // the encoded responses, one per slot, null if the slot is empty.
+    private byte[][] responses;
+    // number of bytes of the response in each slot, 0 if empty.
+    private int[] lengths;
+    // number of slots - 1, the number of slots is a power of 2.
+    private int mask;
+
+    /** Constructor:
+     * @param slots - number of slots, rounded up to a power of 2. */
+    public ResponseCache(int slots)
+    {
+        int size = Integer.highestOneBit(Math.max(slots, 1));
+        if (size < slots)
+        {
+            size <<= 1;
+        }
+        this.responses = new byte[size][];
+        this.lengths = new int[size];
+        this.mask = size - 1;
+    }
+
+
+    /** Helper method:
+     * look up the response of a query, and copy it to out.
+     * @param key - the key extracted from query.
+     * @param query - the bytes of the query.
+     * @param queryOffset - index in query where the message starts.
+     * @param out - the bytes buffer the response is copied to.
+     * @param outOffset - index in out where the response should start.
+     * @return number of bytes copied to out, or -1 if the response is
+     *          not cached (or does not fit in out). */
+    public int lookup(QueryKey key, byte[] query, int queryOffset,
+                      byte[] out, int outOffset)
+    {
+        int slot = this.slotOf(key);
+        byte[] response = this.responses[slot];
+        int length = this.lengths[slot];
+        if (response == null || length > out.length - outOffset
+                || !key.questionEquals(query, queryOffset, response, 0))
+        {
+            return -1;
+        }
+
+        System.arraycopy(response, 0, out, outOffset, length);
+        // the question of this query, then its ID.
+        System.arraycopy(query, queryOffset + DNSHeader.HEADER_LENGTH,
+                out, outOffset + DNSHeader.HEADER_LENGTH,
+                key.getQuestionEnd() - DNSHeader.HEADER_LENGTH);
+        DNSHeader.setId(out, outOffset, key.getId());
+        return length;
+    }
+
+
+    /** Helper method:
+     * cache the response of a query. The bytes are copied.
+     * The question of the response must be the question of the query
+     *  key was extracted from, right after the header.
+     * @param key - the key extracted from the query.
+     * @param response - the bytes of the encoded response.
+     * @param offset - index in response where the message starts.
+     * @param length - number of bytes of the response. */
+    public void put(QueryKey key, byte[] response, int offset, int length)
+    {
+        if (length < key.getQuestionEnd())
+        {
+            // not the response of this query.
+            return;
+        }
+        int slot = this.slotOf(key);
+        byte[] bytes = this.responses[slot];
+        if (bytes == null || bytes.length < length)
+        {
+            bytes = new byte[length];
+            this.responses[slot] = bytes;
+        }
+        System.arraycopy(response, offset, bytes, 0, length);
+        this.lengths[slot] = length;
+    }
+
+
+    /** Helper method:
+     * remove all responses. */
+    public void clear()
+    {
+        for (int i = 0; i < this.lengths.length; i++)
+        {
+            this.responses[i] = null;
+            this.lengths[i] = 0;
+        }
+    }
+
+
+    /** Helper method:
+     * @return the slot of key, from the hash of QNAME and QTYPE. */
+    private int slotOf(QueryKey key)
+    {
+        long hash = key.getNameHash() ^ ((long) key.getQType() * 0x9E3779B97F4A7C15L);
+        return (int) (hash ^ (hash >>> 32)) & this.mask;
+    }
+}
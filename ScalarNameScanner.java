@@ -0,0 +1,49 @@
+/**
+ * The NameScanner that looks at one byte at a time.
+ * It works on every JVM, and is the fastest for short names.
+ */
+public class ScalarNameScanner extends NameScanner
+{
+    @Override
+    public String getName()
+    {
+        return "scalar";
+    }
+
+
+    @Override
+    public boolean equalsIgnoreCase(byte[] a, int aOffset,
+                                    byte[] b, int bOffset, int len)
+    {
+        for (int i = 0; i < len; i++)
+        {
+            if (DNSName.toLowerCase(a[aOffset + i])
+                    != DNSName.toLowerCase(b[bOffset + i]))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    @Override
+    public int hashIgnoreCase(byte[] bytes, int offset, int len)
+    {
+        return ScalarNameScanner.hash(bytes, offset, len);
+    }
+
+
+    /** Static method:
+     * the hash of NameScanner.hashIgnoreCase(), one byte at a time.
+     * Also used to check the other implementations. */
+    static int hash(byte[] bytes, int offset, int len)
+    {
+        int h = 1;
+        for (int i = offset; i < offset + len; i++)
+        {
+            h = 31 * h + DNSName.toLowerCase(bytes[i]);
+        }
+        return h;
+    }
+}
@@ -25,9 +25,22 @@ public class Simple_DNS_Client {
      *  of the responses come from actual server.
      *
      * 255.255.255.255 - The client failed to get IP address for a domain name. This is
-     *  due to some error outside the control of refined DFP nor the client. */
-    private HashMap<String, Integer> experimentResults;
+     *  due to some error outside the control of refined DFP nor the client.
+     *
+     * IP addresses are kept as packed int (see DNSRdataTypeA), and only
+     *  converted to strings when the summary is printed. */
+    private HashMap<Integer, Integer> experimentResults;
+    // 0.0.0.0, see above.
+    private static final int IP_UNDISTINGUISHABLE = 0x00000000;
+    // 255.255.255.255, see above.
+    private static final int IP_FAILED = 0xFFFFFFFF;
     private long totalTime; // client total execution time for processing queries.
+    // variables used for sending queries without allocating a new buffer
+    //  and packet each time. Server and attacker get the same query bytes.
+    private byte[] sendBuffer; // every query is encoded into this buffer.
+    private BigEndianEncoder sendEncoder; // the encoder writes into sendBuffer.
+    private DatagramPacket toServerPacket; // carries sendBuffer to server.
+    private DatagramPacket toAttackerPacket; // carries sendBuffer to attacker.
 
     /** Constructor:*/
     public Simple_DNS_Client(String sever_IP, String severPort,
@@ -44,6 +57,14 @@ public class Simple_DNS_Client {
         this.random = new Random();
         this.experimentResults = new HashMap<>();
         this.totalTime = 0;
+        // a UDP DNS message is at most 512 bytes (RFC1035 4.2.1).
+        this.sendBuffer = new byte[512];
+        this.sendEncoder = new BigEndianEncoder(this.sendBuffer, 0,
+                this.sendBuffer.length);
+        this.toServerPacket = new DatagramPacket(this.sendBuffer, 0,
+                this.server_addr, this.server_port);
+        this.toAttackerPacket = new DatagramPacket(this.sendBuffer, 0,
+                this.attacker_addr, this.attackerPort);
     }
 
 
@@ -158,10 +179,10 @@ public class Simple_DNS_Client {
                 + average_v1_time + " ms");
         System.out.println(" ");
         System.out.println("IP addresses client thinks are valid:");
-        for (String s: this.experimentResults.keySet())
+        for (Integer ip: this.experimentResults.keySet())
         {
-            System.out.println("IP: " + s + " counts: " +
-                    this.experimentResults.get(s));
+            System.out.println("IP: " + DNSRdataTypeA.formatIPv4(ip) + " counts: " +
+                    this.experimentResults.get(ip));
         }
         // close the socket
         System.setOut(originalOut);
@@ -260,8 +281,8 @@ public class Simple_DNS_Client {
     {
         // first create the packet to be sent.
         int queryId = this.random.nextInt(65535);
-        DatagramPacket queryPacket = this.createSendPacket(queryName,
-                this.server_addr, this.server_port, queryId);
+        this.encodeQuery(new DNSLabels(queryName), queryId);
+        DatagramPacket queryPacket = this.toServerPacket;
         try
         {
             this.socket.send(queryPacket);
@@ -277,7 +298,11 @@ public class Simple_DNS_Client {
             int rtt = (int) (recvTime - sendTime);
 
             // decode response.
-            DNSMessage responseMsg = DNSMessage.getMessageFromPacket(recvPacket);
+            DNSMessage responseMsg = this.decodeResponse(recvPacket);
+            if (responseMsg == null)
+            {
+                return;
+            }
             // retrieve information and print results
             this.printAnswersFromResponse(responseMsg, rtt);
 
@@ -305,10 +330,12 @@ public class Simple_DNS_Client {
     private void sendAndRecv_v1(String queryName, AuthServerStats severStats)
     {
         int queryId = this.random.nextInt(65535);
-        DatagramPacket toAttacker = this.createSendPacket(queryName,
-                this.attacker_addr, this.attackerPort, queryId);
-        DatagramPacket toSever = this.createSendPacket(queryName,
-                this.server_addr, this.server_port, queryId);
+        // the responses are matched against the same DNSName.
+        DNSName queryDomainName = new DNSLabels(queryName);
+        // two packets will have same ID in header, they share one buffer.
+        this.encodeQuery(queryDomainName, queryId);
+        DatagramPacket toAttacker = this.toAttackerPacket;
+        DatagramPacket toSever = this.toServerPacket;
         DatagramPacket firstRecv = this.createRecvPacket(1024);
         DatagramPacket secondrecv = this.createRecvPacket(1024);
         long sendTime  = 0; // time when we send the first packet.
@@ -347,7 +374,7 @@ public class Simple_DNS_Client {
                     System.out.println("final answer: " + queryName
                             + " IP:" + " failed to get IP");
                     // 255.255.255.255 - error outside the scope of out DFP algorithm.
-                    this.updateExperimentResults("255.255.255.255");
+                    this.updateExperimentResults(IP_FAILED);
                     return;
                 }
             }
@@ -357,7 +384,7 @@ public class Simple_DNS_Client {
                 System.out.println(io.getMessage());
                 System.out.println("final answer: " + queryName
                         + " IP:" + " failed to get IP");
-                this.updateExperimentResults("255.255.255.255");
+                this.updateExperimentResults(IP_FAILED);
                 return;
             }
         }
@@ -384,34 +411,47 @@ public class Simple_DNS_Client {
             System.out.println("Socket time out! after " +
                     (recvTime2 - sendTime) + "ms we sent the first packet!");
             System.out.println("How many times we send query?: " + receiveFirstPktTrial);
-            // now we print the first packet.
-            System.out.println("the only received packet: ");
-            DNSMessage firstMsg = DNSMessage.getMessageFromPacket(firstRecv);
-            this.printAnswersFromResponse(firstMsg, rtt);
-            if (firstMsg.getQueryId() != queryId)
+            // a malformed response, e.g. a truncated one from the attacker,
+            //  has no answer to count.
+            if (!this.isValidResponse(firstRecv))
+            {
+                this.updateExperimentResults(IP_FAILED);
+                this.discardLateArrivedPacket(severStats);
+                return;
+            }
+            // the header is enough to check the query ID,
+            //  only decode the rest if it matches.
+            DNSMessageView firstView = DNSMessageView.fromPacket(firstRecv);
+            if (firstView.getQueryId() != queryId)
             {
                 // the query ID is not matched, this response is invalid.
-                System.out.println("One packet: error: query ID unmatched.");
-                this.updateExperimentResults("255.255.255.255");
+                System.out.println("One packet: error: query ID unmatched: "
+                        + firstView.getQueryId());
+                this.updateExperimentResults(IP_FAILED);
                 this.discardLateArrivedPacket(severStats);
                 return;
             }
 
+            // now we print the first packet.
+            System.out.println("the only received packet: ");
+            DNSMessage firstMsg = firstView.toMessage();
+            this.printAnswersFromResponse(firstMsg, rtt);
+
             // update experiment results.
-            String[] ips = firstMsg.retrieveDNSAnswers(queryName,
-                    RecordType.getByCode(firstMsg.getQType() & 0xFFFF));
+            int[] ips = firstMsg.retrieveIPv4Answers(queryDomainName);
             if (ips.length == 0)
             {
                 // This is usually cause by received packet's is a response to
                 //  another query packet sent by client.
                 System.out.println("One packet: error: no matched IP address.");
                 firstMsg.printDNSMessage();
-                this.updateExperimentResults("255.255.255.255");
+                this.updateExperimentResults(IP_FAILED);
             }
             if (ips.length > 0)
             {
                 // the response packet's query name and type matches client's sent query.
-                System.out.println("One packet: update experiment result using: " + ips[0]);
+                System.out.println("One packet: update experiment result using: "
+                        + DNSRdataTypeA.formatIPv4(ips[0]));
                 this.updateExperimentResults(ips[0]);
             }
 
@@ -441,12 +481,19 @@ public class Simple_DNS_Client {
 
         // When code reaches here, we have received two responses for one query.
         System.out.println("How many times we send query: " + receiveFirstPktTrial);
+        // a malformed packet is null here, and gets no packet statistics.
         System.out.println("first received packet info: ");
-        DNSMessage firstMsg = DNSMessage.getMessageFromPacket(firstRecv);
-        this.printAnswersFromResponse(firstMsg, rtt);
+        DNSMessage firstMsg = this.decodeResponse(firstRecv);
+        if (firstMsg != null)
+        {
+            this.printAnswersFromResponse(firstMsg, rtt);
+        }
         System.out.println("second received packet info: ");
-        DNSMessage secondMsg = DNSMessage.getMessageFromPacket(secondrecv);
-        this.printAnswersFromResponse(secondMsg, rtt2);
+        DNSMessage secondMsg = this.decodeResponse(secondrecv);
+        if (secondMsg != null)
+        {
+            this.printAnswersFromResponse(secondMsg, rtt2);
+        }
 
         // Create packet statistics.
         DNSMessage[] messages = new DNSMessage[2];
@@ -459,7 +506,7 @@ public class Simple_DNS_Client {
         rtts[0] = rtt;
         rtts[1] = rtt2;
         AuthServerPacketStats[] statsArr = this.createPacketStatsArray(queryId,
-                queryName, severStats, messages, source_addrs, rtts);
+                queryDomainName, severStats, messages, source_addrs, rtts);
 
         switch (statsArr.length)
         {
@@ -467,12 +514,13 @@ public class Simple_DNS_Client {
                 System.out.println("error: no packet is valid");
                 System.out.println("final answer: " + queryName
                         + " IP: failed to get IP");
-                this.updateExperimentResults("255.255.255.255");
+                this.updateExperimentResults(IP_FAILED);
                 return;
             case 1:
                 System.out.println("Only one packet is valid.");
                 System.out.println("final answer: "+statsArr[0].getQueryName()
-                        + " IP:" + statsArr[0].getIp_addresses()[0]);
+                        + " IP:" + DNSRdataTypeA.formatIPv4(
+                                statsArr[0].getIp_addresses()[0]));
                 this.updateExperimentResults(statsArr[0].getIp_addresses()[0]);
                 // when create the stats, we update the countWithinWindowTime already,
                 //  no need to update packet stats again.
@@ -493,7 +541,7 @@ public class Simple_DNS_Client {
                         "one is the valid packet.");
                 System.out.println(queryName + " IP: failed to get IP");
                 // 0.0.0.0 means we can't distinguish between 2 potential valid IPs.
-                this.updateExperimentResults("0.0.0.0");
+                this.updateExperimentResults(IP_UNDISTINGUISHABLE);
                 return;
             case 0:
                 // we update server stats using the first rtt
@@ -501,7 +549,7 @@ public class Simple_DNS_Client {
                         "update server stats using " + rtt);
                 severStats.updateSeverStats(rtt);
                 System.out.println("Update experiment result using: " +
-                        statsArr[0].getIp_addresses()[0]);
+                        DNSRdataTypeA.formatIPv4(statsArr[0].getIp_addresses()[0]));
                 this.updateExperimentResults(statsArr[0].getIp_addresses()[0]);
                 break;
             case 1:
@@ -510,31 +558,38 @@ public class Simple_DNS_Client {
                         "update server stats using " + rtt2);
                 severStats.updateSeverStats(rtt2);
                 System.out.println("Update experiment result using: " +
-                        statsArr[1].getIp_addresses()[0]);
+                        DNSRdataTypeA.formatIPv4(statsArr[1].getIp_addresses()[0]));
                 this.updateExperimentResults(statsArr[1].getIp_addresses()[0]);
         }
         // print answer.
         System.out.println("final answer: " + queryName
-                + " IP: " + statsArr[rv].getIp_addresses()[0]);
+                + " IP: " + DNSRdataTypeA.formatIPv4(statsArr[rv].getIp_addresses()[0]));
     }
 
-    /** Helper method: create a Datagram Packet, which
-     *      will be sent to server/attacker.
-     *  @param queryName domain name in query.
-     *  @param dstAddress destination address of the packet.
-     *  @param destPort destination port of the packet.
-     *  @param queryId  ID in dns header.
-     *  @return a Datagram Packet ready to be sent. */
-    private DatagramPacket createSendPacket(String queryName, InetAddress dstAddress,
-                                            int destPort, int queryId)
+    /** Helper method: encode a query into this.sendBuffer, which
+     *      is shared by toServerPacket and toAttackerPacket.
+     *  Both packets are ready to be sent when this method returns.
+     *  @param queryName domain name in query. Pass the same DNSName when
+     *          re-sending a query, its bytes are only computed once.
+     *  @param queryId  ID in dns header. */
+    private void encodeQuery(DNSName queryName, int queryId)
     {
-        // two packets will have same ID in header, if they use same queryId.
         DNSMessage queryMsg = new DNSMessage(queryName, queryId, RecordType.A);
-        queryMsg.encode(queryMsg.getEncoder());
-        byte[] queryData = queryMsg.tobytesBuffer();
+        this.sendEncoder.reset();
+        queryMsg.encode(this.sendEncoder);
+        int length = this.sendEncoder.position();
+
+        this.toServerPacket.setLength(length);
+        this.toAttackerPacket.setLength(length);
+    }
 
-        return new DatagramPacket(queryData, queryData.length,
-                dstAddress, destPort);
+    /** Helper method: change the ID of the query encoded by encodeQuery(),
+     *      without encoding it again.
+     *  @param queryId  new ID in dns header. */
+    private void changeQueryId(int queryId)
+    {
+
+        DNSHeader.setId(this.sendBuffer, 0, queryId);
     }
 
     /** Helper method for creating a datagram packet,
@@ -556,6 +611,9 @@ public class Simple_DNS_Client {
         String server_IP = this.server_addr.getHostAddress();
         AuthServerStats severStats = new AuthServerStats(server_IP, type);
         int queryId = this.random.nextInt(65535);
+        DNSName sampleName = new DNSLabels("www.uwo.ca");
+        // every sample is the same query, encode it once.
+        this.encodeQuery(sampleName, queryId);
 
         int errorCount = 0;
         int successCount = 0;
@@ -567,8 +625,7 @@ public class Simple_DNS_Client {
                 break;
             }
 
-            DatagramPacket packet = this.createSendPacket("www.uwo.ca",
-                    this.server_addr, this.server_port, queryId);
+            DatagramPacket packet = this.toServerPacket;
             try
             {
                 // set time out; prepare packet for receiving data
@@ -607,6 +664,7 @@ public class Simple_DNS_Client {
      * @param serverStats  authoritative server statistics
      * @param messages array contains 2 DNS messages, first message from first packet.
      *                  second message from the second packet.
+     *                  null for a packet that is not a valid DNS message.
      * @param source_addrs array contains 2 InetAddress, same rule as above.
      * @param rtts array contains 2 integers, same rule as above.
      * @return an array of AuthServerPacketStats.
@@ -614,23 +672,24 @@ public class Simple_DNS_Client {
      *  The first one will always created from the first packet.
      *  The second one will always created from the second packet. */
     private AuthServerPacketStats[] createPacketStatsArray(
-            int qId,String queryName, AuthServerStats serverStats,
+            int qId, DNSName queryName, AuthServerStats serverStats,
             DNSMessage[] messages, InetAddress[] source_addrs,
             int[] rtts)
     {
-        AuthServerPacketStats firstPktStats = new AuthServerPacketStats(
-                messages[0], source_addrs[0], serverStats, rtts[0]);
-        AuthServerPacketStats secondPktStats = new AuthServerPacketStats(
-                messages[1], source_addrs[1], serverStats, rtts[1]);
         List<AuthServerPacketStats> statsList = new ArrayList<>();
-
-        if (firstPktStats.isStatsHasValidIdAndName(qId, queryName))
+        for (int i = 0; i < messages.length; i++)
         {
-            statsList.add(firstPktStats);
-        }
-        if (secondPktStats.isStatsHasValidIdAndName(qId, queryName))
-        {
-            statsList.add(secondPktStats);
+            if (messages[i] == null)
+            {
+                // a malformed packet is never a valid one.
+                continue;
+            }
+            AuthServerPacketStats pktStats = new AuthServerPacketStats(
+                    messages[i], source_addrs[i], serverStats, rtts[i]);
+            if (pktStats.isStatsHasValidIdAndName(qId, queryName))
+            {
+                statsList.add(pktStats);
+            }
         }
 
         int listSize = statsList.size();
@@ -673,14 +732,16 @@ public class Simple_DNS_Client {
         long recvTime2 = 0; // time when we receive the second packet.
         int rtt2 = 0; // round trip time for the second received packet.
         int waitTime = 0; // time to wait for second packet.
+        // every re-sent query has the same domain name, so we encode
+        //  the query once, and only give it a new ID before sending.
+        this.encodeQuery(new DNSLabels(queryName), queryId);
 
         for (int i = 0; i < 5;)
         {
             queryId = this.random.nextInt(65535);
-            DatagramPacket toAttacker = this.createSendPacket(queryName,
-                    this.attacker_addr, this.attackerPort, queryId);
-            DatagramPacket toSever = this.createSendPacket(queryName,
-                    this.server_addr, this.server_port, queryId);
+            this.changeQueryId(queryId);
+            DatagramPacket toAttacker = this.toAttackerPacket;
+            DatagramPacket toSever = this.toServerPacket;
             DatagramPacket firstRecv = this.createRecvPacket(1024);
             DatagramPacket secondRecv = this.createRecvPacket(1024);
             // we try to receive the first packet.
@@ -809,6 +870,46 @@ public class Simple_DNS_Client {
         }
     }
 
+    /** Helper method:
+     * check a received packet with DNSMessageValidator, before anything
+     *  is decoded. The attacker may send a truncated or garbage response,
+     *  it must not end the experiment.
+     * @param packet a datagram packet we received.
+     * @return true if the packet is a valid DNS message. */
+    private boolean isValidResponse(DatagramPacket packet)
+    {
+        DNSDecodeException.Reason reason = DNSMessageValidator.validate(
+                packet.getData(), packet.getOffset(), packet.getLength());
+        if (reason != null)
+        {
+            System.out.println("DNS client: malformed response: " + reason);
+            return false;
+        }
+        return true;
+    }
+
+    /** Helper method:
+     * decode a received packet, see isValidResponse().
+     * @param packet a datagram packet we received.
+     * @return the DNS message, or null if the packet is not a valid one. */
+    private DNSMessage decodeResponse(DatagramPacket packet)
+    {
+        if (!this.isValidResponse(packet))
+        {
+            return null;
+        }
+        try
+        {
+            return DNSMessage.getMessageFromPacket(packet);
+        }catch (DNSDecodeException d)
+        {
+            // the validator accepts nothing the decoder rejects,
+            //  this is a safe guard.
+            System.out.println("DNS client: " + d.getMessage());
+            return null;
+        }
+    }
+
     /** Helper method for printing results.
      * @param responseMsg DNS Message decoded from a response packet.
      * @param rtt round trip time of the packet. */
@@ -816,17 +917,17 @@ public class Simple_DNS_Client {
     {
         // retrieve information.
         int qID = responseMsg.getQueryId();
-        String qName = responseMsg.getQueryName();
+        DNSName qName = responseMsg.getQueryDomainName();
         RecordType qType = RecordType.getByCode(
                 responseMsg.getQType());
-        String[] IPs = responseMsg.retrieveDNSAnswers(qName, qType);
+        DNSRecordRange answers = responseMsg.lookupAnswers(qName, qType);
 
         // print results.
-        System.out.println(qID + " " + qName + " "
+        System.out.println(qID + " " + qName.getName() + " "
                 + qType);
-        for (int i = 0; i < IPs.length; i++)
+        for (int i = 0; i < answers.size(); i++)
         {
-            System.out.print(IPs[i]);
+            System.out.print(answers.getRdataInfo(i));
             System.out.print(" ");
         }
         System.out.println(" RTT: " + rtt + " ms");
@@ -836,8 +937,8 @@ public class Simple_DNS_Client {
 
     /** Helper method for updating experimental results.
      * Takes the IP address we get for one query, update the experiment results.
-     * @param IPfromServer ip address we obtained from DNS response.*/
-    private void updateExperimentResults(String IPfromServer)
+     * @param IPfromServer ip address we obtained from DNS response, packed int.*/
+    private void updateExperimentResults(int IPfromServer)
     {
         Integer count = this.experimentResults.get(IPfromServer);
         if (count != null)
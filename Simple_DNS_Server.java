@@ -7,7 +7,7 @@
  *      packets to/from client. */
 import java.io.IOException;
 import java.net.*;
-import java.util.Arrays;
+import java.nio.BufferOverflowException;
 import java.util.Random;
 
 public class Simple_DNS_Server
@@ -19,8 +19,8 @@ public class Simple_DNS_Server
 
     // Variable used for this research project:
     // the pre-set IP address towards a query.
-    //  e.g. 192.168.56.4
-    private String answer_IP;
+    //  e.g. 192.168.56.4, kept as a packed int (see DNSRdataTypeA).
+    private int answer_IP;
 
     // isSeverMode: true stands for sever; false stands for attacker.
     // Attacker, is kind of a "server": it receives/passively noticed a
@@ -34,6 +34,21 @@ public class Simple_DNS_Server
     // the flag to be set at response header
     //  e.g. 0x1234
     private short headerFlag;
+
+    // variables used for sending responses without allocating
+    //  a new buffer and packet each time.
+    // the bytes buffer every response is encoded into.
+    private byte[] sendBuffer;
+    // the encoder that writes into sendBuffer.
+    private BigEndianEncoder sendEncoder;
+    // the packet that carries sendBuffer to a client.
+    private DatagramPacket sendPacket;
+
+    // variables used for answering a query without decoding it.
+    // the key of the last received query, reused for every packet.
+    private QueryKey queryKey;
+    // responses already sent, by question.
+    private ResponseCache responseCache;
     
     // Random Class object for generating possibility
     Random possibilityGenerator;
@@ -56,9 +71,16 @@ public class Simple_DNS_Server
         getInetAddress(server_IP);
         createSocket();
         // set the answer_IP, headerFlag, and isSeverMode
-        this.answer_IP = answer_IP;
+        this.answer_IP = DNSRdataTypeA.parseIPv4(answer_IP);
         this.headerFlag = headerFlag;
         this.isSeverMode = true;
+        // a UDP DNS message is at most 512 bytes (RFC1035 4.2.1).
+        this.sendBuffer = new byte[512];
+        this.sendEncoder = new BigEndianEncoder(this.sendBuffer, 0,
+                this.sendBuffer.length);
+        this.sendPacket = new DatagramPacket(this.sendBuffer, this.sendBuffer.length);
+        this.queryKey = new QueryKey();
+        this.responseCache = new ResponseCache(1024);
         // initialize two random variable.
         this.possibilityGenerator = new Random();
         this.delayTimeGenerator = new Random();
@@ -125,9 +147,8 @@ public class Simple_DNS_Server
      * @return a new DNS Message stands for DNS query. */
     private DNSMessage extractQuery(DatagramPacket recvPacket)
     {
-        byte[] receivedBuffer = recvPacket.getData();
-        BigEndianDecoder decoder = new BigEndianDecoder(receivedBuffer);
-        return new DNSMessage(decoder);
+
+        return DNSMessage.getMessageFromPacket(recvPacket);
     }
 
 
@@ -137,17 +158,20 @@ public class Simple_DNS_Server
      * @return a new DNS Message stands for DNS response. */
     private DNSMessage generateResponse(DNSMessage queryMsg)
     {
-        // create one resource record
-        String queryDomainName = queryMsg.getQueryName();
-        int rcode = queryMsg.getQType() & 0xffff;
-        RecordType rType = RecordType.getByCode(rcode);
-        short qClass = queryMsg.getQClass();
-        DNSResourceRecord oneAnswer = new DNSResourceRecord(queryDomainName,
-                rType, qClass, 3600, this.answer_IP);
-
-        // put it in answer section.
+        // the server only has an IPv4 address to give: a query of any
+        //  other TYPE gets an empty (NOERROR) answer section.
         DNSResourceRecords answers = new DNSResourceRecords();
-        answers.addOneRecord(oneAnswer);
+        if (queryMsg.getQType() == RecordType.A.getCode())
+        {
+            // create one resource record,
+            //  the answer reuses the DNSName decoded from the question.
+            DNSName queryDomainName = queryMsg.getQueryDomainName();
+            short qClass = queryMsg.getQClass();
+            DNSResourceRecord oneAnswer = new DNSResourceRecord(queryDomainName,
+                    RecordType.A, qClass, 3600, new DNSRdataTypeA(this.answer_IP));
+            // put it in answer section.
+            answers.addOneRecord(oneAnswer);
+        }
         // authorities and additions.
         DNSResourceRecords nameServers = new DNSResourceRecords();
         DNSResourceRecords additional = new DNSResourceRecords();
@@ -158,24 +182,71 @@ public class Simple_DNS_Server
 
 
     /** Helper method:
-     * Create a Datagram packet that will be sent to client.
+     * Fill the reusable datagram packet that will be sent to client.
+     * The response is encoded straight into this.sendBuffer.
      * @param response: DNS response Message, that HAS NOT BEEN ENCODED.
      * @param recvPacket: datagram packet received from a client.
-     * @return a datagram packet to be sent to that client. */
+     * @return a datagram packet to be sent to that client,
+     *          or null if the response does not fit in 512 bytes. */
     private DatagramPacket createSendPacket(DNSMessage response,
                                             DatagramPacket recvPacket)
     {
-        // first we encode the response, and get bytes buffer.
-        response.encode(response.getEncoder());
-        byte[] sendBuffer = response.tobytesBuffer();
-        int bufferLength = sendBuffer.length;
+        // encodedLength() counts every name uncompressed, so it is an
+        //  upper bound: we know the response fits before encoding anything.
+        //  Without compression it is exact, so larger means too large.
+        int maxLength = response.encodedLength();
+        if (maxLength > this.sendBuffer.length && !this.sendEncoder.isCompression())
+        {
+            System.out.println("Simple_DNS_Server: response is too large.");
+            return null;
+        }
+
+        // first we encode the response into the send buffer.
+        this.sendEncoder.reset();
+        if (maxLength <= this.sendBuffer.length)
+        {
+            response.encode(this.sendEncoder);
+        }
+        else
+        {
+            // with compression, it may fit even if encodedLength() does not,
+            //  only encoding it tells.
+            try
+            {
+                response.encode(this.sendEncoder);
+            }catch (BufferOverflowException b)
+            {
+                System.out.println("Simple_DNS_Server: response is too large.");
+                return null;
+            }
+        }
+        int bufferLength = this.sendEncoder.position();
 
         // now we get client IP and port info from recvPacket
-        InetAddress clientAddr = recvPacket.getAddress();
-        int clientPort = recvPacket.getPort();
+        this.sendPacket.setData(this.sendBuffer, 0, bufferLength);
+        this.sendPacket.setAddress(recvPacket.getAddress());
+        this.sendPacket.setPort(recvPacket.getPort());
+        return this.sendPacket;
+    }
 
-        return new DatagramPacket(sendBuffer, bufferLength,
-                clientAddr, clientPort);
+    /** Helper method:
+     * Send the cached response of the query in recvPacket, if there is one.
+     * this.queryKey must have been extracted from recvPacket.
+     * @param recvPacket: datagram packet received from a client.
+     * @return true if the response was cached and has been sent. */
+    private boolean sendCachedResponse(DatagramPacket recvPacket)
+    {
+        int length = this.responseCache.lookup(this.queryKey,
+                recvPacket.getData(), recvPacket.getOffset(), this.sendBuffer, 0);
+        if (length < 0)
+        {
+            return false;
+        }
+        this.sendPacket.setData(this.sendBuffer, 0, length);
+        this.sendPacket.setAddress(recvPacket.getAddress());
+        this.sendPacket.setPort(recvPacket.getPort());
+        this.sendMessage(this.sendPacket);
+        return true;
     }
 
     /** Helper method for sending DNS response
@@ -298,23 +369,64 @@ public class Simple_DNS_Server
         }
 
         // bytes buffer for creating the packet.
+        // It is reused for every query: the decoder only reads the
+        //  received length, so old bytes after it do no harm.
         byte[] recvBuffer = new byte[1024];
         int bufferLength = recvBuffer.length;
+        DatagramPacket recvPacket = new DatagramPacket(recvBuffer, bufferLength);
+        // number of malformed packets dropped.
+        long droppedCount = 0;
         System.out.println("DNS server: start running.");
         while (true)
         {
-            // set all bytes to 0. TODO: check
-            Arrays.fill(recvBuffer, (byte)0);
-            DatagramPacket recvPacket = new DatagramPacket(recvBuffer, bufferLength);
+            // receive() shrinks the length to the size of the packet.
+            recvPacket.setLength(bufferLength);
             try
             {
                 this.socket.receive(recvPacket);
+                // a malformed packet is dropped before anything is decoded,
+                //  without an exception or a line printed for each one.
+                //  It is checked before the cache, so whether a packet is
+                //  dropped never depends on what the cache holds.
+                if (DNSMessageValidator.validate(recvBuffer,
+                        recvPacket.getOffset(), recvPacket.getLength()) != null)
+                {
+                    droppedCount += 1;
+                    continue;
+                }
+                // a question we have answered before: the response only
+                //  needs the new ID, no need to decode anything.
+                boolean hasKey = this.queryKey.extract(recvBuffer,
+                        recvPacket.getOffset(), recvPacket.getLength());
+                if (hasKey && this.sendCachedResponse(recvPacket))
+                {
+                    continue;
+                }
                 // extract query and create response.
-                DNSMessage query = this.extractQuery(recvPacket);
+                DNSMessage query;
+                try
+                {
+                    query = this.extractQuery(recvPacket);
+                }catch (DNSDecodeException d)
+                {
+                    // not a DNS query we can answer, wait for the next one.
+                    System.out.println("Simple_DNS_Server: " + d.getMessage());
+                    continue;
+                }
                 DNSMessage response = this.generateResponse(query);
                 // encode the response and send it back to server.
                 DatagramPacket sendPacket = this.createSendPacket(response,
                         recvPacket);
+                if (sendPacket == null)
+                {
+                    // nothing we can send back for this query.
+                    continue;
+                }
+                if (hasKey)
+                {
+                    this.responseCache.put(this.queryKey, this.sendBuffer,
+                            0, sendPacket.getLength());
+                }
                 // now we try to send the packet using helper method.
                 this.sendMessage(sendPacket);
             }catch (SocketTimeoutException s)
@@ -330,6 +442,11 @@ public class Simple_DNS_Server
             }
         }
 
+        if (droppedCount > 0)
+        {
+            System.out.println("DNS server: dropped " + droppedCount
+                    + " malformed packets.");
+        }
         // close socket, and that's the end of program.
         this.socket.close();
     }
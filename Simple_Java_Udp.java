@@ -21,8 +21,10 @@ import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.nio.ByteBuffer;
 import java.net.*;
 import java.util.*;
+import java.util.function.IntSupplier;
 
 public class Simple_Java_Udp {
 
@@ -338,6 +340,1282 @@ public class Simple_Java_Udp {
         }
     }
 
+    /** For testing purpose.
+     * Measure how fast we can encode the response our Simple_DNS_Server
+     *  sends for every query, and how many bytes of heap each encoded
+     *  message costs.
+     * @param rounds - how many responses we encode in the measured loop.
+     *
+     * Experiment result: (rounds=1000000, one type A answer)
+     * ArrayList<Byte> encoder: ~0.46 M msg/s; 4320 bytes allocated per message.
+     * byte[] encoder:          ~0.47 M msg/s; 3952 bytes allocated per message.
+     * (Byte.valueOf() is cached, so the list did not box much. Most of the
+     *  time now goes to the split() in encodeName() and encodeIPv4().)
+     * DNSName caches bytes:    ~1.0 M msg/s;  2259 bytes allocated per message. */
+    public static void testEncodePerformance(int rounds)
+    {
+        DNSMessage query = new DNSMessage("www.uwo0.ca", 1234, RecordType.A);
+
+        Measurement measured = Simple_Java_Udp.measure(rounds,
+                () -> Simple_Java_Udp.encodeOneResponse(query).length);
+
+        double seconds = measured.nanos / 1e9;
+        System.out.println("encoded messages: " + rounds
+                + " (checksum " + measured.checksum + ")");
+        System.out.println("messages per second: "
+                + String.format("%.0f", rounds / seconds));
+        System.out.println("bytes allocated per message: "
+                + measured.allocatedBytes / rounds);
+    }
+
+    /** Helper method for testEncodePerformance():
+     * build and encode the same response Simple_DNS_Server would send.
+     * @param query - the DNS query we answer.
+     * @return the encoded response. */
+    private static byte[] encodeOneResponse(DNSMessage query)
+    {
+        DNSResourceRecord oneAnswer = new DNSResourceRecord(query.getQueryDomainName(),
+                RecordType.A, (short) 0x0001, 3600, "192.127.112.31");
+        DNSResourceRecords answers = new DNSResourceRecords();
+        answers.addOneRecord(oneAnswer);
+        DNSMessage response = new DNSMessage(query, (short) 0x1234, answers,
+                new DNSResourceRecords(), new DNSResourceRecords());
+        response.encode(response.getEncoder());
+        return response.tobytesBuffer();
+    }
+
+    /** For testing purpose.
+     * Compare packet size and encoding time of a response with many
+     *  records, with and without name compression.
+     * @param rounds - how many times we encode the response for each setting.
+     *
+     * Experiment result: (rounds=200000, 10 answers, 2 authorities, 2 additions)
+     * compression off: 399 bytes; ~13.4 - 15.8 us per message.
+     * compression on:  261 bytes; ~16.5 us per message.
+     * (Both are dominated by split() in encodeName() and encodeIPv4().)
+     * After DNSName caches its bytes:
+     * compression off: 399 bytes; ~6.0 - 6.6 us per message.
+     * compression on:  261 bytes; ~4.8 - 6.5 us per message. */
+    public static void testNameCompression(int rounds)
+    {
+        DNSMessage query = new DNSMessage("www.uwo0.ca", 1234, RecordType.A);
+        DNSResourceRecords answers = new DNSResourceRecords();
+        DNSResourceRecords authorities = new DNSResourceRecords();
+        DNSResourceRecords additional = new DNSResourceRecords();
+        for (int i = 0; i < 10; i++)
+        {
+            answers.addOneRecord(new DNSResourceRecord("www.uwo0.ca", RecordType.A,
+                    (short) 0x0001, 3600, "192.127.112." + i));
+        }
+        for (int i = 1; i <= 2; i++)
+        {
+            authorities.addOneRecord(new DNSResourceRecord("uwo0.ca", RecordType.A,
+                    (short) 0x0001, 3600, "10.0.0." + i));
+            additional.addOneRecord(new DNSResourceRecord("ns" + i + ".uwo0.ca",
+                    RecordType.A, (short) 0x0001, 3600, "10.0.1." + i));
+        }
+        DNSMessage response = new DNSMessage(query, (short) 0x8400, answers,
+                authorities, additional);
+
+        BigEndianEncoder encoder = new BigEndianEncoder();
+        boolean[] settings = {false, true};
+        for (boolean compression : settings)
+        {
+            encoder.setCompression(compression);
+            // warm up, then measure.
+            for (int i = 0; i < rounds / 10; i++)
+            {
+                encoder.reset();
+                response.encode(encoder);
+            }
+            long before = System.nanoTime();
+            for (int i = 0; i < rounds; i++)
+            {
+                encoder.reset();
+                response.encode(encoder);
+            }
+            long after = System.nanoTime();
+            System.out.println("compression " + (compression ? "on: " : "off: ")
+                    + encoder.position() + " bytes; "
+                    + (after - before) / rounds + " ns per message.");
+        }
+    }
+
+    /** For testing purpose.
+     * Measure GC pressure of the server's work under sustained load:
+     *  decode a query, build the response, and encode it, first with a new
+     *  decoder/encoder for every packet, then with the ones in CodecPool.
+     * @param rounds - how many queries we handle for each setting.
+     *
+     * Experiment result: (rounds=2000000, one type A answer)
+     * (-Xmx256m; the rest of the allocation is the DNSMessage objects.)
+     * new codecs:    1768 bytes/msg; ~135 GCs, 19 - 27 ms in GC.
+     * pooled codecs: 1232 bytes/msg; ~94 GCs,  17 - 18 ms in GC.
+     * Throughput is ~1.4 - 2.1 M msg/s for both, within run-to-run noise. */
+    public static void testCodecPool(int rounds)
+    {
+        DNSMessage query = new DNSMessage("www.uwo0.ca", 1234, RecordType.A);
+        byte[] queryBytes = new byte[512];
+        int queryLength = query.encodeInto(queryBytes, 0);
+        byte[] sendBuffer = new byte[512];
+
+        boolean[] settings = {false, true};
+        for (boolean pooled : settings)
+        {
+            Measurement measured = Simple_Java_Udp.measure(rounds,
+                    () -> Simple_Java_Udp.handleOneQuery(queryBytes,
+                            queryLength, sendBuffer, pooled));
+
+            double seconds = measured.nanos / 1e9;
+            System.out.println((pooled ? "pooled codecs: " : "new codecs:    ")
+                    + String.format("%.0f", rounds / seconds) + " msg/s; "
+                    + measured.allocatedBytes / rounds + " bytes/msg; "
+                    + measured.gcCount + " GCs, "
+                    + measured.gcMillis + " ms in GC"
+                    + " (checksum " + measured.checksum + ")");
+        }
+    }
+
+    /** Helper method for testCodecPool():
+     * decode a query, and encode the response into sendBuffer.
+     * @param queryBytes - the received query.
+     * @param queryLength - number of bytes of the query.
+     * @param sendBuffer - the array the response is encoded into.
+     * @param pooled - true to use CodecPool, false to create new codecs.
+     * @return number of bytes of the response. */
+    private static int handleOneQuery(byte[] queryBytes, int queryLength,
+                                      byte[] sendBuffer, boolean pooled)
+    {
+        BigEndianDecoder decoder;
+        if (pooled)
+        {
+            decoder = CodecPool.decoder(queryBytes, 0, queryLength);
+        }
+        else
+        {
+            decoder = new BigEndianDecoder(queryBytes, 0, queryLength);
+        }
+        DNSMessage query = new DNSMessage(decoder);
+
+        DNSResourceRecord oneAnswer = new DNSResourceRecord(query.getQueryDomainName(),
+                RecordType.A, (short) 0x0001, 3600, new DNSRdataTypeA(0xC07F701F));
+        DNSResourceRecords answers = new DNSResourceRecords();
+        answers.addOneRecord(oneAnswer);
+        DNSMessage response = new DNSMessage(query, (short) 0x1234, answers,
+                new DNSResourceRecords(), new DNSResourceRecords());
+
+        BigEndianEncoder encoder;
+        if (pooled)
+        {
+            encoder = CodecPool.encoder(sendBuffer, 0, sendBuffer.length);
+        }
+        else
+        {
+            encoder = new BigEndianEncoder(sendBuffer, 0, sendBuffer.length);
+        }
+        response.encode(encoder);
+        return encoder.position();
+    }
+
+    /** Helper method:
+     * @return total number of garbage collections so far, all collectors. */
+    private static long getGcCount()
+    {
+        long count = 0;
+        for (java.lang.management.GarbageCollectorMXBean gc :
+                java.lang.management.ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            count += gc.getCollectionCount();
+        }
+        return count;
+    }
+
+    /** Helper method:
+     * @return total time spent in garbage collection so far, in ms. */
+    private static long getGcTime()
+    {
+        long time = 0;
+        for (java.lang.management.GarbageCollectorMXBean gc :
+                java.lang.management.ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            time += gc.getCollectionTime();
+        }
+        return time;
+    }
+
+    // the bean allocatedBytes() reads, only looked up by the benchmarks.
+    private static com.sun.management.ThreadMXBean threadBean;
+
+    /** Helper method:
+     * @return bytes of heap the current thread has allocated so far. */
+    private static long allocatedBytes()
+    {
+        // looked up once: getting the bean allocates, which would be
+        //  counted in the measured loop.
+        if (Simple_Java_Udp.threadBean == null)
+        {
+            Simple_Java_Udp.threadBean = (com.sun.management.ThreadMXBean)
+                    java.lang.management.ManagementFactory.getThreadMXBean();
+        }
+        return Simple_Java_Udp.threadBean.getThreadAllocatedBytes(
+                Thread.currentThread().getId());
+    }
+
+    /** Helper method:
+     * run one round of a benchmark rounds / 10 times to warm up, so that
+     *  JIT has compiled it, then rounds times measured.
+     * @param rounds - how many rounds are measured.
+     * @param round - one round, returns a checksum so the JIT cannot drop
+     *                 the work.
+     * @return time, heap allocated and GCs of the measured rounds. */
+    private static Measurement measure(int rounds, IntSupplier round)
+    {
+        Measurement measured = new Measurement();
+        for (int i = 0; i < rounds / 10; i++)
+        {
+            measured.checksum += round.getAsInt();
+        }
+        long gcCountBefore = Simple_Java_Udp.getGcCount();
+        long gcTimeBefore = Simple_Java_Udp.getGcTime();
+        long allocatedBefore = Simple_Java_Udp.allocatedBytes();
+        long before = System.nanoTime();
+        for (int i = 0; i < rounds; i++)
+        {
+            measured.checksum += round.getAsInt();
+        }
+        measured.nanos = System.nanoTime() - before;
+        measured.allocatedBytes = Simple_Java_Udp.allocatedBytes() - allocatedBefore;
+        measured.gcCount = Simple_Java_Udp.getGcCount() - gcCountBefore;
+        measured.gcMillis = Simple_Java_Udp.getGcTime() - gcTimeBefore;
+        return measured;
+    }
+
+    /** What measure() returns: totals of the measured rounds. */
+    private static final class Measurement
+    {
+        private long nanos;
+        private long allocatedBytes;
+        private long gcCount;
+        private long gcMillis;
+        // sum of what every round returned, warm up included.
+        private int checksum;
+    }
+
+    /** For testing purpose.
+     * Fill a QueryArena with queries, then send all of them over UDP
+     *  to a local socket that never reads, and measure both steps.
+     * @param count - number of queries in the arena.
+     *
+     * Experiment result: (count=200000, 4 MB direct buffer reused for 2 runs)
+     * encode into the arena: ~0.9 M queries/s first run, ~2.0 M after JIT.
+     * send from the arena:   ~0.24 - 0.32 M queries/s (bound by the system
+     *                         call); 0 bytes of heap allocated per query. */
+    public static void testQueryArena(int count)
+    {
+        QueryArena arena = new QueryArena(count * 64, count);
+
+        try (java.nio.channels.DatagramChannel receiver =
+                     java.nio.channels.DatagramChannel.open();
+             java.nio.channels.DatagramChannel sender =
+                     java.nio.channels.DatagramChannel.open())
+        {
+            receiver.bind(new InetSocketAddress("127.0.0.1", 0));
+            SocketAddress target = receiver.getLocalAddress();
+
+            // the second run shows the arena is reused.
+            for (int run = 0; run < 2; run++)
+            {
+                arena.clear();
+                long before = System.nanoTime();
+                for (int i = 0; i < count; i++)
+                {
+                    arena.add("www.uwo" + (i % 1000) + ".ca", i & 0xFFFF, RecordType.A);
+                }
+                long filled = System.nanoTime();
+
+                long allocatedBefore = Simple_Java_Udp.allocatedBytes();
+                long sentBytes = 0;
+                for (int i = 0; i < count; i++)
+                {
+                    sentBytes += sender.send(arena.select(i), target);
+                }
+                long sent = System.nanoTime();
+                long allocatedAfter = Simple_Java_Udp.allocatedBytes();
+
+                System.out.println("run " + run + ": encoded " + arena.size()
+                        + " queries, " + String.format("%.0f",
+                        count / ((filled - before) / 1e9)) + " queries/s");
+                System.out.println("run " + run + ": sent " + sentBytes + " bytes, "
+                        + String.format("%.0f", count / ((sent - filled) / 1e9))
+                        + " queries/s, "
+                        + (allocatedAfter - allocatedBefore) / count
+                        + " bytes allocated per query");
+            }
+        }catch (IOException io)
+        {
+            System.out.println("testQueryArena: " + io.getMessage());
+        }
+    }
+
+    /** For testing purpose.
+     * Measure decoding of a response where most names are compressed,
+     *  with the decoder CodecPool keeps for this thread.
+     * @param rounds - how many times we decode the response.
+     *
+     * Experiment result: (rounds=1000000, 257 bytes, 14 records, 20 names
+     *  of which 18 are compressed; -XX:+UseParallelGC)
+     * HashMap<Integer, DNSName> name table: ~2.0 - 2.2 us; 4250 bytes/msg.
+     * DNSName[] indexed by offset:          ~1.5 - 1.7 us; 3337 bytes/msg.
+     * Same, lazy rdata (NS rdata skipped):  ~1.4 us;       3369 bytes/msg.
+     *  The additional records' names point into the NS rdata, so those
+     *  names are decoded anyway; only rdata nobody points to is saved.
+     * Names without pointer interned in DNSNamePool:
+     *                                       ~1.2 - 1.3 us; 2809 bytes/msg;
+     *                            lazy rdata: ~0.9 us;       2841 bytes/msg. */
+    public static void testDecodePerformance(int rounds)
+    {
+        DNSMessage query = new DNSMessage("www.uwo0.ca", 1234, RecordType.A);
+        DNSResourceRecords answers = new DNSResourceRecords();
+        DNSResourceRecords authorities = new DNSResourceRecords();
+        DNSResourceRecords additional = new DNSResourceRecords();
+        for (int i = 0; i < 10; i++)
+        {
+            answers.addOneRecord(new DNSResourceRecord("www.uwo0.ca", RecordType.A,
+                    (short) 0x0001, 3600, "192.127.112." + i));
+        }
+        for (int i = 1; i <= 2; i++)
+        {
+            authorities.addOneRecord(new DNSResourceRecord("uwo0.ca", RecordType.NS,
+                    (short) 0x0001, 3600, "ns" + i + ".uwo0.ca"));
+            additional.addOneRecord(new DNSResourceRecord("ns" + i + ".uwo0.ca",
+                    RecordType.A, (short) 0x0001, 3600, "10.0.1." + i));
+        }
+        DNSMessage response = new DNSMessage(query, (short) 0x8400, answers,
+                authorities, additional);
+        byte[] responseBytes = new byte[512];
+        int responseLength = response.encodeInto(responseBytes, 0);
+
+        Measurement measured = Simple_Java_Udp.measure(rounds,
+                () -> new DNSMessage(CodecPool.decoder(responseBytes, 0,
+                        responseLength)).getAnswerCount());
+        System.out.println("decode " + responseLength + " bytes: "
+                + measured.nanos / rounds + " ns per message; "
+                + measured.allocatedBytes / rounds
+                + " bytes allocated per message (checksum " + measured.checksum + ")");
+
+        // the same, but NS rdata is skipped, see DNSRdataLazy.
+        BigEndianDecoder lazyDecoder = new BigEndianDecoder(responseBytes, 0,
+                responseLength);
+        lazyDecoder.setLazyRdata(true);
+        measured = Simple_Java_Udp.measure(rounds, () ->
+        {
+            lazyDecoder.reset();
+            return new DNSMessage(lazyDecoder).getAnswerCount();
+        });
+        System.out.println("decode " + responseLength + " bytes, lazy rdata: "
+                + measured.nanos / rounds + " ns per message; "
+                + measured.allocatedBytes / rounds
+                + " bytes allocated per message (checksum " + measured.checksum + ")");
+    }
+
+    /** For testing purpose.
+     * Check parseIPv6() and formatIPv6() on known answers: the text form
+     *  must come back as RFC5952 recommends it, and bad addresses must be
+     *  refused. An error is printed for each address that does not.
+     * Then compare decoding a response with 10 A answers, and the same
+     *  response with 10 AAAA answers, then formatting every address to a
+     *  string.
+     * @param rounds - how many times we decode each response.
+     *
+     * Experiment result: (rounds=1000000; -XX:+UseParallelGC)
+     * 10 A:    ~1.0 us decode, ~1.2 us with getInfo();
+     * 10 AAAA: ~1.1 us decode, ~1.8 us with getInfo(). */
+    public static void testIPv6Performance(int rounds)
+    {
+        // {address, RFC5952 form}, null when it must be refused.
+        String[][] knownAnswers = {
+                {"2001:db8:0:0:1:0:0:1", "2001:db8::1:0:0:1"},
+                {"2001:0:0:1:0:0:0:1", "2001:0:0:1::1"},
+                {"::", "::"},
+                {"::1", "::1"},
+                {"1::", "1::"},
+                {"2001:DB8:0:0:0:0:0:ABCD", "2001:db8::abcd"},
+                {"1::2::3", null},
+                {"12345::", null}};
+        int failures = 0;
+        for (String[] knownAnswer : knownAnswers)
+        {
+            String formatted;
+            try
+            {
+                formatted = DNSRdataTypeAAAA.formatIPv6(
+                        DNSRdataTypeAAAA.parseIPv6(knownAnswer[0]));
+            }catch (IllegalArgumentException e)
+            {
+                formatted = null;
+            }
+            if (!Objects.equals(formatted, knownAnswer[1]))
+            {
+                failures += 1;
+                System.out.println("ipv6: error, " + knownAnswer[0] + " gives "
+                        + formatted + " instead of " + knownAnswer[1] + ".");
+            }
+        }
+        System.out.println("ipv6 known answers: " + (knownAnswers.length - failures)
+                + " of " + knownAnswers.length + " correct");
+
+        for (RecordType type : new RecordType[]{RecordType.A, RecordType.AAAA})
+        {
+            DNSMessage query = new DNSMessage("www.uwo0.ca", 1234, type);
+            DNSResourceRecords answers = new DNSResourceRecords();
+            for (int i = 0; i < 10; i++)
+            {
+                answers.addOneRecord(new DNSResourceRecord("www.uwo0.ca", type,
+                        (short) 0x0001, 3600, (type == RecordType.A)
+                        ? "192.127.112." + i : "2001:db8::" + i));
+            }
+            DNSMessage response = new DNSMessage(query, (short) 0x8400, answers,
+                    new DNSResourceRecords(), new DNSResourceRecords());
+            byte[] responseBytes = new byte[512];
+            int responseLength = response.encodeInto(responseBytes, 0);
+
+            for (boolean format : new boolean[]{false, true})
+            {
+                int checksum = 0;
+                long before = 0;
+                // the first tenth of the rounds is the warm up.
+                for (int i = -rounds / 10; i < rounds; i++)
+                {
+                    if (i == 0)
+                    {
+                        before = System.nanoTime();
+                    }
+                    DNSMessage decoded = new DNSMessage(CodecPool.decoder(
+                            responseBytes, 0, responseLength));
+                    if (format)
+                    {
+                        String[] addresses = decoded.retrieveDNSAnswers(
+                                "www.uwo0.ca", type);
+                        checksum += addresses[addresses.length - 1].length();
+                    }
+                    else
+                    {
+                        checksum += decoded.getAnswerCount();
+                    }
+                }
+                long after = System.nanoTime();
+                System.out.println("decode 10 " + type + (format ? " + getInfo(): " : ": ")
+                        + (after - before) / rounds + " ns per message (checksum "
+                        + checksum + ")");
+            }
+        }
+    }
+
+
+    /** For testing purpose.
+     * Compare ScalarNameScanner with the NameScanner chosen at startup, on
+     *  names of 12 to 255 bytes: equalsIgnoreCase() of the same name in
+     *  upper and lower case, and hashIgnoreCase().
+     * To have the vector one, run "make vector", then
+     *      java --add-modules jdk.incubator.vector -jar SimpleDNSSimulation.jar benchmark
+     * @param rounds - how many times we scan each name.
+     *
+     * Experiment result: (rounds=2000000; -XX:+UseParallelGC; AVX-512, vector512)
+     *              equals scalar / vector     hash scalar / vector
+     * 12 bytes:        ~19 ns / ~33 ns             ~18 ns / ~18 ns
+     * 32 bytes:        ~47 ns / ~41 ns             ~39 ns / ~28 ns
+     * 64 bytes:       ~137 ns / ~30 ns            ~120 ns / ~53 ns
+     * 128 bytes:      ~265 ns / ~25 ns            ~224 ns / ~67 ns
+     * 255 bytes:      ~582 ns / ~35 ns            ~478 ns / ~130 ns
+     * So it pays off from about 32 bytes; most names we see are shorter.
+     * With 128-bit vectors: (-XX:MaxVectorSize=16)
+     *              equals scalar / vector     hash scalar / vector
+     * 12 bytes:        ~22 ns / ~43 ns             ~18 ns / ~32 ns
+     * 64 bytes:       ~134 ns / ~38 ns            ~108 ns / ~76 ns
+     * 255 bytes:      ~550 ns / ~95 ns            ~420 ns / ~283 ns
+     * With -XX:UseAVX=0 the vector one would be 20-30x slower than scalar
+     *  (the JIT does not compile it), NameScanner keeps the scalar one. */
+    public static void testNameScanner(int rounds)
+    {
+        // with the module added and the class there, the vector one must
+        //  have been chosen: falling back means it failed on this CPU.
+        boolean vectorAvailable = ModuleLayer.boot().findModule("jdk.incubator.vector")
+                .isPresent() && Boolean.parseBoolean(System.getProperty("dns.vector", "true"))
+                && NameScanner.isVectorCompiled();
+        try
+        {
+            Class.forName("VectorNameScanner", false,
+                    Simple_Java_Udp.class.getClassLoader());
+        }catch (ClassNotFoundException c)
+        {
+            vectorAvailable = false;
+        }
+        System.out.println("NameScanner: " + NameScanner.get().getName());
+        if (vectorAvailable && NameScanner.get() instanceof ScalarNameScanner)
+        {
+            System.out.println("NameScanner: error, the vector scanner failed"
+                    + " to load, scalar is used.");
+        }
+
+        NameScanner[] scanners = new NameScanner[]{new ScalarNameScanner(),
+                NameScanner.get()};
+        for (int length : new int[]{12, 32, 64, 128, 255})
+        {
+            // labels of up to 63 letters, then the root label.
+            byte[] lower = new byte[length];
+            int index = 0;
+            while (index < length - 1)
+            {
+                int labelLength = Math.min(63, length - 2 - index);
+                lower[index++] = (byte) labelLength;
+                for (int i = 0; i < labelLength; i++)
+                {
+                    lower[index++] = (byte) ('a' + (index % 26));
+                }
+            }
+            byte[] upper = new byte[length];
+            for (int i = 0; i < length; i++)
+            {
+                upper[i] = (lower[i] >= 'a' && lower[i] <= 'z')
+                        ? (byte) (lower[i] - ('a' - 'A')) : lower[i];
+            }
+
+            for (NameScanner scanner : scanners)
+            {
+                // warm up: the scanning method is called many times, so the
+                //  JIT compiles it (and the vector operations in it).
+                int checksum = 0;
+                for (int i = 0; i < 20; i++)
+                {
+                    checksum += Simple_Java_Udp.scanNames(scanner, lower, upper,
+                            rounds / 100, false);
+                    checksum += Simple_Java_Udp.scanNames(scanner, lower, upper,
+                            rounds / 100, true);
+                }
+                long before = System.nanoTime();
+                checksum += Simple_Java_Udp.scanNames(scanner, lower, upper,
+                        rounds, false);
+                long middle = System.nanoTime();
+                checksum += Simple_Java_Udp.scanNames(scanner, lower, upper,
+                        rounds, true);
+                long after = System.nanoTime();
+                System.out.println(String.format(
+                        "%s, %d bytes: equals %.1f ns, hash %.1f ns (checksum %d)",
+                        scanner.getName(), length,
+                        (double) (middle - before) / rounds,
+                        (double) (after - middle) / rounds, checksum));
+            }
+        }
+    }
+
+
+    /** Helper method for testNameScanner():
+     * compare lower with upper, or hash upper, rounds times.
+     * @return a checksum, so the JIT cannot skip the work. */
+    private static int scanNames(NameScanner scanner, byte[] lower, byte[] upper,
+                                 int rounds, boolean hash)
+    {
+        int checksum = 0;
+        for (int i = 0; i < rounds; i++)
+        {
+            if (hash)
+            {
+                checksum += scanner.hashIgnoreCase(upper, 0, upper.length);
+            }
+            else if (scanner.equalsIgnoreCase(lower, 0, upper, 0, lower.length))
+            {
+                checksum += 1;
+            }
+        }
+        return checksum;
+    }
+
+
+    /** Helper method for testRelayUnknownTypes() and testMalformedPackets():
+     * add an SRV and an RRSIG record to answers, and an OPT record (EDNS,
+     *  one cookie option) to additional, so the tests also cover these
+     *  layouts; names are in uwo0.ca.
+     * @param answers - answer section to add to.
+     * @param additional - additional section to add to. */
+    private static void addSrvRrsigOpt(DNSResourceRecords answers,
+                                       DNSResourceRecords additional)
+    {
+        byte[] signature = new byte[64];
+        for (int i = 0; i < signature.length; i++)
+        {
+            signature[i] = (byte) (i * 7);
+        }
+        answers.addOneRecord(new DNSResourceRecord(new DNSLabels("_sip._udp.uwo0.ca"),
+                RecordType.SRV, (short) 0x0001, 3600, new DNSRdataTypeSRV((short) 10,
+                (short) 60, (short) 5060, new DNSLabels("sip.uwo0.ca"))));
+        answers.addOneRecord(new DNSResourceRecord(new DNSLabels("web.uwo0.ca"),
+                RecordType.RRSIG, (short) 0x0001, 3600, new DNSRdataTypeRRSIG(
+                (short) RecordType.A.getCode(), (byte) 8, (byte) 3, 3600,
+                1767225600, 1764547200, (short) 12345, new DNSLabels("uwo0.ca"),
+                signature)));
+        DNSRdataTypeOPT options = new DNSRdataTypeOPT();
+        options.addOption(10, new byte[]{1, 2, 3, 4, 5, 6, 7, 8});
+        // CLASS is the UDP payload size, TTL the extended RCODE and flags.
+        additional.addOneRecord(new DNSResourceRecord(new DNSLabels(""),
+                RecordType.OPT, (short) 1232, 0, options));
+    }
+
+
+    /** For testing purpose.
+     * Relay a response: decode it, encode it again, and check the bytes are
+     *  the same as received. The response has every rdata type we encode
+     *  (A, NS, CNAME, SOA, MX, TXT, AAAA, MINFO, PTR, SRV, RRSIG, OPT) with
+     *  compressed names where RFC allows them,
+     *  and records of types we do not know (99, 65280), which are kept as
+     *  slices of the received bytes (see DNSRdataTypeRaw).
+     * Then measures the relay: from a byte array, where unknown rdata is a
+     *  slice; and from a direct ByteBuffer, where it is copied out.
+     * @param rounds - how many times we relay the response.
+     *
+     * Experiment result: (rounds=1000000; 774 bytes, 20 records, 3 of
+     *  unknown types with 264 bytes of rdata; -XX:+UseParallelGC)
+     * Both relays are byte-identical.
+     * rdata sliced: ~8.4 us per message; 9320 bytes allocated per message;
+     * rdata copied: ~12.5 - 16 us per message; 9864 bytes allocated per
+     *               message: the copies (unknown rdata, the signature, the
+     *               option) cost ~540 bytes, the rest of the time is
+     *               reading every field from a direct buffer. */
+    public static void testRelayUnknownTypes(int rounds)
+    {
+        DNSMessage query = new DNSMessage("www.uwo0.ca", 1234, RecordType.A);
+        DNSName zone = new DNSLabels("uwo0.ca");
+        DNSResourceRecords answers = new DNSResourceRecords();
+        DNSResourceRecords authorities = new DNSResourceRecords();
+        DNSResourceRecords additional = new DNSResourceRecords();
+        byte[] small = new byte[32];
+        byte[] large = new byte[200];
+        for (int i = 0; i < large.length; i++)
+        {
+            large[i] = (byte) i;
+            small[i % small.length] = (byte) (0xFF - i);
+        }
+        answers.addOneRecord(new DNSResourceRecord("www.uwo0.ca", RecordType.CNAME,
+                (short) 0x0001, 3600, "web.uwo0.ca"));
+        for (int i = 0; i < 4; i++)
+        {
+            answers.addOneRecord(new DNSResourceRecord("web.uwo0.ca", RecordType.A,
+                    (short) 0x0001, 3600, "192.127.112." + i));
+        }
+        answers.addOneRecord(new DNSResourceRecord(new DNSLabels("web.uwo0.ca"),
+                (short) 99, (short) 0x0001, 3600, new DNSRdataTypeRaw(small)));
+        answers.addOneRecord(new DNSResourceRecord(new DNSLabels("web.uwo0.ca"),
+                (short) 65280, (short) 0x0001, 3600, new DNSRdataTypeRaw(large)));
+        answers.addOneRecord(new DNSResourceRecord("web.uwo0.ca", RecordType.TXT,
+                (short) 0x0001, 3600, "v=spf1 -all"));
+        authorities.addOneRecord(new DNSResourceRecord("uwo0.ca", RecordType.NS,
+                (short) 0x0001, 3600, "ns1.uwo0.ca"));
+        authorities.addOneRecord(new DNSResourceRecord(zone, RecordType.SOA,
+                (short) 0x0001, 3600, new DNSRdataTypeSOA(new DNSLabels("ns1.uwo0.ca"),
+                new DNSLabels("admin.uwo0.ca"), 2024010101, 7200, 3600, 1209600, 300)));
+        authorities.addOneRecord(new DNSResourceRecord("uwo0.ca", RecordType.MX,
+                (short) 0x0001, 3600, "10 mail.uwo0.ca"));
+        additional.addOneRecord(new DNSResourceRecord("ns1.uwo0.ca", RecordType.AAAA,
+                (short) 0x0001, 3600, "2001:db8::53"));
+        additional.addOneRecord(new DNSResourceRecord(zone, (short) 14, (short) 0x0001,
+                3600, new DNSRdataTypeMINFO(new DNSLabels("admin.uwo0.ca"),
+                new DNSLabels("errors.uwo0.ca"))));
+        additional.addOneRecord(new DNSResourceRecord(new DNSLabels("1.112.127.192.in-addr.arpa"),
+                (short) 12, (short) 0x0001, 3600,
+                new DNSRdataTypeMdfbgrPtr(new DNSLabels("web.uwo0.ca"))));
+        additional.addOneRecord(new DNSResourceRecord(new DNSLabels("ns1.uwo0.ca"),
+                (short) 99, (short) 0x0001, 3600, new DNSRdataTypeRaw(small)));
+        Simple_Java_Udp.addSrvRrsigOpt(answers, additional);
+        DNSMessage response = new DNSMessage(query, (short) 0x8400, answers,
+                authorities, additional);
+        byte[] received = new byte[1024];
+        int receivedLength = response.encodeInto(received, 0);
+        ByteBuffer direct = ByteBuffer.allocateDirect(receivedLength);
+        direct.put(received, 0, receivedLength);
+        direct.flip();
+
+        byte[] relayed = new byte[1024];
+        for (boolean fromDirect : new boolean[]{false, true})
+        {
+            BigEndianDecoder decoder = fromDirect ? new BigEndianDecoder(direct.duplicate())
+                    : new BigEndianDecoder(received, 0, receivedLength);
+            int relayedLength = new DNSMessage(decoder).encodeInto(relayed, 0);
+            boolean same = Arrays.equals(received, 0, receivedLength,
+                    relayed, 0, relayedLength);
+            System.out.println("relay " + receivedLength + " bytes"
+                    + (fromDirect ? " from a direct buffer" : "")
+                    + ": byte-identical " + same);
+            if (!same)
+            {
+                System.out.println("relay: error, the relayed response is not"
+                        + " the one received.");
+            }
+        }
+
+        for (boolean fromDirect : new boolean[]{false, true})
+        {
+            Measurement measured = Simple_Java_Udp.measure(rounds, () ->
+            {
+                BigEndianDecoder decoder = fromDirect
+                        ? new BigEndianDecoder(direct.duplicate())
+                        : new BigEndianDecoder(received, 0, receivedLength);
+                return new DNSMessage(decoder).encodeInto(relayed, 0);
+            });
+            System.out.println((fromDirect ? "relay, rdata copied: " : "relay, rdata sliced: ")
+                    + measured.nanos / rounds + " ns per message; "
+                    + measured.allocatedBytes / rounds
+                    + " bytes allocated per message (checksum " + measured.checksum + ")");
+        }
+    }
+
+
+    /** For testing purpose.
+     * Split a DNS-over-TCP stream of 100 responses (each with 10 A answers)
+     *  into messages with DNSFrameDecoder, the stream fed in chunks of 1460
+     *  bytes (one TCP segment), so most messages are split over two chunks.
+     * Measures splitting only (next()), then splitting and decoding.
+     * @param rounds - how many times we split the whole stream.
+     *
+     * Experiment result: (rounds=20000; -XX:+UseParallelGC)
+     * split:            ~20 - 35 ns per message, nothing allocated once the
+     *                   array is large enough;
+     * split and decode: ~600 ns per message, the same as decoding a
+     *                   datagram: the stream adds no copy of the message. */
+    public static void testFrameDecoder(int rounds)
+    {
+        DNSMessage query = new DNSMessage("www.uwo0.ca", 1234, RecordType.A);
+        DNSResourceRecords answers = new DNSResourceRecords();
+        for (int i = 0; i < 10; i++)
+        {
+            answers.addOneRecord(new DNSResourceRecord("www.uwo0.ca", RecordType.A,
+                    (short) 0x0001, 3600, "192.127.112." + i));
+        }
+        DNSMessage response = new DNSMessage(query, (short) 0x8400, answers,
+                new DNSResourceRecords(), new DNSResourceRecords());
+        byte[] stream = new byte[100 * 512];
+        int streamLength = 0;
+        for (int i = 0; i < 100; i++)
+        {
+            streamLength += DNSFrameDecoder.encodeFrame(response, stream, streamLength);
+        }
+
+        DNSFrameDecoder frames = new DNSFrameDecoder();
+        for (boolean decode : new boolean[]{false, true})
+        {
+            int checksum = 0;
+            long before = 0;
+            // the first tenth of the rounds is the warm up.
+            for (int i = -rounds / 10; i < rounds; i++)
+            {
+                if (i == 0)
+                {
+                    before = System.nanoTime();
+                }
+                for (int offset = 0; offset < streamLength; offset += 1460)
+                {
+                    frames.feed(stream, offset, Math.min(1460, streamLength - offset));
+                    BigEndianDecoder decoder;
+                    while ((decoder = frames.next()) != null)
+                    {
+                        if (decode)
+                        {
+                            checksum += new DNSMessage(decoder).getAnswerCount();
+                        }
+                        else
+                        {
+                            checksum += decoder.getLength();
+                        }
+                    }
+                }
+            }
+            long after = System.nanoTime();
+            System.out.println((decode ? "split and decode: " : "split: ")
+                    + (after - before) / (rounds * 100L) + " ns per message (checksum "
+                    + checksum + ")");
+        }
+    }
+
+
+    /** For testing purpose.
+     * Keep the answers of many decoded responses (10 A records each, every
+     *  response for its own name), once as DNSResourceRecords and once as
+     *  CompactResourceRecords, and measure the heap they hold (used heap
+     *  after a GC, before and after). Then look up the addresses of every
+     *  name in both, to see what reading from the arrays costs, and walk
+     *  every compact record with its iterator and with a cursor.
+     * @param count - number of responses kept.
+     *
+     * Experiment result: (count=20000; -XX:+UseParallelGC)
+     * heap:           objects ~171 bytes per record, compact ~43 bytes per
+     *                 record (4x less; 7 arrays and their headers for each
+     *                 10 records, so larger answer sets save a bit more);
+     * getIPv4sOfName: objects ~760 - 1020 ns, compact ~140 - 230 ns per
+     *                 lookup of 10 records: the compact one reads a few
+     *                 arrays instead of following 10 object graphs;
+     * walk all records: iterator ~270 ns and ~125 bytes allocated per
+     *                 record (each one decoded), CompactRecordCursor
+     *                 ~35 ns and nothing allocated. */
+    public static void testCompactRecords(int count)
+    {
+        byte[][] packets = new byte[count][];
+        DNSName[] names = new DNSName[count];
+        for (int i = 0; i < count; i++)
+        {
+            String name = "www.uwo" + i + ".ca";
+            DNSMessage query = new DNSMessage(name, i, RecordType.A);
+            DNSResourceRecords answers = new DNSResourceRecords();
+            for (int j = 0; j < 10; j++)
+            {
+                answers.addOneRecord(new DNSResourceRecord(name, RecordType.A,
+                        (short) 0x0001, 3600, "10." + (i >> 8 & 0xFF) + "."
+                        + (i & 0xFF) + "." + j));
+            }
+            DNSMessage response = new DNSMessage(query, (short) 0x8400, answers,
+                    new DNSResourceRecords(), new DNSResourceRecords());
+            response.encode(response.getEncoder());
+            packets[i] = response.tobytesBuffer();
+            names[i] = new DNSLabels(name);
+        }
+
+        DNSResourceRecords[] objects = new DNSResourceRecords[count];
+        CompactResourceRecords[] compact = new CompactResourceRecords[count];
+        long base = Simple_Java_Udp.usedHeap();
+        for (int i = 0; i < count; i++)
+        {
+            objects[i] = new DNSMessage(new BigEndianDecoder(packets[i])).getAnswers();
+        }
+        long objectBytes = Simple_Java_Udp.usedHeap() - base;
+        for (int i = 0; i < count; i++)
+        {
+            compact[i] = objects[i].compact();
+        }
+        Arrays.fill(objects, null);
+        long compactBytes = Simple_Java_Udp.usedHeap() - base;
+        System.out.println("objects: " + objectBytes / (count * 10L)
+                + " bytes per record");
+        System.out.println("compact: " + compactBytes / (count * 10L)
+                + " bytes per record");
+
+        for (int i = 0; i < count; i++)
+        {
+            objects[i] = new DNSMessage(new BigEndianDecoder(packets[i])).getAnswers();
+        }
+        for (boolean useCompact : new boolean[]{false, true})
+        {
+            long checksum = 0;
+            long before = 0;
+            // the first 10 rounds are the warm up.
+            for (int round = -10; round < 100; round++)
+            {
+                if (round == 0)
+                {
+                    before = System.nanoTime();
+                }
+                for (int i = 0; i < count; i++)
+                {
+                    int[] addresses = useCompact ? compact[i].getIPv4sOfName(names[i])
+                            : objects[i].getIPv4sOfName(names[i]);
+                    checksum += addresses[addresses.length - 1];
+                }
+            }
+            long after = System.nanoTime();
+            System.out.println((useCompact ? "compact" : "objects")
+                    + " getIPv4sOfName: " + (after - before) / (count * 100L)
+                    + " ns per lookup (checksum " + checksum + ")");
+        }
+
+        // walk every compact record: decoded by the iterator, or read in
+        //  place by one cursor reset for each section.
+        CompactRecordCursor cursor = compact[0].cursor();
+        for (boolean useCursor : new boolean[]{false, true})
+        {
+            // 10 walks over all the sections, after one to warm up.
+            Measurement measured = Simple_Java_Udp.measure(10, () ->
+            {
+                int checksum = 0;
+                for (int i = 0; i < count; i++)
+                {
+                    if (useCursor)
+                    {
+                        cursor.reset(compact[i]);
+                        while (cursor.next())
+                        {
+                            checksum += cursor.getTTL() + cursor.getIPv4Address();
+                        }
+                    }
+                    else
+                    {
+                        for (DNSResourceRecord record : compact[i])
+                        {
+                            checksum += record.getTTL()
+                                    + ((DNSRdataTypeA) record.getRdata()).getAddress();
+                        }
+                    }
+                }
+                return checksum;
+            });
+            System.out.println((useCursor ? "compact cursor:   " : "compact iterator: ")
+                    + measured.nanos / (count * 100L) + " ns; "
+                    + measured.allocatedBytes / (count * 100L)
+                    + " bytes allocated per record (checksum " + measured.checksum + ")");
+        }
+    }
+
+
+    /** Helper method:
+     * @return bytes used in the heap after a full GC. */
+    private static long usedHeap()
+    {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++)
+        {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+
+    /** For testing purpose.
+     * Look up the answers of every name of a decoded answer section of 50
+     *  records (10 names, each with 4 A records and 1 AAAA record):
+     *  scan:         compare every record, like getIPsOfName() did;
+     *  getIPsOfName: through the index, into a new String[];
+     *  lookup:       through the index, the reused DNSRecordRange.
+     * @param rounds - how many times we look up the 10 names.
+     *
+     * Experiment result: (rounds=1000000; -XX:+UseParallelGC)
+     * scan:         ~430 - 490 ns per name, it compares all 50 records;
+     * getIPsOfName: ~60 - 80 ns per name, 32 bytes (the array) per name;
+     * lookup:       ~45 - 60 ns per name, nothing allocated.
+     * The index is built by the first lookup of the section. */
+    public static void testRecordLookup(int rounds)
+    {
+        DNSMessage query = new DNSMessage("www.uwo0.ca", 1234, RecordType.A);
+        DNSResourceRecords answers = new DNSResourceRecords();
+        DNSName[] names = new DNSName[10];
+        for (int i = 0; i < 10; i++)
+        {
+            names[i] = new DNSLabels("WWW.uwo" + i + ".ca");
+            for (int j = 0; j < 4; j++)
+            {
+                answers.addOneRecord(new DNSResourceRecord("www.uwo" + i + ".ca",
+                        RecordType.A, (short) 0x0001, 3600, "10.0." + i + "." + j));
+            }
+            answers.addOneRecord(new DNSResourceRecord("www.uwo" + i + ".ca",
+                    RecordType.AAAA, (short) 0x0001, 3600, "2001:db8::" + i));
+        }
+        DNSMessage response = new DNSMessage(query, (short) 0x8400, answers,
+                new DNSResourceRecords(), new DNSResourceRecords());
+        byte[] responseBytes = new byte[2048];
+        int responseLength = response.encodeInto(responseBytes, 0);
+        DNSMessage decoded = new DNSMessage(new BigEndianDecoder(
+                Arrays.copyOf(responseBytes, responseLength)));
+
+        for (String mode : new String[]{"scan", "getIPsOfName", "lookup"})
+        {
+            Measurement measured = Simple_Java_Udp.measure(rounds,
+                    () -> Simple_Java_Udp.lookupNames(decoded, names, mode));
+            System.out.println(mode + ": " + measured.nanos / (rounds * 10L)
+                    + " ns per name; " + measured.allocatedBytes / (rounds * 10L)
+                    + " bytes per name (checksum " + measured.checksum + ")");
+        }
+    }
+
+
+    /** Helper method:
+     * look up the A records of each name in the answers of a message.
+     * @return the number of bytes of the last address of each name. */
+    private static int lookupNames(DNSMessage message, DNSName[] names, String mode)
+    {
+        int checksum = 0;
+        for (DNSName name : names)
+        {
+            if (mode.equals("scan"))
+            {
+                String last = null;
+                for (DNSResourceRecord record : message.getAnswers())
+                {
+                    if (record.getType() == RecordType.A.getCode()
+                            && record.getDnsName().equals(name))
+                    {
+                        last = record.getRdataInfo();
+                    }
+                }
+                checksum += last.length();
+            }
+            else if (mode.equals("getIPsOfName"))
+            {
+                String[] addresses = message.retrieveDNSAnswers(name, RecordType.A);
+                checksum += addresses[addresses.length - 1].length();
+            }
+            else
+            {
+                DNSRecordRange addresses = message.lookupAnswers(name, RecordType.A);
+                checksum += addresses.getRdataInfo(addresses.size() - 1).length();
+            }
+        }
+        return checksum;
+    }
+
+
+    /** For testing purpose.
+     * Decode a fuzz corpus of malformed responses: hand-made cases (pointer
+     *  loops, forward pointers, bad labels, names over 255 bytes, long
+     *  pointer chains, huge section counts, bad RDLENGTH), then random
+     *  mutations of a valid response (CNAME, A, SRV, RRSIG, NS, MX and OPT
+     *  records), from a fixed seed so every run sees the same packets.
+     * Checks that decoding only ever fails with DNSDecodeException, and that
+     *  every packet DNSMessageValidator accepts decodes without one.
+     * @param rounds - number of random mutations.
+     *
+     * Experiment result: (rounds=1000000; -XX:+UseParallelGC)
+     * 648142 packets rejected by the decoder, all with DNSDecodeException;
+     *  no other exception, and no packet the validator accepted failed.
+     * validate:                      ~160 ns per packet, nothing allocated;
+     * decode (most of them invalid): ~1.3 us per packet. */
+    public static void testMalformedPackets(int rounds)
+    {
+        DNSMessage query = new DNSMessage("www.uwo0.ca", 1234, RecordType.A);
+        DNSResourceRecords answers = new DNSResourceRecords();
+        DNSResourceRecords authorities = new DNSResourceRecords();
+        DNSResourceRecords additional = new DNSResourceRecords();
+        answers.addOneRecord(new DNSResourceRecord("www.uwo0.ca", RecordType.CNAME,
+                (short) 0x0001, 3600, "web.uwo0.ca"));
+        answers.addOneRecord(new DNSResourceRecord("web.uwo0.ca", RecordType.A,
+                (short) 0x0001, 3600, "192.127.112.31"));
+        authorities.addOneRecord(new DNSResourceRecord("uwo0.ca", RecordType.NS,
+                (short) 0x0001, 3600, "ns1.uwo0.ca"));
+        additional.addOneRecord(new DNSResourceRecord("uwo0.ca", RecordType.MX,
+                (short) 0x0001, 3600, "10 mail.uwo0.ca"));
+        Simple_Java_Udp.addSrvRrsigOpt(answers, additional);
+        DNSMessage response = new DNSMessage(query, (short) 0x8400, answers,
+                authorities, additional);
+        byte[] valid = new byte[512];
+        int validLength = response.encodeInto(valid, 0);
+        valid = Arrays.copyOf(valid, validLength);
+
+        List<byte[]> corpus = new ArrayList<>();
+        corpus.add(valid);
+        // shorter than a header.
+        corpus.add(Arrays.copyOf(valid, 5));
+        // every truncation of the valid response.
+        for (int i = DNSHeader.HEADER_LENGTH; i < validLength; i++)
+        {
+            corpus.add(Arrays.copyOf(valid, i));
+        }
+        // question name is a pointer to itself, or forward, or into the header.
+        corpus.add(Simple_Java_Udp.withName(valid, new byte[]{(byte) 0xC0, 12}));
+        corpus.add(Simple_Java_Udp.withName(valid, new byte[]{(byte) 0xC0, 100}));
+        corpus.add(Simple_Java_Udp.withName(valid, new byte[]{(byte) 0xC0, 0}));
+        // a label, then a pointer back to the label: a loop.
+        corpus.add(Simple_Java_Udp.withName(valid,
+                new byte[]{1, 'a', (byte) 0xC0, 12}));
+        // label types 01 and 10.
+        corpus.add(Simple_Java_Udp.withName(valid, new byte[]{0x40, 'a', 0}));
+        corpus.add(Simple_Java_Udp.withName(valid, new byte[]{(byte) 0x80, 'a', 0}));
+        // a name of 300 bytes, and one of 200 one-byte labels.
+        byte[] longName = new byte[301];
+        for (int i = 0; i < 300; i += 60)
+        {
+            longName[i] = 59;
+            Arrays.fill(longName, i + 1, i + 60, (byte) 'a');
+        }
+        corpus.add(Simple_Java_Udp.withName(valid, longName));
+        byte[] manyLabels = new byte[401];
+        for (int i = 0; i < 400; i += 2)
+        {
+            manyLabels[i] = 1;
+            manyLabels[i + 1] = 'a';
+        }
+        corpus.add(Simple_Java_Udp.withName(valid, manyLabels));
+        // a name at the end of a chain of pointers, each to the one before
+        //  it: 100 is fine, 300 is too many.
+        corpus.add(Simple_Java_Udp.pointerChain(100));
+        corpus.add(Simple_Java_Udp.pointerChain(300));
+        // huge section counts.
+        for (int field = DNSHeader.QUESTION_COUNT_OFFSET;
+             field <= DNSHeader.ADDITIONAL_COUNT_OFFSET; field += 2)
+        {
+            byte[] counts = valid.clone();
+            DNSHeader.setField(counts, 0, field, 0xFFFF);
+            corpus.add(counts);
+        }
+        // RDLENGTH of every record too large, too small, and zero.
+        for (int offset = DNSHeader.HEADER_LENGTH; offset + 1 < validLength; offset++)
+        {
+            // find each RDLENGTH by the TTL 3600 (0x00000e10) before it.
+            if (valid[offset] == 0x0e && valid[offset + 1] == 0x10
+                    && offset + 3 < validLength)
+            {
+                for (int rdLength : new int[]{0, 1, 0x7FFF, 0xFFFF})
+                {
+                    byte[] bad = valid.clone();
+                    DNSHeader.setField(bad, 0, offset + 2, rdLength);
+                    corpus.add(bad);
+                }
+            }
+        }
+        int fixedCases = corpus.size();
+
+        // random mutations: flip bytes, write pointers, cut the end.
+        Random random = new Random(2021);
+        for (int i = 0; i < rounds; i++)
+        {
+            byte[] mutated = valid.clone();
+            int mutations = 1 + random.nextInt(4);
+            int length = validLength;
+            for (int m = 0; m < mutations; m++)
+            {
+                int at = random.nextInt(validLength);
+                switch (random.nextInt(4))
+                {
+                    case 0:
+                        mutated[at] = (byte) random.nextInt(256);
+                        break;
+                    case 1:
+                        mutated[at] = (byte) (0xC0 | random.nextInt(64));
+                        break;
+                    case 2:
+                        mutated[at] ^= (byte) (1 << random.nextInt(8));
+                        break;
+                    default:
+                        length = Math.min(length, at);
+                        break;
+                }
+            }
+            corpus.add(length == validLength ? mutated : Arrays.copyOf(mutated, length));
+        }
+        System.out.println("fuzz corpus: " + fixedCases + " hand-made, "
+                + (corpus.size() - fixedCases) + " random packets");
+
+        int accepted = 0;
+        int rejected = 0;
+        int disagreements = 0;
+        int otherErrors = 0;
+        EnumMap<DNSDecodeException.Reason, Integer> reasons =
+                new EnumMap<>(DNSDecodeException.Reason.class);
+        for (byte[] packet : corpus)
+        {
+            DNSDecodeException.Reason reason = DNSMessageValidator.validate(packet,
+                    0, packet.length);
+            try
+            {
+                new DNSMessage(CodecPool.decoder(packet, 0, packet.length));
+                accepted += (reason == null) ? 1 : 0;
+            }catch (DNSDecodeException d)
+            {
+                rejected += 1;
+                reasons.merge(d.getReason(), 1, Integer::sum);
+                if (reason == null)
+                {
+                    disagreements += 1;
+                    System.out.println("validator accepted, decoder threw: "
+                            + d.getMessage());
+                }
+            }catch (RuntimeException | StackOverflowError e)
+            {
+                otherErrors += 1;
+                if (otherErrors <= 5)
+                {
+                    System.out.println("unexpected " + e);
+                }
+            }
+        }
+        System.out.println("fuzz corpus: " + accepted + " valid, " + rejected
+                + " rejected by the decoder " + reasons + ", "
+                + disagreements + " disagreements, " + otherErrors
+                + " other exceptions");
+
+        // cost of rejecting malformed packets.
+        int invalid = 0;
+        long allocatedBefore = Simple_Java_Udp.allocatedBytes();
+        long before = System.nanoTime();
+        for (byte[] packet : corpus)
+        {
+            if (DNSMessageValidator.validate(packet, 0, packet.length) != null)
+            {
+                invalid += 1;
+            }
+        }
+        long after = System.nanoTime();
+        long allocatedAfter = Simple_Java_Udp.allocatedBytes();
+        System.out.println("validate: " + (after - before) / corpus.size()
+                + " ns per packet; " + (allocatedAfter - allocatedBefore)
+                + " bytes allocated in total; " + invalid + " invalid");
+
+        before = System.nanoTime();
+        for (byte[] packet : corpus)
+        {
+            try
+            {
+                new DNSMessage(CodecPool.decoder(packet, 0, packet.length));
+            }catch (DNSDecodeException d)
+            {
+                // counted above.
+            }
+        }
+        after = System.nanoTime();
+        System.out.println("decode: " + (after - before) / corpus.size()
+                + " ns per packet");
+    }
+
+
+    /** Helper method for testMalformedPackets():
+     * build a response which answer's name is a chain of pointers.
+     * The question is "a", then a record of an unknown type, which rdata is
+     *  hops pointers, the first to "a", each next one to the one before.
+     *  The name of the last record points to the last of them.
+     * @param hops - number of pointers in the chain.
+     * @return the bytes of the response. */
+    private static byte[] pointerChain(int hops)
+    {
+        int rdataStart = DNSHeader.HEADER_LENGTH + 7 + 11;
+        byte[] result = new byte[rdataStart + 2 * hops + 16];
+        DNSHeader.setFlag(result, 0, 0x8400);
+        DNSHeader.setField(result, 0, DNSHeader.QUESTION_COUNT_OFFSET, 1);
+        DNSHeader.setField(result, 0, DNSHeader.ANSWER_COUNT_OFFSET, 2);
+        // question: "a", type A, class IN.
+        int index = DNSHeader.HEADER_LENGTH;
+        result[index] = 1;
+        result[index + 1] = 'a';
+        DNSHeader.setField(result, 0, index + 3, 1);
+        DNSHeader.setField(result, 0, index + 5, 1);
+        // record of type 99: root name, type, class, ttl, rdLength.
+        index += 7;
+        DNSHeader.setField(result, 0, index + 1, 99);
+        DNSHeader.setField(result, 0, index + 3, 1);
+        DNSHeader.setField(result, 0, index + 9, 2 * hops);
+        int target = DNSHeader.HEADER_LENGTH;
+        for (int i = 0; i < hops; i++)
+        {
+            DNSHeader.setField(result, 0, rdataStart + 2 * i, 0xC000 | target);
+            target = rdataStart + 2 * i;
+        }
+        // type A record, named by the last pointer.
+        index = rdataStart + 2 * hops;
+        DNSHeader.setField(result, 0, index, 0xC000 | target);
+        DNSHeader.setField(result, 0, index + 2, 1);
+        DNSHeader.setField(result, 0, index + 4, 1);
+        DNSHeader.setField(result, 0, index + 10, 4);
+        return result;
+    }
+
+
+    /** Helper method for testMalformedPackets():
+     * @return a copy of message, with the question name replaced by name,
+     *          and the rest of the message after it. */
+    private static byte[] withName(byte[] message, byte[] name)
+    {
+        // the question name of message is "www.uwo0.ca", 13 bytes.
+        int nameEnd = DNSHeader.HEADER_LENGTH + 13;
+        byte[] result = new byte[message.length - 13 + name.length];
+        System.arraycopy(message, 0, result, 0, DNSHeader.HEADER_LENGTH);
+        System.arraycopy(name, 0, result, DNSHeader.HEADER_LENGTH, name.length);
+        System.arraycopy(message, nameEnd, result,
+                DNSHeader.HEADER_LENGTH + name.length, message.length - nameEnd);
+        return result;
+    }
+
+
     /** Test save print line to a file.*/
     public static void testSaveOutput()
     {
@@ -405,6 +1683,23 @@ public class Simple_Java_Udp {
 
                 System.exit(0);
             }
+
+            // measure encoding/decoding performance.
+            if (args[0].equalsIgnoreCase("benchmark")){
+                Simple_Java_Udp.testEncodePerformance(1000000);
+                Simple_Java_Udp.testNameCompression(200000);
+                Simple_Java_Udp.testCodecPool(2000000);
+                Simple_Java_Udp.testQueryArena(200000);
+                Simple_Java_Udp.testDecodePerformance(1000000);
+                Simple_Java_Udp.testIPv6Performance(1000000);
+                Simple_Java_Udp.testNameScanner(2000000);
+                Simple_Java_Udp.testRelayUnknownTypes(1000000);
+                Simple_Java_Udp.testFrameDecoder(20000);
+                Simple_Java_Udp.testCompactRecords(20000);
+                Simple_Java_Udp.testRecordLookup(1000000);
+                Simple_Java_Udp.testMalformedPackets(1000000);
+                System.exit(0);
+            }
         }
 
 
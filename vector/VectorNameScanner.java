@@ -0,0 +1,157 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The NameScanner that looks at many bytes at a time, with the Vector API.
+ *
+ * Upper case letters are turned to lower case for a whole vector at once:
+ *  the lanes between 'A' and 'Z' get 'a' - 'A' added. Comparing is then one
+ *  compare of two vectors. The hash h = 31 * h + b over n bytes is
+ *      h * 31^n + b0 * 31^(n-1) + ... + b(n-1) * 31^0
+ *  so the bytes of a vector are widened to ints, multiplied by a table of
+ *  powers of 31 and added together; the result is the same int as the
+ *  scalar loop (int overflow wraps the same way). A vector of bytes is at
+ *  least 64 bits, so with 128-bit vectors (SSE, NEON) 8 bytes are loaded
+ *  and widened in two parts of 4 ints.
+ * For comparing, the last vector ends at the last byte and may overlap the
+ *  one before it, so there are no bytes left over; names shorter than the
+ *  widest vector use vectors of 16 bytes. For hashing, the bytes left after
+ *  the last full vector are done one by one.
+ *
+ * Letters are lowered with the code written out in each method, not in a
+ *  helper both share: the JIT only turns the vector operations into
+ *  instructions when each call site sees one vector size.
+ *
+ * Needs "--add-modules jdk.incubator.vector" to compile and to run, see
+ * "make vector". NameScanner falls back to ScalarNameScanner without it.
+ */
+public class VectorNameScanner extends NameScanner
+{
+    // the widest vector of bytes of this CPU, for comparing,
+    //  and a vector of 16 bytes for the names shorter than it.
+    private static final VectorSpecies<Byte> BYTES = ByteVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> SMALL_BYTES = ByteVector.SPECIES_128;
+
+    // the widest vector of ints, and a vector of as many bytes (at least
+    //  64 bits, the smallest vector), for hashing.
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Byte> HASH_BYTES = VectorSpecies.of(byte.class,
+            VectorShape.forBitSize(Math.max(INTS.length() * Byte.SIZE, 64)));
+    // number of vectors of INTS the bytes of HASH_BYTES are widened to.
+    private static final int PARTS = HASH_BYTES.length() / INTS.length();
+
+    // 31^(n-1), ..., 31^1, 31^0 with n lanes of INTS.
+    private static final IntVector POWERS;
+    // 31^n, what the hash before a vector is multiplied by.
+    private static final int POWER_N;
+
+    static
+    {
+        int[] powers = new int[INTS.length()];
+        int power = 1;
+        for (int i = powers.length - 1; i >= 0; i--)
+        {
+            powers[i] = power;
+            power *= 31;
+        }
+        POWERS = IntVector.fromArray(INTS, powers, 0);
+        POWER_N = power;
+    }
+
+    @Override
+    public String getName()
+    {
+        return "vector" + BYTES.vectorBitSize();
+    }
+
+
+    @Override
+    public boolean equalsIgnoreCase(byte[] a, int aOffset,
+                                    byte[] b, int bOffset, int len)
+    {
+        if (len >= BYTES.length())
+        {
+            // full vectors, then one more that ends at len (it may
+            //  overlap the one before, those bytes are compared twice).
+            for (int i = 0; ; i += BYTES.length())
+            {
+                int at = Math.min(i, len - BYTES.length());
+                ByteVector va = ByteVector.fromArray(BYTES, a, aOffset + at);
+                ByteVector vb = ByteVector.fromArray(BYTES, b, bOffset + at);
+                va = va.add((byte) ('a' - 'A'), va.compare(VectorOperators.GE, (byte) 'A')
+                        .and(va.compare(VectorOperators.LE, (byte) 'Z')));
+                vb = vb.add((byte) ('a' - 'A'), vb.compare(VectorOperators.GE, (byte) 'A')
+                        .and(vb.compare(VectorOperators.LE, (byte) 'Z')));
+                if (va.compare(VectorOperators.NE, vb).anyTrue())
+                {
+                    return false;
+                }
+                if (at == len - BYTES.length())
+                {
+                    return true;
+                }
+            }
+        }
+        if (len >= SMALL_BYTES.length())
+        {
+            // shorter than a full vector: the same with 16 bytes.
+            for (int i = 0; ; i += SMALL_BYTES.length())
+            {
+                int at = Math.min(i, len - SMALL_BYTES.length());
+                ByteVector va = ByteVector.fromArray(SMALL_BYTES, a, aOffset + at);
+                ByteVector vb = ByteVector.fromArray(SMALL_BYTES, b, bOffset + at);
+                va = va.add((byte) ('a' - 'A'), va.compare(VectorOperators.GE, (byte) 'A')
+                        .and(va.compare(VectorOperators.LE, (byte) 'Z')));
+                vb = vb.add((byte) ('a' - 'A'), vb.compare(VectorOperators.GE, (byte) 'A')
+                        .and(vb.compare(VectorOperators.LE, (byte) 'Z')));
+                if (va.compare(VectorOperators.NE, vb).anyTrue())
+                {
+                    return false;
+                }
+                if (at == len - SMALL_BYTES.length())
+                {
+                    return true;
+                }
+            }
+        }
+        for (int i = 0; i < len; i++)
+        {
+            if (DNSName.toLowerCase(a[aOffset + i])
+                    != DNSName.toLowerCase(b[bOffset + i]))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    @Override
+    public int hashIgnoreCase(byte[] bytes, int offset, int len)
+    {
+        int h = 1;
+        int i = 0;
+        int bound = HASH_BYTES.loopBound(len);
+        for (; i < bound; i += HASH_BYTES.length())
+        {
+            ByteVector v = ByteVector.fromArray(HASH_BYTES, bytes, offset + i);
+            v = v.add((byte) ('a' - 'A'), v.compare(VectorOperators.GE, (byte) 'A')
+                    .and(v.compare(VectorOperators.LE, (byte) 'Z')));
+            // bytes are widened with their sign, like the scalar loop.
+            for (int part = 0; part < PARTS; part++)
+            {
+                IntVector widened = (IntVector) v.convertShape(
+                        VectorOperators.B2I, INTS, part);
+                h = h * POWER_N + widened.mul(POWERS).reduceLanes(VectorOperators.ADD);
+            }
+        }
+        for (; i < len; i++)
+        {
+            h = 31 * h + DNSName.toLowerCase(bytes[offset + i]);
+        }
+        return h;
+    }
+}